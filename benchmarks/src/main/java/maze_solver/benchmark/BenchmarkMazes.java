@@ -0,0 +1,56 @@
+package maze_solver.benchmark;
+
+import maze_solver.Coordinate;
+import maze_solver.Maze;
+import maze_solver.Maze.HexType;
+import maze_solver.MazeGenerator;
+import maze_solver.MazeGenerator.Algorithm;
+
+
+/**
+ * Builds the square mazes the benchmarks run on with the MazeGenerator. Every
+ * maze has a path from the mouse to the cheese.
+ */
+final class BenchmarkMazes {
+    /**
+     * Seed for the generator so every run benchmarks the same mazes.
+     */
+    static final long SEED = 20181029L;
+
+    private BenchmarkMazes() {}
+
+    /**
+     * @param size
+     *            Width and height of the maze.
+     * @return A recursive backtracker maze, which is mostly long corridors like
+     *         maze.txt.
+     */
+    static Maze create(final int size) {
+	return MazeGenerator.generate(size, size, Algorithm.RECURSIVE_BACKTRACKER, SEED);
+    }
+
+    /**
+     * @param size
+     *            Width and height of the maze.
+     * @param algorithm
+     *            How the maze is generated.
+     * @return A maze generated with the given algorithm.
+     */
+    static Maze create(final int size, final Algorithm algorithm) {
+	return MazeGenerator.generate(size, size, algorithm, SEED);
+    }
+
+    /**
+     * @return Position of the mouse. Scans the maze so call it during setup.
+     */
+    static Coordinate start(final Maze maze) {
+	return maze.find(HexType.MOUSE);
+    }
+
+    /**
+     * @return Position of the cheese. Scans the maze so call it during setup.
+     */
+    static Coordinate goal(final Maze maze) {
+	return maze.find(HexType.CHEESE);
+    }
+}
@@ -0,0 +1,60 @@
+package maze_solver.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import maze_solver.Coordinate;
+import maze_solver.DistanceField;
+import maze_solver.DistanceFieldCache;
+import maze_solver.InvalidPositionException;
+import maze_solver.Maze;
+import maze_solver.SolverResult;
+
+
+/**
+ * Time to build a DistanceField and to answer a path query from a warm
+ * DistanceFieldCache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistanceFieldBenchmark {
+    @Param({ "200", "1000", "4000" })
+    int		       size;
+
+    Maze	       maze;
+    Coordinate	       start;
+    Coordinate	       goal;
+    DistanceFieldCache cache;
+
+    @Setup
+    public void setUp() throws InvalidPositionException {
+	maze = BenchmarkMazes.create(size);
+	start = BenchmarkMazes.start(maze);
+	goal = BenchmarkMazes.goal(maze);
+	cache = new DistanceFieldCache(Long.MAX_VALUE);
+	cache.get(maze, goal);
+    }
+
+    @Benchmark
+    public DistanceField compute() throws InvalidPositionException {
+	return DistanceField.compute(maze, goal);
+    }
+
+    @Benchmark
+    public SolverResult cachedQuery() throws InvalidPositionException {
+	return cache.solve(maze, start, goal);
+    }
+}
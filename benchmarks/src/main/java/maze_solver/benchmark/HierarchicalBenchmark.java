@@ -0,0 +1,70 @@
+package maze_solver.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import maze_solver.AStarSolver;
+import maze_solver.Coordinate;
+import maze_solver.HierarchicalPathfinder;
+import maze_solver.InvalidPositionException;
+import maze_solver.Maze;
+import maze_solver.MazeGenerator.Algorithm;
+import maze_solver.SolverResult;
+
+
+/**
+ * Time for a corner to corner query with the HierarchicalPathfinder, once its
+ * clusters are built, compared with A*.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HierarchicalBenchmark {
+    @Param({ "1000", "4000" })
+    int			   size;
+
+    @Param({ "OPEN_FIELD", "PRIM" })
+    Algorithm		   algorithm;
+
+    Maze		   maze;
+    Coordinate		   start;
+    Coordinate		   goal;
+    HierarchicalPathfinder hierarchical;
+
+    @Setup
+    public void setUp() throws InvalidPositionException {
+	maze = BenchmarkMazes.create(size, algorithm);
+	start = BenchmarkMazes.start(maze);
+	goal = BenchmarkMazes.goal(maze);
+	hierarchical = new HierarchicalPathfinder(maze, 32);
+	hierarchical.solve(start, goal);
+    }
+
+    @TearDown
+    public void tearDown() {
+	hierarchical.close();
+    }
+
+    @Benchmark
+    public SolverResult hierarchical() throws InvalidPositionException {
+	return hierarchical.solve(start, goal);
+    }
+
+    @Benchmark
+    public SolverResult astar() throws InvalidPositionException {
+	return new AStarSolver().solve(maze, start, goal);
+    }
+}
@@ -0,0 +1,64 @@
+package maze_solver.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import maze_solver.Coordinate;
+import maze_solver.IncrementalSolver;
+import maze_solver.InvalidPositionException;
+import maze_solver.Maze;
+import maze_solver.Maze.HexType;
+import maze_solver.MazeGenerator.Algorithm;
+import maze_solver.SolverResult;
+
+
+/**
+ * Time for the IncrementalSolver to repair its path after one wall on the path
+ * is toggled, on a large open field.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IncrementalBenchmark {
+    @Param({ "200", "1000" })
+    int			 size;
+
+    Maze		 maze;
+    IncrementalSolver	 solver;
+    /**
+     * Position in the middle of the first path, toggled between WALL and OPEN.
+     */
+    Coordinate		 toggled;
+
+    @Setup
+    public void setUp() throws InvalidPositionException {
+	maze = BenchmarkMazes.create(size, Algorithm.OPEN_FIELD);
+	solver = new IncrementalSolver(maze, BenchmarkMazes.start(maze), BenchmarkMazes.goal(maze));
+	final SolverResult first = solver.solve();
+	toggled = first.getPath().get(first.getPath().size() / 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+	solver.close();
+    }
+
+    @Benchmark
+    public SolverResult toggleAndSolve() {
+	maze.set(toggled, maze.get(toggled) == HexType.WALL ? HexType.OPEN : HexType.WALL);
+	return solver.solve();
+    }
+}
@@ -0,0 +1,73 @@
+package maze_solver.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import maze_solver.BinaryMazeFormat;
+import maze_solver.Maze;
+import maze_solver.MazeFormatException;
+import maze_solver.TextMazeFormat;
+
+
+/**
+ * Time to load a maze from the text and binary formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+    @Param({ "20", "200", "1000", "4000" })
+    int	 size;
+
+    Path text;
+    Path binary;
+
+    @Setup
+    public void setUp() throws IOException {
+	final Maze maze = BenchmarkMazes.create(size);
+
+	text = Files.createTempFile("maze", ".txt");
+	binary = Files.createTempFile("maze", ".hxmz");
+	TextMazeFormat.write(maze, text);
+	BinaryMazeFormat.write(maze, binary);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+	Files.delete(text);
+	Files.delete(binary);
+    }
+
+    @Benchmark
+    public Maze loadFromFile() throws IOException {
+	final Maze maze = new Maze(0, 0);
+	maze.loadFromFile(text.toString());
+	return maze;
+    }
+
+    @Benchmark
+    public Maze readBinary() throws IOException, MazeFormatException {
+	return BinaryMazeFormat.read(binary, Maze.Storage.BYTE);
+    }
+
+    @Benchmark
+    public Maze mapBinary() throws IOException, MazeFormatException {
+	return BinaryMazeFormat.map(binary);
+    }
+}
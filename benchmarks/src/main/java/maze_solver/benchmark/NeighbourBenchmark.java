@@ -0,0 +1,74 @@
+package maze_solver.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import maze_solver.Coordinate;
+import maze_solver.InvalidPositionException;
+import maze_solver.Maze;
+import maze_solver.Player;
+
+
+/**
+ * Time to find the neighbours of one row of hexagons through each neighbour API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NeighbourBenchmark {
+    @Param({ "20", "200", "1000", "4000" })
+    int		 size;
+
+    Maze	 maze;
+    Player	 player;
+    Coordinate[] row;
+
+    @Setup
+    public void setUp() {
+	maze = BenchmarkMazes.create(size);
+	player = new Player(maze, BenchmarkMazes.start(maze));
+	row = new Coordinate[size];
+	for (int x = 0; x < size; x++) {
+	    row[x] = new Coordinate(x, size / 2);
+	}
+    }
+
+    @Benchmark
+    public void getNeighbours(final Blackhole blackhole) throws InvalidPositionException {
+	for (final Coordinate c : row) {
+	    blackhole.consume(maze.getNeighbours(c));
+	}
+    }
+
+    @Benchmark
+    public void neighbourMask(final Blackhole blackhole) {
+	final int y = size / 2;
+	for (int x = 0; x < size; x++) {
+	    final int index = maze.index(x, y);
+	    final int mask = maze.neighbourMask(x, y);
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		if ((mask & 1 << d) != 0) blackhole.consume(maze.isPassable(index + maze.neighbourOffset(y, d)));
+	    }
+	}
+    }
+
+    @Benchmark
+    public void findOpenNeighbours(final Blackhole blackhole) throws InvalidPositionException {
+	for (final Coordinate c : row) {
+	    blackhole.consume(player.findOpenNeighbours(c));
+	}
+    }
+}
@@ -0,0 +1,55 @@
+package maze_solver.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import maze_solver.Coordinate;
+import maze_solver.Maze;
+import maze_solver.Player;
+
+
+/**
+ * Time for a Player to walk a whole maze one attemptMove at a time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayerBenchmark {
+    @Param({ "20", "200", "1000", "4000" })
+    int	 size;
+
+    /**
+     * The Player doesn't change the maze, so one maze is shared by every
+     * invocation.
+     */
+    Maze       maze;
+    Coordinate start;
+
+    @Setup
+    public void setUp() {
+	maze = BenchmarkMazes.create(size);
+	start = BenchmarkMazes.start(maze);
+    }
+
+    @Benchmark
+    public Player solve() throws Exception {
+	final Player player = new Player(maze, start);
+
+	while (!player.hasWon()) {
+	    player.attemptMove();
+	}
+	return player;
+    }
+}
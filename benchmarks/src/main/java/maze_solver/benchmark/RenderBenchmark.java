@@ -0,0 +1,75 @@
+package maze_solver.benchmark;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import maze_solver.AnsiRenderer;
+import maze_solver.Maze;
+import maze_solver.MazeRenderer;
+
+
+/**
+ * Time to print a maze as a String and streamed to a Writer, and to draw one
+ * changed hexagon as an AnsiRenderer frame.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+    @Param({ "20", "200", "1000", "4000" })
+    int	 size;
+
+    Maze	    maze;
+    /**
+     * Reused between invocations so only the rendering is measured.
+     */
+    CharArrayWriter writer;
+    AnsiRenderer    animation;
+    int		    changed;
+
+    @Setup
+    public void setUp() {
+	maze = BenchmarkMazes.create(size);
+	writer = new CharArrayWriter((2 * size + 2) * size);
+	animation = new AnsiRenderer(maze, writer);
+	try {
+	    animation.drawFrame();
+	} catch (final IOException e) {
+	    throw new IllegalStateException(e);
+	}
+    }
+
+    @Benchmark
+    public String mazeToString() {
+	return maze.toString();
+    }
+
+    @Benchmark
+    public int renderToWriter() throws IOException {
+	writer.reset();
+	MazeRenderer.render(maze, writer);
+	return writer.size();
+    }
+
+    @Benchmark
+    public int ansiFrame() throws IOException {
+	writer.reset();
+	animation.markChanged(changed);
+	changed = (changed + 1) % (size * size);
+	return animation.drawFrame();
+    }
+}
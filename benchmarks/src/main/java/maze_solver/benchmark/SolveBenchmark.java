@@ -0,0 +1,53 @@
+package maze_solver.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import maze_solver.Coordinate;
+import maze_solver.InvalidPositionException;
+import maze_solver.Maze;
+import maze_solver.MazeSolver;
+import maze_solver.SolverResult;
+
+
+/**
+ * Time to solve a whole maze with each MazeSolver.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolveBenchmark {
+    @Param({ "20", "200", "1000", "4000" })
+    int	   size;
+
+    @Param({ "dfs", "bfs", "parallel-bfs", "astar", "bidirectional", "junction" })
+    String solver;
+
+    Maze       maze;
+    Coordinate start;
+    Coordinate goal;
+
+    @Setup
+    public void setUp() {
+	maze = BenchmarkMazes.create(size);
+	start = BenchmarkMazes.start(maze);
+	goal = BenchmarkMazes.goal(maze);
+    }
+
+    @Benchmark
+    public SolverResult solve() throws InvalidPositionException {
+	return MazeSolver.forName(solver).solve(maze, start, goal);
+    }
+}
@@ -0,0 +1,110 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/**
+ * Solves a maze with A* using the hexagon distance between a position and the
+ * goal as the heuristic. Always finds the shortest path and usually expands
+ * far fewer positions than a breadth first search.
+ */
+public class AStarSolver extends AbstractSolver {
+
+    @Override
+    protected SolverResult search(final Maze maze, final int start, final int goal) {
+	final int size = maze.getWidth() * maze.getHeight();
+	final int goalX = maze.xOf(goal);
+	final int goalY = maze.yOf(goal);
+	final BitSet closed = new BitSet(size);
+	final int[] parent = new int[size];
+	final int[] cost = new int[size];
+	final IndexHeap open = new IndexHeap();
+	long expanded = 0;
+	long peak = 0;
+
+	Arrays.fill(cost, Integer.MAX_VALUE);
+	cost[start] = 0;
+	parent[start] = NO_PARENT;
+	open.add(HexMath.distance(maze.xOf(start), maze.yOf(start), goalX, goalY), start);
+
+	while (!open.isEmpty()) {
+	    if (open.size() > peak) peak = open.size();
+	    final int current = open.poll();
+	    if (closed.get(current)) continue; // Already expanded with a lower cost.
+	    if (current == goal) return new SolverResult(buildPath(maze, parent, goal), metrics(size, expanded, peak));
+
+	    closed.set(current);
+	    expanded++;
+
+	    final int y = maze.yOf(current);
+	    final int mask = maze.neighbourMask(current - y * maze.getWidth(), y);
+	    final int nextCost = cost[current] + 1;
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		if ((mask & 1 << d) == 0) continue;
+
+		final int n = current + maze.neighbourOffset(y, d);
+		if (closed.get(n) || nextCost >= cost[n] || !maze.isPassable(n)) continue;
+
+		cost[n] = nextCost;
+		parent[n] = current;
+		open.add(nextCost + HexMath.distance(maze.xOf(n), maze.yOf(n), goalX, goalY), n);
+	    }
+	}
+	return new SolverResult(new ArrayList<Coordinate>(), metrics(size, expanded, peak));
+    }
+
+    private static SolverMetrics metrics(final int size, final long expanded, final long peak) {
+	// The closed bits, parent and cost, and a heap grown to hold the peak.
+	return metrics(expanded, peak, size / 8 + 8L * size + 8 * Long.highestOneBit(Math.max(64, 2 * peak - 1)));
+    }
+
+    /**
+     * A binary min heap of maze indexes ordered by priority. Each entry is packed
+     * into a long so the heap doesn't allocate per entry.
+     */
+    static class IndexHeap {
+	private long[] heap = new long[64];
+	private int    size = 0;
+
+	void add(final int priority, final int index) {
+	    if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+
+	    final long entry = (long) priority << 32 | index & 0xFFFFFFFFL;
+	    int i = size++;
+	    while (i > 0) {
+		final int p = (i - 1) / 2;
+		if (heap[p] <= entry) break;
+		heap[i] = heap[p];
+		i = p;
+	    }
+	    heap[i] = entry;
+	}
+
+	int poll() {
+	    final long top = heap[0];
+	    final long last = heap[--size];
+	    int i = 0;
+
+	    while (true) {
+		int c = 2 * i + 1;
+		if (c >= size) break;
+		if (c + 1 < size && heap[c + 1] < heap[c]) c++;
+		if (last <= heap[c]) break;
+		heap[i] = heap[c];
+		i = c;
+	    }
+	    heap[i] = last;
+	    return (int) top;
+	}
+
+	boolean isEmpty() {
+	    return size == 0;
+	}
+
+	int size() {
+	    return size;
+	}
+    }
+}
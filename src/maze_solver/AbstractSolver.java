@@ -0,0 +1,133 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Base for MazeSolvers that search using maze indexes rather than Coordinates.
+ * Checks the start and goal positions and converts the found path back into
+ * Coordinates.
+ */
+public abstract class AbstractSolver implements MazeSolver {
+    /**
+     * Parent value of a position that has no parent.
+     */
+    static final int NO_PARENT = -1;
+
+    @Override
+    public SolverResult solve(final Maze maze, final Coordinate start, final Coordinate goal)
+	    throws InvalidPositionException {
+	final Coordinate size = new Coordinate(maze.getWidth(), maze.getHeight());
+
+	if (!maze.contains(start.getX(), start.getY())) throw new InvalidPositionException(start, size);
+	if (!maze.contains(goal.getX(), goal.getY())) throw new InvalidPositionException(goal, size);
+
+	final long startTime = System.nanoTime();
+	final int startIndex = maze.index(start.getX(), start.getY());
+	final int goalIndex = maze.index(goal.getX(), goal.getY());
+	final SolverResult result;
+
+	if (!maze.isPassable(startIndex) || !maze.isPassable(goalIndex)) {
+	    result = new SolverResult(Collections.<Coordinate>emptyList(), 0);
+	} else if (startIndex == goalIndex) {
+	    result = new SolverResult(Collections.singletonList(new Coordinate(start)), 0);
+	} else if (usesComponents() && !maze.getComponents().connected(startIndex, goalIndex)) {
+	    result = new SolverResult(Collections.<Coordinate>emptyList(), 0);
+	} else {
+	    result = search(maze, startIndex, goalIndex);
+	}
+
+	return finish(result, this, maze, startTime);
+    }
+
+    /**
+     * Whether unreachable goals are rejected using the connected components of
+     * the maze before searching. The components are built the first time a maze
+     * is solved and kept, so this is free for every later solve.
+     *
+     * @return True unless the solver can't afford to label the whole maze.
+     */
+    protected boolean usesComponents() {
+	return true;
+    }
+
+    /**
+     * Find a path through the maze between two passable, different, connected
+     * positions.
+     *
+     * @param maze
+     *            Maze to search.
+     * @param start
+     *            Index of the position the path starts at.
+     * @param goal
+     *            Index of the position the path ends at.
+     * @return The path found and what finding it cost. The solve time, solver
+     *         name and maze size are filled in afterwards.
+     */
+    protected abstract SolverResult search(Maze maze, int start, int goal);
+
+    /**
+     * Collects the metrics every search tracks.
+     *
+     * @param expanded
+     *            Number of positions expanded.
+     * @param peakFrontier
+     *            Most positions waiting to be expanded at once.
+     * @param allocatedBytes
+     *            Estimated bytes allocated for the search state.
+     * @return New metrics with the given counts.
+     */
+    static SolverMetrics metrics(final long expanded, final long peakFrontier, final long allocatedBytes) {
+	final SolverMetrics metrics = new SolverMetrics();
+	metrics.setNodesExpanded(expanded);
+	metrics.setPeakFrontier(peakFrontier);
+	metrics.setAllocatedBytes(allocatedBytes);
+	return metrics;
+    }
+
+    /**
+     * Fills in what every MazeSolver reports about a solve besides the search
+     * itself: the solve time, the solver name and the maze size.
+     *
+     * @param result
+     *            Result of the solve.
+     * @param solver
+     *            Solver that solved the maze, named by its class.
+     * @param maze
+     *            Maze that was solved.
+     * @param startTime
+     *            System.nanoTime when the solve started.
+     * @return result, with its metrics filled in.
+     */
+    static SolverResult finish(final SolverResult result, final MazeSolver solver, final Maze maze,
+	    final long startTime) {
+	final SolverMetrics metrics = result.getMetrics();
+	metrics.setSolveNanos(System.nanoTime() - startTime);
+	metrics.setSolver(solver.getClass().getSimpleName());
+	metrics.setSize(maze.getWidth(), maze.getHeight());
+	return result;
+    }
+
+    /**
+     * Follows parent links from a position back to the position without a parent.
+     *
+     * @param maze
+     *            Maze the indexes are for.
+     * @param parent
+     *            Index of the position each position was reached from.
+     * @param end
+     *            Index of the last position in the path.
+     * @return Coordinates from the position without a parent to end, inclusive.
+     */
+    static List<Coordinate> buildPath(final Maze maze, final int[] parent, final int end) {
+	final ArrayList<Coordinate> path = new ArrayList<>();
+
+	for (int i = end; i != NO_PARENT; i = parent[i]) {
+	    path.add(new Coordinate(maze.xOf(i), maze.yOf(i)));
+	}
+	Collections.reverse(path);
+	return path;
+    }
+}
@@ -0,0 +1,166 @@
+package maze_solver;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.BitSet;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * Animates a maze being solved in a terminal. The first frame draws the whole
+ * maze; every frame after that only redraws the hexagons that changed since the
+ * frame before, each reached with an ANSI cursor move, so a frame costs output
+ * in proportion to what changed rather than to the size of the maze. Add the
+ * renderer as a listener of the Player or Maze it draws to be told what changed.
+ * <p>
+ * Rows are laid out like MazeRenderer, but every row keeps one column in front
+ * of its first hexagon so that a mouse's brackets never shift the rest of the
+ * row, and every hexagon stays at the same column in every frame. The maze is
+ * drawn from the top left of the terminal, which has to be big enough to show
+ * all of it.
+ */
+public class AnsiRenderer implements MazeListener {
+    /**
+     * Starts every ANSI control sequence.
+     */
+    static final String	    CSI	    = "\033[";
+    private static final String NEWLINE = System.lineSeparator();
+
+    private final HexView	    view;
+    private final Appendable	    out;
+    /**
+     * Indexes of every hexagon changed since the last frame.
+     */
+    private final BitSet	    changed = new BitSet();
+    private int			    width   = -1;
+    private int			    height  = -1;
+    /**
+     * Terminal row and column the cursor was left at, starting at 1, or 0 if
+     * not known.
+     */
+    private int			    cursorRow;
+    private int			    cursorColumn;
+
+    /**
+     * @param view
+     *            Maze, or a view of a maze being solved, to draw.
+     * @param out
+     *            Terminal to draw to. Flushed after every frame if it is
+     *            Flushable.
+     */
+    public AnsiRenderer(final HexView view, final Appendable out) {
+	this.view = view;
+	this.out = out;
+    }
+
+    @Override
+    public void cellChanged(final Maze maze, final int index, final HexType oldType, final HexType newType) {
+	changed.set(index);
+    }
+
+    /**
+     * Redraws a hexagon in the next frame even if nothing said it changed.
+     *
+     * @param index
+     *            Index of the hexagon, see Maze.index(x, y).
+     */
+    public void markChanged(final int index) {
+	changed.set(index);
+    }
+
+    /**
+     * Redraws the whole maze in the next frame, for instance after the terminal
+     * was cleared.
+     */
+    public void redraw() {
+	width = -1;
+    }
+
+    /**
+     * Draws the hexagons changed since the last frame, or the whole maze for the
+     * first frame or if it has been resized, then leaves the cursor on the line
+     * below the maze.
+     *
+     * @return Number of hexagons drawn.
+     * @throws IOException
+     *             If out can't be written to.
+     */
+    public int drawFrame() throws IOException {
+	final int drawn;
+	if (width != view.getWidth() || height != view.getHeight()) {
+	    drawn = drawAll();
+	} else {
+	    drawn = drawChanged();
+	}
+	changed.clear();
+	moveTo(height + 1, 1);
+	if (out instanceof Flushable) ((Flushable) out).flush();
+	return drawn;
+    }
+
+    private int drawAll() throws IOException {
+	width = view.getWidth();
+	height = view.getHeight();
+
+	out.append(CSI).append("2J").append(CSI).append('H');
+	for (int y = 0; y < height; y++) {
+	    if (y % 2 == 1) out.append(' ');
+	    for (int x = 0; x < width; x++) {
+		final int index = y * width + x;
+		out.append(separator(index, x)).append(view.get(index).display);
+	    }
+	    out.append(separator(y * width + width, width));
+	    out.append(NEWLINE);
+	}
+	cursorRow = height + 1;
+	cursorColumn = 1;
+	return width * height;
+    }
+
+    /**
+     * Redraws each changed hexagon with the separators either side of it, which
+     * show the brackets of a mouse. A hexagon right after the one just drawn
+     * needs no cursor move.
+     */
+    private int drawChanged() throws IOException {
+	final int size = width * height;
+	int drawn = 0;
+
+	for (int index = changed.nextSetBit(0); index >= 0 && index < size; index = changed.nextSetBit(index + 1)) {
+	    final int x = index % width;
+	    final int y = index / width;
+	    final int row = y + 1;
+	    // Terminal column of the separator in front of the hexagon.
+	    final int column = 2 * x + y % 2 + 1;
+
+	    if (cursorRow != row || cursorColumn != column + 1) {
+		moveTo(row, column);
+		out.append(separator(index, x));
+	    }
+	    out.append(view.get(index).display).append(separator(index + 1, x + 1));
+	    cursorRow = row;
+	    cursorColumn = column + 3;
+	    drawn++;
+	}
+	return drawn;
+    }
+
+    /**
+     * @return The character between the hexagon at index - 1 and the one at
+     *         index, in column x of its row: the brackets of a mouse on either
+     *         side, or a space.
+     */
+    private char separator(final int index, final int x) {
+	if (x < width && view.get(index) == HexType.MOUSE) return '[';
+	if (x > 0 && view.get(index - 1) == HexType.MOUSE) return ']';
+	return ' ';
+    }
+
+    private void moveTo(final int row, final int column) throws IOException {
+	if (cursorRow == row && cursorColumn == column) return;
+
+	out.append(CSI).append(Integer.toString(row)).append(';').append(Integer.toString(column)).append('H');
+	cursorRow = row;
+	cursorColumn = column;
+    }
+}
@@ -0,0 +1,138 @@
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import maze_solver.Maze.HexType;
+import maze_solver.MazeGenerator.Algorithm;
+
+
+/**
+ * Tests AnsiRenderer only redraws what a Player changed, and that the frames it
+ * draws leave the terminal showing the same maze as drawing it all again.
+ */
+class AnsiRendererTest {
+
+    @Test
+    void testFramesMatchFullDraw() throws Exception {
+	final Maze maze = MazeGenerator.generate(40, 30, Algorithm.RECURSIVE_BACKTRACKER, 8);
+	final Player player = new Player(maze, maze.find(HexType.MOUSE));
+	final StringBuilder out = new StringBuilder();
+	final AnsiRenderer renderer = new AnsiRenderer(player, out);
+	final Terminal terminal = new Terminal(maze.getHeight() + 1, 2 * maze.getWidth() + 2);
+
+	player.addListener(renderer);
+	assertEquals(maze.getWidth() * maze.getHeight(), renderer.drawFrame());
+	terminal.apply(out);
+	while (!player.hasWon() && !player.hasFailed()) {
+	    player.attemptMove();
+	    out.setLength(0);
+
+	    // A move changes the old and new position and the mouse's path.
+	    assertTrue(renderer.drawFrame() <= 3);
+	    assertTrue(out.toString(), out.length() < 40);
+	    terminal.apply(out);
+	}
+	assertTrue(player.hasWon());
+
+	final StringBuilder full = new StringBuilder();
+	new AnsiRenderer(player, full).drawFrame();
+	final Terminal expected = new Terminal(maze.getHeight() + 1, 2 * maze.getWidth() + 2);
+	expected.apply(full);
+	assertEquals(expected.toString(), terminal.toString());
+    }
+
+    @Test
+    void testLayout() throws Exception {
+	final Maze maze = new Maze(0, 0);
+	maze.loadFromFile("test_maze.txt");
+	final StringBuilder out = new StringBuilder();
+	new AnsiRenderer(maze, out).drawFrame();
+	final Terminal terminal = new Terminal(maze.getHeight() + 1, 2 * maze.getWidth() + 2);
+	terminal.apply(out);
+
+	// The same rows as MazeRenderer, a column further right so a mouse at the
+	// start of a row has room for its bracket.
+	final StringBuilder rendered = new StringBuilder();
+	MazeRenderer.render(maze, rendered);
+	final String[] rows = rendered.toString().split(System.lineSeparator());
+	final String[] lines = terminal.toString().split("\n");
+	for (int y = 0; y < rows.length; y++) {
+	    assertEquals(" " + rows[y].replaceAll(" +$", ""), lines[y].replaceAll(" +$", ""));
+	}
+
+	// Nothing changed, so the next frame draws nothing.
+	out.setLength(0);
+	final AnsiRenderer renderer = new AnsiRenderer(maze, out);
+	maze.addListener(renderer);
+	renderer.drawFrame();
+	out.setLength(0);
+	assertEquals(0, renderer.drawFrame());
+	assertEquals("", out.toString());
+
+	maze.set(2, 4, HexType.WALL);
+	assertEquals(1, renderer.drawFrame());
+	terminal.apply(out);
+	// Row 4 isn't offset, so (2, 4) is drawn in column 2 * 2 + 2.
+	assertEquals('W', terminal.at(5, 6));
+    }
+
+    /**
+     * Just enough of a terminal to follow the output of AnsiRenderer.
+     */
+    private static class Terminal {
+	private final char[][] screen;
+	private int	       row;
+	private int	       column;
+
+	Terminal(final int rows, final int columns) {
+	    screen = new char[rows][columns];
+	    for (final char[] line : screen) {
+		Arrays.fill(line, ' ');
+	    }
+	}
+
+	void apply(final CharSequence output) throws IOException {
+	    for (int i = 0; i < output.length(); i++) {
+		final char c = output.charAt(i);
+		if (c == '\033') {
+		    int end = i + 2;
+		    while (!Character.isLetter(output.charAt(end))) {
+			end++;
+		    }
+		    final String[] arguments = output.subSequence(i + 2, end).toString().split(";");
+		    if (output.charAt(end) == 'H') {
+			row = arguments[0].isEmpty() ? 0 : Integer.parseInt(arguments[0]) - 1;
+			column = arguments.length < 2 ? 0 : Integer.parseInt(arguments[1]) - 1;
+		    } else if (output.charAt(end) != 'J') {
+			throw new IOException("Unexpected control sequence " + output.charAt(end));
+		    }
+		    i = end;
+		} else if (c == '\n') {
+		    row++;
+		    column = 0;
+		} else if (c != '\r') {
+		    screen[row][column++] = c;
+		}
+	    }
+	}
+
+	/**
+	 * @return Character at a row and column, starting at 1.
+	 */
+	char at(final int row, final int column) {
+	    return screen[row - 1][column - 1];
+	}
+
+	@Override
+	public String toString() {
+	    final StringBuilder text = new StringBuilder();
+	    for (final char[] line : screen) {
+		text.append(line).append('\n');
+	    }
+	    return text.toString();
+	}
+    }
+}
@@ -0,0 +1,294 @@
+package maze_solver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.JMException;
+import maze_solver.Maze.HexType;
+import maze_solver.Maze.Storage;
+
+
+/**
+ * Solves many maze files concurrently on a work stealing pool. Every maze is
+ * loaded and solved by its own task, from the MOUSE to the CHEESE, so tasks
+ * share nothing but the output. Only a few mazes per thread are loaded at once
+ * to bound memory. One CSV line is written per maze as soon as it is solved.
+ */
+public class BatchSolver {
+    /**
+     * First line of the output.
+     */
+    static final String HEADER = "maze,solved,length,nodes_expanded,load_ms,solve_ms";
+
+    private final MazeSolver	solver;
+    private final int		threads;
+    private final Writer	out;
+    private final AtomicInteger	solved = new AtomicInteger();
+    private final AtomicInteger	failed = new AtomicInteger();
+    private final SolverStats	stats  = new SolverStats();
+    private Writer		metricsOut;
+
+    /**
+     * @param solver
+     *            Solver used for every maze. Must be safe to share between
+     *            threads, which every MazeSolver is.
+     * @param threads
+     *            Number of mazes to solve at once.
+     * @param out
+     *            Where the results are written. Only written by one thread at a
+     *            time.
+     */
+    public BatchSolver(final MazeSolver solver, final int threads, final Writer out) {
+	this.solver = solver;
+	this.threads = threads;
+	this.out = out;
+    }
+
+    /**
+     * Solves every maze and waits for them all to finish.
+     *
+     * @param mazes
+     *            Maze files to solve.
+     * @throws IOException
+     *             If the results can't be written.
+     * @throws InterruptedException
+     *             If interrupted while waiting for the mazes to be solved.
+     */
+    public void run(final List<Path> mazes) throws IOException, InterruptedException {
+	final ForkJoinPool pool = new ForkJoinPool(threads);
+	// Each loaded maze can be large, so only allow a couple per thread in flight.
+	final Semaphore inFlight = new Semaphore(2 * threads);
+
+	write(HEADER);
+	try {
+	    for (final Path maze : mazes) {
+		inFlight.acquire();
+		pool.execute(() -> {
+		    try {
+			write(solve(maze));
+		    } finally {
+			inFlight.release();
+		    }
+		});
+	    }
+	} finally {
+	    pool.shutdown();
+	    pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+	out.flush();
+    }
+
+    /**
+     * Loads and solves one maze.
+     *
+     * @param path
+     *            Maze file to solve.
+     * @return The CSV line describing the result.
+     */
+    String solve(final Path path) {
+	final long loadStart = System.nanoTime();
+	final long solveStart;
+	final SolverResult result;
+
+	try {
+	    final Maze maze = Maze.read(path, Storage.BYTE);
+	    final Coordinate start = maze.find(HexType.MOUSE);
+	    final Coordinate goal = maze.find(HexType.CHEESE);
+	    if (start == null || goal == null) {
+		failed.incrementAndGet();
+		return csv(path, "no mouse or cheese");
+	    }
+
+	    solveStart = System.nanoTime();
+	    result = solver.solve(maze, start, goal);
+	} catch (IOException | MazeFormatException | InvalidPositionException | RuntimeException e) {
+	    failed.incrementAndGet();
+	    return csv(path, e.toString());
+	}
+	final long end = System.nanoTime();
+
+	final SolverMetrics metrics = result.getMetrics();
+	metrics.setSource(path.toString());
+	metrics.setLoadNanos(solveStart - loadStart);
+	metrics.setSolveNanos(end - solveStart);
+	stats.record(metrics);
+	if (metricsOut != null) writeMetrics(metrics.toJson());
+
+	(result.isSolved() ? solved : failed).incrementAndGet();
+	return String.format("%s,%b,%d,%d,%.3f,%.3f", quote(path.toString()), result.isSolved(), result.getLength(),
+		result.getNodesExpanded(), (solveStart - loadStart) / 1e6, (end - solveStart) / 1e6);
+    }
+
+    /**
+     * @return Number of mazes with a path from the mouse to the cheese.
+     */
+    public int getSolved() {
+	return solved.get();
+    }
+
+    /**
+     * @return Number of mazes that couldn't be loaded or have no path.
+     */
+    public int getFailed() {
+	return failed.get();
+    }
+
+    /**
+     * @return Totals over every maze solved so far.
+     */
+    public SolverStats getStats() {
+	return stats;
+    }
+
+    /**
+     * @param metricsOut
+     *            Where a JSON line of SolverMetrics is written for every maze
+     *            solved, or null to not write them.
+     */
+    public void setMetricsOutput(final Writer metricsOut) {
+	this.metricsOut = metricsOut;
+    }
+
+    private void writeMetrics(final String json) {
+	synchronized (metricsOut) {
+	    try {
+		metricsOut.write(json);
+		metricsOut.write(System.lineSeparator());
+		metricsOut.flush();
+	    } catch (final IOException e) {
+		System.err.println("Couldn't write metrics: " + json);
+	    }
+	}
+    }
+
+    private synchronized void write(final String line) {
+	try {
+	    out.write(line);
+	    out.write(System.lineSeparator());
+	    out.flush();
+	} catch (final IOException e) {
+	    System.err.println("Couldn't write result: " + line);
+	}
+    }
+
+    private static String csv(final Path path, final String error) {
+	return quote(path.toString()) + ",false,-1,0,," + quote("error: " + error);
+    }
+
+    private static String quote(final String value) {
+	if (value.indexOf(',') < 0 && value.indexOf('"') < 0) return value;
+	return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Lists the maze files to solve.
+     *
+     * @param source
+     *            A directory of maze files, or a manifest file listing one maze
+     *            file per line. Blank lines and lines starting with # are ignored
+     *            and relative paths are relative to the manifest.
+     * @return Maze files in the directory sorted by name, or in manifest order.
+     * @throws IOException
+     *             If the directory or manifest can't be read.
+     */
+    public static List<Path> listMazes(final Path source) throws IOException {
+	final List<Path> mazes = new ArrayList<>();
+
+	if (Files.isDirectory(source)) {
+	    try (DirectoryStream<Path> files = Files.newDirectoryStream(source, Files::isRegularFile)) {
+		for (final Path file : files) {
+		    mazes.add(file);
+		}
+	    }
+	    Collections.sort(mazes);
+	} else {
+	    final Path base = source.toAbsolutePath().getParent();
+	    for (final String line : Files.readAllLines(source, StandardCharsets.UTF_8)) {
+		final String trimmed = line.trim();
+		if (!trimmed.isEmpty() && !trimmed.startsWith("#")) mazes.add(base.resolve(trimmed));
+	    }
+	}
+	return mazes;
+    }
+
+    /**
+     * @formatter:off
+     * Usage: BatchSolver <directory or manifest> [--solver=NAME] [--threads=N] [--output=FILE]
+     *                   [--metrics=FILE] [--jmx]
+     *   --solver      MazeSolver name, defaults to astar.
+     *   --threads     Mazes solved at once, defaults to the number of processors.
+     *   --output      CSV file to write, defaults to standard output.
+     *   --metrics     File to write a JSON line of SolverMetrics to for every maze.
+     *   --jmx         Publish running totals as the maze_solver:type=SolverStats MBean.
+     * @formatter:on
+     *
+     * @param args
+     *            Command line arguments.
+     */
+    public static void main(final String[] args) {
+	String source = null;
+	String solverName = "astar";
+	String output = null;
+	String metricsFile = null;
+	boolean jmx = false;
+	int threads = Runtime.getRuntime().availableProcessors();
+
+	try {
+	    for (final String arg : args) {
+		if (arg.startsWith("--solver=")) {
+		    solverName = arg.substring("--solver=".length());
+		} else if (arg.startsWith("--threads=")) {
+		    threads = Integer.parseInt(arg.substring("--threads=".length()));
+		} else if (arg.startsWith("--output=")) {
+		    output = arg.substring("--output=".length());
+		} else if (arg.startsWith("--metrics=")) {
+		    metricsFile = arg.substring("--metrics=".length());
+		} else if (arg.equals("--jmx")) {
+		    jmx = true;
+		} else if (arg.startsWith("--") || source != null) {
+		    throw new IllegalArgumentException("Unknown option " + arg);
+		} else {
+		    source = arg;
+		}
+	    }
+	    if (source == null) throw new IllegalArgumentException(
+		    "Usage: BatchSolver <directory or manifest> [--solver=NAME] [--threads=N] [--output=FILE]"
+			    + " [--metrics=FILE] [--jmx]");
+
+	    final MazeSolver solver = MazeSolver.forName(solverName);
+	    final List<Path> mazes = listMazes(Paths.get(source));
+	    final long startTime = System.nanoTime();
+
+	    try (Writer out = output == null ? new BufferedWriter(new OutputStreamWriter(System.out))
+		    : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8);
+		    Writer metricsOut = metricsFile == null ? null
+			    : Files.newBufferedWriter(Paths.get(metricsFile), StandardCharsets.UTF_8)) {
+		final BatchSolver batch = new BatchSolver(solver, threads, out);
+		batch.setMetricsOutput(metricsOut);
+		if (jmx) batch.getStats().register("BatchSolver");
+		batch.run(mazes);
+		System.err.printf("Solved %d of %d mazes in %.3f s on %d threads%n", batch.getSolved(), mazes.size(),
+			(System.nanoTime() - startTime) / 1e9, threads);
+	    }
+	} catch (final IllegalArgumentException e) {
+	    System.err.println(e.getMessage());
+	} catch (final IOException | JMException e) {
+	    System.err.println("Batch failed: " + e.getMessage());
+	} catch (final InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	}
+    }
+}
@@ -0,0 +1,52 @@
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import maze_solver.MazeGenerator.Algorithm;
+
+
+/**
+ * Tests BatchSolver solves every maze in a directory and reports broken ones.
+ */
+class BatchSolverTest {
+
+    @Test
+    void testDirectory() throws Exception {
+	final Path dir = Files.createTempDirectory("mazes");
+	try {
+	    for (int i = 0; i < 6; i++) {
+		final Algorithm algorithm = Algorithm.values()[i % Algorithm.values().length];
+		BinaryMazeFormat.write(MazeGenerator.generate(31, 17, algorithm, i), dir.resolve("maze" + i + ".hxmz"));
+	    }
+	    Files.write(dir.resolve("broken.txt"), "3 1\nW X W\n".getBytes(StandardCharsets.US_ASCII));
+
+	    final List<Path> mazes = BatchSolver.listMazes(dir);
+	    assertEquals(7, mazes.size());
+
+	    final StringWriter out = new StringWriter();
+	    final BatchSolver batch = new BatchSolver(new AStarSolver(), 3, out);
+	    batch.run(mazes);
+
+	    final List<String> lines = Arrays.asList(out.toString().split(System.lineSeparator()));
+	    assertEquals(BatchSolver.HEADER, lines.get(0));
+	    assertEquals(8, lines.size());
+	    assertEquals(6, batch.getSolved());
+	    assertEquals(1, batch.getFailed());
+	    for (final String line : lines.subList(1, lines.size())) {
+		assertTrue(line, line.contains("broken.txt") ? line.contains(",false,") : line.contains(",true,"));
+	    }
+	} finally {
+	    for (final Path file : BatchSolver.listMazes(dir)) {
+		Files.delete(file);
+	    }
+	    Files.delete(dir);
+	}
+    }
+}
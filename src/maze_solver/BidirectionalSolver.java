@@ -0,0 +1,97 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Solves a maze with two breadth first searches, one from the start and one
+ * from the goal, that meet in the middle. Always expands whichever side has
+ * the smaller frontier one whole level at a time, so finds the shortest path.
+ */
+public class BidirectionalSolver extends AbstractSolver {
+
+    @Override
+    protected SolverResult search(final Maze maze, final int start, final int goal) {
+	final int size = maze.getWidth() * maze.getHeight();
+	final Side forward = new Side(size, start);
+	final Side backward = new Side(size, goal);
+	long expanded = 0;
+	long peak = 1;
+	// The visited bits, parent and queue of each side.
+	final long allocated = 2 * (size / 8 + 8L * size);
+
+	while (!forward.isExhausted() && !backward.isExhausted()) {
+	    final Side side = forward.frontierSize() <= backward.frontierSize() ? forward : backward;
+	    final Side other = side == forward ? backward : forward;
+	    final int levelEnd = side.tail;
+
+	    if (forward.frontierSize() + backward.frontierSize() > peak)
+		peak = forward.frontierSize() + backward.frontierSize();
+
+	    while (side.head < levelEnd) {
+		final int current = side.queue[side.head++];
+		final int y = maze.yOf(current);
+		final int mask = maze.neighbourMask(current - y * maze.getWidth(), y);
+
+		expanded++;
+		for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		    if ((mask & 1 << d) == 0) continue;
+
+		    final int n = current + maze.neighbourOffset(y, d);
+		    if (side.visited.get(n) || !maze.isPassable(n)) continue;
+
+		    side.visited.set(n);
+		    side.parent[n] = current;
+		    // Both searches expand whole levels, so the first meeting is on a
+		    // shortest path.
+		    if (other.visited.get(n))
+			return new SolverResult(joinPaths(maze, forward, backward, n),
+				metrics(expanded, peak, allocated));
+		    side.queue[side.tail++] = n;
+		}
+	    }
+	}
+	return new SolverResult(new ArrayList<Coordinate>(), metrics(expanded, peak, allocated));
+    }
+
+    private static List<Coordinate> joinPaths(final Maze maze, final Side forward, final Side backward,
+	    final int meeting) {
+	final List<Coordinate> path = buildPath(maze, forward.parent, meeting);
+	final List<Coordinate> rest = buildPath(maze, backward.parent, meeting);
+
+	Collections.reverse(rest);
+	path.addAll(rest.subList(1, rest.size()));
+	return path;
+    }
+
+    /**
+     * The state of one of the two breadth first searches.
+     */
+    private static class Side {
+	final BitSet visited;
+	final int[]  parent;
+	final int[]  queue;
+	int	     head = 0;
+	int	     tail = 0;
+
+	Side(final int size, final int root) {
+	    visited = new BitSet(size);
+	    parent = new int[size];
+	    queue = new int[size];
+	    visited.set(root);
+	    parent[root] = NO_PARENT;
+	    queue[tail++] = root;
+	}
+
+	int frontierSize() {
+	    return tail - head;
+	}
+
+	boolean isExhausted() {
+	    return head == tail;
+	}
+    }
+}
@@ -0,0 +1,334 @@
+package maze_solver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import maze_solver.Maze.HexType;
+import maze_solver.Maze.Storage;
+
+
+/**
+ * Reads and writes mazes in a compact binary format. All values are little
+ * endian.
+ * @formatter:off
+ * Offset  Size  Value
+ * 0       4     MAGIC, the bytes "HXMZ"
+ * 4       4     VERSION
+ * 8       4     Width
+ * 12      4     Height
+ * 16      8*n   Hexagons packed like a PackedHexGrid: 21 HexType ordinals of 3
+ *               bits each per long, the first hexagon in the lowest bits.
+ * @formatter:on
+ * The hexagons are laid out exactly as a PackedHexGrid stores them, so a file can
+ * be mapped and used as a maze without being copied.
+ */
+public class BinaryMazeFormat {
+    /**
+     * First four bytes of every binary maze file, "HXMZ".
+     */
+    public static final int MAGIC	  = 'H' | 'X' << 8 | 'M' << 16 | 'Z' << 24;
+    /**
+     * Version of the format written by this class.
+     */
+    public static final int VERSION	  = 1;
+    /**
+     * Size in bytes of the header before the packed hexagons.
+     */
+    static final int	    HEADER_SIZE	  = 16;
+    /**
+     * Size in bytes of the buffer used to write files.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Number of HexTypes. Packed values from here up to PackedHexGrid.MASK are
+     * invalid.
+     */
+    private static final int TYPES	  = HexType.values().length;
+
+    private BinaryMazeFormat() {}
+
+    /**
+     * @param path
+     *            File to check.
+     * @return True if the file starts with the binary maze MAGIC.
+     * @throws IOException
+     *             If the file can't be read.
+     */
+    public static boolean isBinary(final Path path) throws IOException {
+	try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+	    final ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+	    while (magic.hasRemaining() && channel.read(magic) >= 0) {}
+	    return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+	}
+    }
+
+    /**
+     * Maps a binary maze file into memory and uses it as the maze without copying
+     * it. The maze is read only, setting a hexagon throws a
+     * ReadOnlyBufferException. Use read for a maze that can be changed.
+     *
+     * @param path
+     *            Binary maze file to map.
+     * @return A maze with Storage.PACKED backed by the file.
+     * @throws IOException
+     *             If the file can't be read.
+     * @throws MazeFormatException
+     *             If the file isn't a valid binary maze.
+     */
+    public static Maze map(final Path path) throws IOException, MazeFormatException {
+	try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+	    final ByteBuffer header = readHeader(channel);
+	    final int width = header.getInt(8);
+	    final int height = header.getInt(12);
+	    final long words = PackedHexGrid.wordCount(width * height);
+
+	    if (channel.size() < HEADER_SIZE + words * Long.BYTES)
+		throw new MazeFormatException("Binary maze file is shorter than its " + width + "x" + height + " size");
+
+	    final LongBuffer cells = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, words * Long.BYTES)
+		    .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+	    checkCells(cells, width * height);
+	    return new Maze(width, height, new PackedHexGrid(cells, width * height));
+	}
+    }
+
+    /**
+     * Reads a binary maze file into a new maze.
+     *
+     * @param path
+     *            Binary maze file to read.
+     * @param storage
+     *            How the new maze stores its hexagons.
+     * @return The maze described by the file.
+     * @throws IOException
+     *             If the file can't be read.
+     * @throws MazeFormatException
+     *             If the file isn't a valid binary maze.
+     */
+    public static Maze read(final Path path, final Storage storage) throws IOException, MazeFormatException {
+	final Maze maze = new Maze(0, 0, storage);
+	read(path, maze);
+	return maze;
+    }
+
+    /**
+     * Reads a binary maze file into an existing maze, replacing its size and every
+     * hexagon.
+     *
+     * @param path
+     *            Binary maze file to read.
+     * @param maze
+     *            Maze to load the file into.
+     * @throws IOException
+     *             If the file can't be read.
+     * @throws MazeFormatException
+     *             If the file isn't a valid binary maze.
+     */
+    public static void read(final Path path, final Maze maze) throws IOException, MazeFormatException {
+	final Maze mapped = map(path);
+	final LongBuffer words = ((PackedHexGrid) mapped.getGrid()).words();
+	final int size = mapped.getWidth() * mapped.getHeight();
+
+	maze.resize(mapped.getWidth(), mapped.getHeight());
+	for (int i = 0, word = 0; i < size; word++) {
+	    long cells = words.get(word);
+	    for (int j = 0; j < PackedHexGrid.CELLS_PER_WORD && i < size; j++, i++) {
+		maze.set(i, HexType.fromOrdinal((int) (cells & PackedHexGrid.MASK)));
+		cells >>>= PackedHexGrid.BITS;
+	    }
+	}
+    }
+
+    /**
+     * Writes a maze as a binary maze file.
+     *
+     * @param maze
+     *            Maze to write.
+     * @param path
+     *            File to write the maze to. Replaced if it exists.
+     * @throws IOException
+     *             If the file can't be written.
+     */
+    public static void write(final Maze maze, final Path path) throws IOException {
+	final int size = maze.getWidth() * maze.getHeight();
+	final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+	try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+		StandardOpenOption.TRUNCATE_EXISTING)) {
+	    buffer.putInt(MAGIC).putInt(VERSION).putInt(maze.getWidth()).putInt(maze.getHeight());
+
+	    if (maze.getGrid() instanceof PackedHexGrid) {
+		// Already packed, copy the words as they are.
+		final LongBuffer words = ((PackedHexGrid) maze.getGrid()).words();
+		for (int word = 0; word < PackedHexGrid.wordCount(size); word++) {
+		    if (buffer.remaining() < Long.BYTES) flush(buffer, channel);
+		    buffer.putLong(words.get(word));
+		}
+	    } else {
+		for (int i = 0; i < size;) {
+		    long cells = 0;
+		    for (int j = 0; j < PackedHexGrid.CELLS_PER_WORD && i < size; j++, i++) {
+			cells |= (long) maze.get(i).ordinal() << j * PackedHexGrid.BITS;
+		    }
+		    if (buffer.remaining() < Long.BYTES) flush(buffer, channel);
+		    buffer.putLong(cells);
+		}
+	    }
+	    flush(buffer, channel);
+	}
+    }
+
+    /**
+     * Converts a text maze file into a binary maze file. The text is streamed one
+     * row at a time, so the maze never has to fit in memory.
+     *
+     * @param text
+     *            Text maze file to read.
+     * @param binary
+     *            Binary maze file to write.
+     * @throws IOException
+     *             If either file can't be used.
+     * @throws MazeFormatException
+     *             If the text file isn't a valid text maze.
+     */
+    public static void textToBinary(final Path text, final Path binary) throws IOException, MazeFormatException {
+	final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+	try (MazeRowReader rows = MazeRowReader.open(text);
+		FileChannel channel = FileChannel.open(binary, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+			StandardOpenOption.TRUNCATE_EXISTING)) {
+	    final HexType[] row = new HexType[rows.getWidth()];
+	    long cells = 0;
+	    int cell = 0;
+
+	    buffer.putInt(MAGIC).putInt(VERSION).putInt(rows.getWidth()).putInt(rows.getHeight());
+	    while (rows.readRow(row)) {
+		for (final HexType type : row) {
+		    cells |= (long) type.ordinal() << cell * PackedHexGrid.BITS;
+		    if (++cell == PackedHexGrid.CELLS_PER_WORD) {
+			if (buffer.remaining() < Long.BYTES) flush(buffer, channel);
+			buffer.putLong(cells);
+			cells = 0;
+			cell = 0;
+		    }
+		}
+	    }
+	    if (cell > 0) {
+		if (buffer.remaining() < Long.BYTES) flush(buffer, channel);
+		buffer.putLong(cells);
+	    }
+	    flush(buffer, channel);
+	}
+    }
+
+    /**
+     * Converts a binary maze file into a text maze file.
+     *
+     * @param binary
+     *            Binary maze file to read.
+     * @param text
+     *            Text maze file to write.
+     * @throws IOException
+     *             If either file can't be used.
+     * @throws MazeFormatException
+     *             If the binary file isn't a valid binary maze.
+     */
+    public static void binaryToText(final Path binary, final Path text) throws IOException, MazeFormatException {
+	TextMazeFormat.write(map(binary), text);
+    }
+
+    /**
+     * Converts a maze file between the text and binary formats, whichever it
+     * isn't already in.
+     *
+     * @param args
+     *            Input maze file and output maze file.
+     */
+    public static void main(final String[] args) {
+	if (args.length != 2) {
+	    System.err.println("Usage: BinaryMazeFormat <input maze> <output maze>");
+	    return;
+	}
+
+	final Path in = Paths.get(args[0]);
+	final Path out = Paths.get(args[1]);
+	try {
+	    if (isBinary(in)) {
+		binaryToText(in, out);
+	    } else {
+		textToBinary(in, out);
+	    }
+	} catch (final IOException | MazeFormatException e) {
+	    System.err.println("Couldn't convert '" + in + "': " + e.getMessage());
+	}
+    }
+
+    /**
+     * Reads and checks the header of a binary maze file.
+     *
+     * @param channel
+     *            Binary maze file, positioned at its start.
+     * @return The header, with the width at 8 and the height at 12.
+     * @throws IOException
+     *             If the file can't be read.
+     * @throws MazeFormatException
+     *             If the header isn't valid.
+     */
+    static ByteBuffer readHeader(final FileChannel channel) throws IOException, MazeFormatException {
+	final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+	while (header.hasRemaining() && channel.read(header) >= 0) {}
+	if (header.hasRemaining()) throw new MazeFormatException("Binary maze file is too short for its header");
+	if (header.getInt(0) != MAGIC) throw new MazeFormatException("Not a binary maze file");
+	if (header.getInt(4) != VERSION)
+	    throw new MazeFormatException("Unsupported binary maze version " + header.getInt(4));
+
+	final int width = header.getInt(8);
+	final int height = header.getInt(12);
+	if (width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE)
+	    throw new MazeFormatException("Invalid binary maze size " + width + "x" + height);
+	return header;
+    }
+
+    /**
+     * Checks every packed hexagon is a HexType once, so a corrupt file is
+     * reported here rather than as an exception whenever the bad hexagon is read.
+     */
+    private static void checkCells(final LongBuffer words, final int size) throws MazeFormatException {
+	for (int i = 0, word = 0; i < size; word++) {
+	    long cells = words.get(word);
+	    for (int j = 0; j < PackedHexGrid.CELLS_PER_WORD && i < size; j++, i++) {
+		checkCell(cells & PackedHexGrid.MASK, i);
+		cells >>>= PackedHexGrid.BITS;
+	    }
+	}
+    }
+
+    /**
+     * @param value
+     *            A packed hexagon.
+     * @param index
+     *            Index of the hexagon in the maze.
+     * @throws MazeFormatException
+     *             If value isn't the ordinal of a HexType.
+     */
+    static void checkCell(final long value, final long index) throws MazeFormatException {
+	if (value >= TYPES) throw new MazeFormatException("Invalid hexagon value " + value + " at index " + index);
+    }
+
+    /**
+     * Writes everything in the buffer to the channel and clears the buffer.
+     */
+    static void flush(final ByteBuffer buffer, final FileChannel channel) throws IOException {
+	buffer.flip();
+	while (buffer.hasRemaining()) {
+	    channel.write(buffer);
+	}
+	buffer.clear();
+    }
+}
@@ -0,0 +1,51 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+
+
+/**
+ * Solves a maze with a breadth first search. Always finds the shortest path.
+ */
+public class BreadthFirstSolver extends AbstractSolver {
+
+    @Override
+    protected SolverResult search(final Maze maze, final int start, final int goal) {
+	final int size = maze.getWidth() * maze.getHeight();
+	final BitSet visited = new BitSet(size);
+	final int[] parent = new int[size];
+	final int[] queue = new int[size];
+	int head = 0;
+	int tail = 0;
+	long expanded = 0;
+	long peak = 0;
+	// The visited bits, parent and queue.
+	final long allocated = size / 8 + 8L * size;
+
+	queue[tail++] = start;
+	visited.set(start);
+	parent[start] = NO_PARENT;
+
+	while (head < tail) {
+	    if (tail - head > peak) peak = tail - head;
+	    final int current = queue[head++];
+	    final int y = maze.yOf(current);
+	    final int mask = maze.neighbourMask(current - y * maze.getWidth(), y);
+
+	    expanded++;
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		if ((mask & 1 << d) == 0) continue;
+
+		final int n = current + maze.neighbourOffset(y, d);
+		if (visited.get(n) || !maze.isPassable(n)) continue;
+
+		visited.set(n);
+		parent[n] = current;
+		if (n == goal)
+		    return new SolverResult(buildPath(maze, parent, goal), metrics(expanded, peak, allocated));
+		queue[tail++] = n;
+	    }
+	}
+	return new SolverResult(new ArrayList<Coordinate>(), metrics(expanded, peak, allocated));
+    }
+}
@@ -0,0 +1,43 @@
+package maze_solver;
+
+import java.util.Arrays;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * A HexGrid that stores the HexType ordinal of every hexagon in one byte.
+ */
+public class ByteHexGrid implements HexGrid {
+    private final byte[] cells;
+
+    /**
+     * Create a grid of size hexagons that are all HexType.OPEN.
+     *
+     * @param size
+     *            Number of hexagons in the grid.
+     */
+    public ByteHexGrid(final int size) {
+	cells = new byte[size];
+	fill(HexType.OPEN);
+    }
+
+    @Override
+    public HexType get(final int index) {
+	return HexType.fromOrdinal(cells[index]);
+    }
+
+    @Override
+    public void set(final int index, final HexType type) {
+	cells[index] = (byte) type.ordinal();
+    }
+
+    @Override
+    public void fill(final HexType type) {
+	Arrays.fill(cells, (byte) type.ordinal());
+    }
+
+    @Override
+    public int size() {
+	return cells.length;
+    }
+}
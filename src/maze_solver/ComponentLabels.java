@@ -0,0 +1,325 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * Labels every passable hexagon of a maze with the connected component it is in,
+ * so whether two positions are connected is answered in constant time before
+ * any search runs. Get the labels of a maze with Maze.getComponents, which
+ * builds them once and keeps them.
+ * <p>
+ * The labels are a union-find forest over maze indexes. They are built in
+ * parallel bands of rows, each band only joining hexagons inside itself, and
+ * the seams between bands are then joined in order. Afterwards the labels are
+ * kept up to date as hexagons are set: opening a hexagon joins it to its
+ * neighbours, and closing one whose open neighbours are all next to each other
+ * can't split its component so is free. Any other change, which might split a
+ * component, rebuilds the labels the next time they are asked for.
+ */
+public class ComponentLabels implements MazeListener {
+    /**
+     * Label of a hexagon that isn't passable.
+     */
+    public static final int	 NONE	   = -1;
+    /**
+     * Fewest rows in each band built in parallel.
+     */
+    static final int		 MIN_BAND_ROWS = 16;
+    /**
+     * All six neighbour directions.
+     */
+    private static final int	 ALL	   = (1 << Maze.DIRECTIONS) - 1;
+    /**
+     * The NE and NW directions, the neighbours in the row above.
+     */
+    private static final int[]	 UP	   = { 0, 5 };
+
+    private final Maze		 maze;
+    private final ForkJoinPool	 pool;
+    /**
+     * Parent of every index in the forest. Roots are their own parent and are
+     * always the smallest index in their tree, so the tree of a hexagon can be
+     * flattened in one pass in index order.
+     */
+    private int[]		 parent;
+    /**
+     * Closed hexagons still inside a tree because other hexagons are joined
+     * through them. Opening one again needs a rebuild.
+     */
+    private final BitSet	 retired   = new BitSet();
+    /**
+     * Version of the maze the labels describe.
+     */
+    private int			 version;
+    private boolean		 stale;
+    private int			 count;
+    /**
+     * Index of every CHEESE in the maze, or null if it has to be found again.
+     */
+    private int[]		 cheese;
+
+    /**
+     * Builds the labels on the common ForkJoinPool and starts listening to the
+     * maze. Use Maze.getComponents rather than building more than one.
+     *
+     * @param maze
+     *            Maze to label.
+     */
+    ComponentLabels(final Maze maze) {
+	this(maze, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param maze
+     *            Maze to label.
+     * @param pool
+     *            Pool the bands are labelled on.
+     */
+    ComponentLabels(final Maze maze, final ForkJoinPool pool) {
+	this.maze = maze;
+	this.pool = pool;
+	build();
+	maze.addListener(this);
+    }
+
+    /**
+     * @param a
+     *            Index of a position in the maze.
+     * @param b
+     *            Index of another position in the maze.
+     * @return True if both positions are passable and there is a path between
+     *         them.
+     */
+    public synchronized boolean connected(final int a, final int b) {
+	update();
+	return maze.isPassable(a) && maze.isPassable(b) && find(a) == find(b);
+    }
+
+    /**
+     * @param a
+     *            A position in the maze.
+     * @param b
+     *            Another position in the maze.
+     * @return True if both positions are inside the maze, passable and there is
+     *         a path between them.
+     */
+    public boolean connected(final Coordinate a, final Coordinate b) {
+	if (!maze.contains(a.getX(), a.getY()) || !maze.contains(b.getX(), b.getY())) return false;
+	return connected(maze.index(a.getX(), a.getY()), maze.index(b.getX(), b.getY()));
+    }
+
+    /**
+     * @param index
+     *            Index of a position in the maze.
+     * @return The smallest index in the component of the position, which is the
+     *         same for every position in the component, or NONE if the position
+     *         isn't passable.
+     */
+    public synchronized int label(final int index) {
+	update();
+	return maze.isPassable(index) ? find(index) : NONE;
+    }
+
+    /**
+     * @param index
+     *            Index of a position in the maze.
+     * @return True if any CHEESE can be reached from the position.
+     */
+    public synchronized boolean reachesCheese(final int index) {
+	update();
+	if (!maze.isPassable(index)) return false;
+
+	if (cheese == null) cheese = findAll(HexType.CHEESE);
+	final int root = find(index);
+	for (final int c : cheese) {
+	    if (find(c) == root) return true;
+	}
+	return false;
+    }
+
+    /**
+     * @return Number of connected components of passable hexagons.
+     */
+    public synchronized int getCount() {
+	update();
+	return count;
+    }
+
+    @Override
+    public synchronized void cellChanged(final Maze changed, final int index, final HexType oldType,
+	    final HexType newType) {
+	if (oldType == HexType.CHEESE || newType == HexType.CHEESE) cheese = null;
+	if (stale || version + 1 != maze.getVersion() || parent.length != maze.getWidth() * maze.getHeight()) {
+	    stale = true;
+	    return;
+	}
+	version = maze.getVersion();
+	if (oldType.isPassable() == newType.isPassable()) return;
+
+	final int y = maze.yOf(index);
+	final int mask = maze.neighbourMask(index);
+	int open = 0;
+	for (int d = 0; d < Maze.DIRECTIONS; d++) {
+	    if ((mask & 1 << d) != 0 && maze.isPassable(index + maze.neighbourOffset(y, d))) open |= 1 << d;
+	}
+
+	if (newType.isPassable()) {
+	    if (retired.get(index)) {
+		stale = true;
+		return;
+	    }
+	    count++;
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		if ((open & 1 << d) != 0 && union(index, index + maze.neighbourOffset(y, d))) count--;
+	    }
+	} else if (runs(open) > 1) {
+	    // The neighbours on either side might only have been joined through here.
+	    stale = true;
+	} else {
+	    if (open == 0) count--;
+	    retired.set(index);
+	}
+    }
+
+    /**
+     * Rebuilds the labels if the maze has changed in a way they couldn't follow.
+     */
+    private void update() {
+	if (stale || version != maze.getVersion() || parent.length != maze.getWidth() * maze.getHeight()) build();
+    }
+
+    private void build() {
+	final int width = maze.getWidth();
+	final int height = maze.getHeight();
+	final int bandRows = Parallel.chunk(height, pool, MIN_BAND_ROWS);
+	final int[] forest = new int[width * height];
+	final List<Callable<Void>> tasks = new ArrayList<>();
+
+	parent = forest;
+	for (int top = 0; top < height; top += bandRows) {
+	    final int from = top;
+	    final int to = Math.min(height, top + bandRows);
+	    tasks.add(() -> {
+		// Hexagons are only joined to the rows above within the band.
+		for (int y = from; y < to; y++) {
+		    join(y, y > from);
+		}
+		return null;
+	    });
+	}
+	Parallel.invokeAll(pool, tasks, "labelling components");
+
+	// Join the first row of every band to the band above.
+	for (int y = bandRows; y < height; y += bandRows) {
+	    for (int x = 0; x < width; x++) {
+		final int index = y * width + x;
+		if (maze.isPassable(index)) joinUp(index, y);
+	    }
+	}
+
+	// Roots are the smallest index of their tree, so every parent is already
+	// flat by the time it is reached.
+	count = 0;
+	for (int i = 0; i < forest.length; i++) {
+	    forest[i] = forest[forest[i]];
+	    if (forest[i] == i && maze.isPassable(i)) count++;
+	}
+
+	retired.clear();
+	cheese = null;
+	stale = false;
+	version = maze.getVersion();
+    }
+
+    /**
+     * Makes every hexagon of a row its own tree, then joins the passable ones to
+     * their passable neighbours to the west and, if up, in the row above.
+     */
+    private void join(final int y, final boolean up) {
+	final int width = maze.getWidth();
+	for (int index = y * width, end = index + width; index < end; index++) {
+	    parent[index] = index;
+	    if (!maze.isPassable(index)) continue;
+
+	    if (index > y * width && maze.isPassable(index - 1)) union(index, index - 1);
+	    if (up) joinUp(index, y);
+	}
+    }
+
+    /**
+     * Joins a passable hexagon to its passable neighbours in the row above.
+     */
+    private void joinUp(final int index, final int y) {
+	final int mask = maze.neighbourMask(index);
+	for (final int d : UP) {
+	    if ((mask & 1 << d) == 0) continue;
+
+	    final int n = index + maze.neighbourOffset(y, d);
+	    if (maze.isPassable(n)) union(index, n);
+	}
+    }
+
+    /**
+     * Finds the root of an index, halving the path to it on the way.
+     */
+    private int find(int index) {
+	while (parent[index] != index) {
+	    parent[index] = parent[parent[index]];
+	    index = parent[index];
+	}
+	return index;
+    }
+
+    /**
+     * Joins the trees of two indexes under the smaller root.
+     *
+     * @return False if they were already in the same tree.
+     */
+    private boolean union(final int a, final int b) {
+	final int rootA = find(a);
+	final int rootB = find(b);
+	if (rootA == rootB) return false;
+
+	if (rootA < rootB) {
+	    parent[rootB] = rootA;
+	} else {
+	    parent[rootA] = rootB;
+	}
+	return true;
+    }
+
+    /**
+     * @param open
+     *            Bit d set if the neighbour in direction d is passable.
+     * @return Number of runs of passable neighbours around the hexagon.
+     *         Neighbours next to each other around a hexagon also touch each
+     *         other, so one run is always connected without the hexagon.
+     */
+    static int runs(final int open) {
+	int runs = 0;
+	for (int d = 0; d < Maze.DIRECTIONS; d++) {
+	    final int before = (d + Maze.DIRECTIONS - 1) % Maze.DIRECTIONS;
+	    if ((open & 1 << d) != 0 && (open & 1 << before) == 0) runs++;
+	}
+	return open == ALL ? 1 : runs;
+    }
+
+    private int[] findAll(final HexType type) {
+	int found = 0;
+	int[] indexes = new int[4];
+	for (int i = 0; i < parent.length; i++) {
+	    if (maze.get(i) != type) continue;
+
+	    if (found == indexes.length) indexes = Arrays.copyOf(indexes, 2 * found);
+	    indexes[found++] = i;
+	}
+	return Arrays.copyOf(indexes, found);
+    }
+}
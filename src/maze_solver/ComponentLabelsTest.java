@@ -0,0 +1,133 @@
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import maze_solver.Maze.HexType;
+import maze_solver.MazeGenerator.Algorithm;
+
+
+/**
+ * Tests ComponentLabels against a flood fill, both when built and as the maze
+ * changes.
+ */
+class ComponentLabelsTest {
+
+    @Test
+    void testMatchesFloodFill() {
+	final ForkJoinPool pool = new ForkJoinPool(4);
+	for (final Algorithm algorithm : Algorithm.values()) {
+	    final Maze maze = MazeGenerator.generate(70, 100, algorithm, 4);
+	    // Scatter walls so that there are many components across the bands.
+	    final SplittableRandom random = new SplittableRandom(algorithm.ordinal());
+	    for (int i = 0; i < 1500; i++) {
+		maze.set(random.nextInt(70 * 100), HexType.WALL);
+	    }
+
+	    assertSameComponents(algorithm.toString(), maze, new ComponentLabels(maze, pool));
+	}
+	pool.shutdown();
+    }
+
+    @Test
+    void testFollowsChanges() {
+	final Maze maze = MazeGenerator.generate(40, 40, Algorithm.OPEN_FIELD, 2);
+	final ComponentLabels labels = maze.getComponents();
+	final SplittableRandom random = new SplittableRandom(7);
+
+	assertSame(labels, maze.getComponents());
+	for (int i = 0; i < 2000; i++) {
+	    maze.set(random.nextInt(40 * 40), random.nextInt(3) == 0 ? HexType.OPEN : HexType.WALL);
+	    assertSameComponents("Change " + i, maze, labels);
+	}
+    }
+
+    @Test
+    void testReachesCheese() throws FileNotFoundException {
+	final Maze maze = new Maze(0, 0);
+	maze.loadFromFile("test_maze.txt");
+	final ComponentLabels labels = maze.getComponents();
+	final int mouse = maze.index(2, 1);
+
+	assertTrue(labels.reachesCheese(mouse));
+	assertTrue(labels.connected(new Coordinate(2, 1), new Coordinate(2, 4)));
+	assertFalse(labels.connected(new Coordinate(2, 1), new Coordinate(0, 0)));
+	assertEquals(ComponentLabels.NONE, labels.label(0));
+
+	maze.set(3, 4, HexType.WALL);
+	maze.set(1, 3, HexType.WALL);
+	assertFalse(labels.reachesCheese(mouse));
+	assertFalse(labels.connected(new Coordinate(2, 1), new Coordinate(2, 4)));
+	assertEquals(2, labels.getCount());
+
+	maze.set(1, 3, HexType.OPEN);
+	assertTrue(labels.reachesCheese(mouse));
+	assertEquals(1, labels.getCount());
+    }
+
+    @Test
+    void testRuns() {
+	assertEquals(0, ComponentLabels.runs(0));
+	assertEquals(1, ComponentLabels.runs(0b111111));
+	assertEquals(1, ComponentLabels.runs(0b100001));
+	assertEquals(2, ComponentLabels.runs(0b001001));
+	assertEquals(3, ComponentLabels.runs(0b010101));
+    }
+
+    /**
+     * Checks that two positions have the same label exactly when a flood fill
+     * puts them in the same component.
+     */
+    static void assertSameComponents(final String message, final Maze maze, final ComponentLabels labels) {
+	final int size = maze.getWidth() * maze.getHeight();
+	final int[] flood = new int[size];
+	final int[] queue = new int[size];
+	final Map<Integer, Integer> labelOf = new HashMap<>();
+	int count = 0;
+
+	Arrays.fill(flood, ComponentLabels.NONE);
+	for (int i = 0; i < size; i++) {
+	    if (flood[i] != ComponentLabels.NONE || !maze.isPassable(i)) continue;
+
+	    int head = 0;
+	    int tail = 0;
+	    queue[tail++] = i;
+	    flood[i] = count;
+	    while (head < tail) {
+		final int current = queue[head++];
+		final int y = maze.yOf(current);
+		final int mask = maze.neighbourMask(current);
+		for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		    if ((mask & 1 << d) == 0) continue;
+
+		    final int n = current + maze.neighbourOffset(y, d);
+		    if (flood[n] != ComponentLabels.NONE || !maze.isPassable(n)) continue;
+		    flood[n] = count;
+		    queue[tail++] = n;
+		}
+	    }
+	    count++;
+	}
+
+	assertEquals(message, count, labels.getCount());
+	for (int i = 0; i < size; i++) {
+	    final int label = labels.label(i);
+	    if (flood[i] == ComponentLabels.NONE) {
+		assertEquals(message + " index " + i, ComponentLabels.NONE, label);
+	    } else {
+		final Integer expected = labelOf.putIfAbsent(flood[i], label);
+		assertEquals(message + " index " + i, expected == null ? label : expected, label);
+	    }
+	}
+	// Different components have different labels.
+	assertEquals(message, count, labelOf.values().stream().distinct().count());
+    }
+}
@@ -1,51 +1,78 @@
-package maze_solver;
-
-/**
- * @author Terrence Plunkett
- */
-public class Coordinate {
-    int	x;
-    int	y;
-
-    public Coordinate() {
-	x = 0;
-	y = 0;
-    }
-
-    public Coordinate(final int x, final int y) {
-	this.x = x;
-	this.y = y;
-    }
-
-    public Coordinate(final Coordinate c) {
-	x = c.getX();
-	y = c.getY();
-    }
-
-    public int getX() {
-	return x;
-    }
-
-    public int getY() {
-	return y;
-    }
-
-    public void setX(final int x) {
-	this.x = x;
-    }
-
-    public void setY(final int y) {
-	this.y = y;
-    }
-
-    public boolean equals(final Coordinate c) {
-	if (c.getX() != x) return false;
-	else if (c.getY() != y) return false;
-	return true;
-    }
-
-    @Override
-    public String toString() {
-	return String.format("(%d, %d)", x, y);
-    }
-}
+package maze_solver;
+
+/**
+ * @author Terrence Plunkett
+ */
+public class Coordinate {
+    int	x;
+    int	y;
+
+    public Coordinate() {
+	x = 0;
+	y = 0;
+    }
+
+    public Coordinate(final int x, final int y) {
+	this.x = x;
+	this.y = y;
+    }
+
+    public Coordinate(final Coordinate c) {
+	x = c.getX();
+	y = c.getY();
+    }
+
+    public int getX() {
+	return x;
+    }
+
+    public int getY() {
+	return y;
+    }
+
+    public void setX(final int x) {
+	this.x = x;
+    }
+
+    public void setY(final int y) {
+	this.y = y;
+    }
+
+    /**
+     * @return The coordinate packed into a long, see HexMath.pack.
+     */
+    public long pack() {
+	return HexMath.pack(x, y);
+    }
+
+    /**
+     * @param packed
+     *            A position packed by HexMath.pack.
+     * @return A new Coordinate of the position.
+     */
+    public static Coordinate unpack(final long packed) {
+	return new Coordinate(HexMath.column(packed), HexMath.row(packed));
+    }
+
+    public boolean equals(final Coordinate c) {
+	if (c.getX() != x) return false;
+	else if (c.getY() != y) return false;
+	return true;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+	if (!(o instanceof Coordinate)) return false;
+	return equals((Coordinate) o);
+    }
+
+    @Override
+    public int hashCode() {
+	return 31 * x + y;
+    }
+
+    @Override
+    public String toString() {
+	return String.format("(%d, %d)", x, y);
+    }
+}
@@ -0,0 +1,232 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * Fills every dead end corridor in a maze with DEAD_END before it is solved. An
+ * open hexagon with at most one passable neighbour can't be on a path between
+ * two other positions, so it is filled, which can make its neighbour a dead end
+ * in turn. Every hexagon is filled at most once, so the whole pass is linear.
+ *
+ * Only OPEN hexagons are filled. The mouse, the cheese and any positions given to
+ * keep are never filled, so corridors leading only to them stay open. In a maze
+ * without loops, only the path between the mouse and the cheese is left.
+ *
+ * The maze is split into bands of rows that are filled in parallel. A band only
+ * writes its own rows and sends the changes for the rows either side of it to
+ * the neighbouring band between rounds. The maze itself is only written at the
+ * end, on the calling thread.
+ */
+public class DeadEndFiller {
+    /**
+     * State of a hexagon that is never filled, whether or not it is passable.
+     */
+    private static final byte KEEP   = 7;
+    /**
+     * State of a hexagon that has been filled.
+     */
+    private static final byte FILLED = -1;
+
+    private DeadEndFiller() {}
+
+    /**
+     * Fills the maze on the common ForkJoinPool.
+     *
+     * @param maze
+     *            Maze to fill.
+     * @param keep
+     *            Positions to keep open, such as a start and goal that aren't
+     *            the mouse or the cheese.
+     * @return Number of hexagons filled.
+     */
+    public static int fill(final Maze maze, final Coordinate... keep) {
+	final ForkJoinPool pool = ForkJoinPool.commonPool();
+	final int bandRows = Parallel.chunk(maze.getHeight(), pool, 16);
+	return fill(maze, pool, bandRows, keep);
+    }
+
+    /**
+     * @param maze
+     *            Maze to fill.
+     * @param pool
+     *            Pool the bands are filled on.
+     * @param bandRows
+     *            Rows in each band.
+     * @param keep
+     *            Positions to keep open, such as a start and goal that aren't
+     *            the mouse or the cheese.
+     * @return Number of hexagons filled.
+     */
+    public static int fill(final Maze maze, final ForkJoinPool pool, final int bandRows, final Coordinate... keep) {
+	final int width = maze.getWidth();
+	final int height = maze.getHeight();
+	// Number of unfilled passable neighbours of every hexagon that can be
+	// filled, KEEP or FILLED.
+	final byte[] state = new byte[width * height];
+
+	for (final Coordinate c : keep) {
+	    if (maze.contains(c.getX(), c.getY())) state[maze.index(c.getX(), c.getY())] = KEEP;
+	}
+
+	final Band[] bands = new Band[(height + bandRows - 1) / bandRows];
+	for (int i = 0; i < bands.length; i++) {
+	    bands[i] = new Band(maze, state, i * bandRows, Math.min(height, (i + 1) * bandRows));
+	}
+
+	final List<Callable<Void>> tasks = new ArrayList<>(bands.length);
+	for (final Band band : bands) {
+	    tasks.add(() -> {
+		band.countNeighbours();
+		band.drain();
+		return null;
+	    });
+	}
+	Parallel.invokeAll(pool, tasks, "filling dead ends");
+
+	// Pass on the changes to rows in other bands until none are left.
+	while (anySent(bands)) {
+	    for (int i = 0; i < bands.length; i++) {
+		if (i > 0) bands[i - 1].inbox.addAll(bands[i].up);
+		if (i < bands.length - 1) bands[i + 1].inbox.addAll(bands[i].down);
+	    }
+	    for (final Band band : bands) {
+		band.up.clear();
+		band.down.clear();
+	    }
+
+	    tasks.clear();
+	    for (final Band band : bands) {
+		tasks.add(() -> {
+		    band.receive();
+		    band.drain();
+		    return null;
+		});
+	    }
+	    Parallel.invokeAll(pool, tasks, "filling dead ends");
+	}
+
+	int filled = 0;
+	for (int i = 0; i < state.length; i++) {
+	    if (state[i] == FILLED) {
+		maze.set(i, HexType.DEAD_END);
+		filled++;
+	    }
+	}
+	return filled;
+    }
+
+    /**
+     * @return True if any band has changes to send to another band.
+     */
+    private static boolean anySent(final Band[] bands) {
+	for (final Band band : bands) {
+	    if (band.up.size() > 0 || band.down.size() > 0) return true;
+	}
+	return false;
+    }
+
+    /**
+     * Rows firstRow to lastRow, exclusive, of the maze and the hexagons waiting
+     * to be filled in them.
+     */
+    private static class Band {
+	final Maze   maze;
+	final byte[] state;
+	final int    firstRow;
+	final int    lastRow;
+	/**
+	 * Hexagons in this band that are dead ends but not yet filled.
+	 */
+	final IntList queue = new IntList();
+	/**
+	 * Hexagons in this band with a neighbour filled by another band.
+	 */
+	final IntList inbox = new IntList();
+	/**
+	 * Hexagons in the band above with a neighbour filled by this band.
+	 */
+	final IntList up    = new IntList();
+	/**
+	 * Hexagons in the band below with a neighbour filled by this band.
+	 */
+	final IntList down  = new IntList();
+
+	Band(final Maze maze, final byte[] state, final int firstRow, final int lastRow) {
+	    this.maze = maze;
+	    this.state = state;
+	    this.firstRow = firstRow;
+	    this.lastRow = lastRow;
+	}
+
+	void countNeighbours() {
+	    final int width = maze.getWidth();
+
+	    for (int i = firstRow * width; i < lastRow * width; i++) {
+		if (state[i] == KEEP || maze.get(i) != HexType.OPEN) {
+		    state[i] = KEEP;
+		    continue;
+		}
+
+		final int y = i / width;
+		final int mask = maze.neighbourMask(i - y * width, y);
+		byte degree = 0;
+		for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		    if ((mask & 1 << d) != 0 && maze.isPassable(i + maze.neighbourOffset(y, d))) degree++;
+		}
+		state[i] = degree;
+		if (degree <= 1) queue.add(i);
+	    }
+	}
+
+	void receive() {
+	    for (int i = 0; i < inbox.size(); i++) {
+		removeNeighbour(inbox.get(i));
+	    }
+	    inbox.clear();
+	}
+
+	void drain() {
+	    final int width = maze.getWidth();
+
+	    while (queue.size() > 0) {
+		final int i = queue.pop();
+		if (state[i] == FILLED) continue;
+
+		state[i] = FILLED;
+		final int y = i / width;
+		final int mask = maze.neighbourMask(i - y * width, y);
+		for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		    if ((mask & 1 << d) == 0) continue;
+
+		    final int n = i + maze.neighbourOffset(y, d);
+		    final int ny = n / width;
+		    if (!maze.isPassable(n)) {
+			continue;
+		    } else if (ny < firstRow) {
+			up.add(n);
+		    } else if (ny >= lastRow) {
+			down.add(n);
+		    } else {
+			removeNeighbour(n);
+		    }
+		}
+	    }
+	}
+
+	/**
+	 * Called when a neighbour of a hexagon in this band has been filled.
+	 */
+	private void removeNeighbour(final int n) {
+	    final byte degree = state[n];
+	    if (degree == KEEP || degree == FILLED) return;
+
+	    state[n] = (byte) (degree - 1);
+	    if (degree == 2) queue.add(n); // Just became a dead end.
+	}
+    }
+}
@@ -0,0 +1,61 @@
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import maze_solver.Maze.HexType;
+import maze_solver.MazeGenerator.Algorithm;
+
+
+/**
+ * Tests the DeadEndFiller leaves every path between the mouse and the cheese
+ * and fills the same hexagons however the maze is split into bands.
+ */
+class DeadEndFillerTest {
+
+    @Test
+    void testOnlyPathLeft() throws InvalidPositionException {
+	// A backtracker maze has no loops, so only the path itself is left.
+	final Maze maze = MazeGenerator.generate(101, 77, Algorithm.RECURSIVE_BACKTRACKER, 6);
+	final Coordinate mouse = maze.find(HexType.MOUSE);
+	final Coordinate cheese = maze.find(HexType.CHEESE);
+	final SolverResult before = new DepthFirstSolver().solve(maze, mouse, cheese);
+
+	final int filled = DeadEndFiller.fill(maze);
+	final SolverResult after = new DepthFirstSolver().solve(maze, mouse, cheese);
+
+	assertTrue(filled > 0);
+	assertEquals(before.getLength(), after.getLength());
+	assertEquals(after.getLength() + 1, countPassable(maze));
+	assertTrue(after.getNodesExpanded() * 2 < before.getNodesExpanded());
+    }
+
+    @Test
+    void testBandsAgree() throws InvalidPositionException {
+	final ForkJoinPool pool = new ForkJoinPool(4);
+	for (final Algorithm algorithm : Algorithm.values()) {
+	    final Maze whole = MazeGenerator.generate(64, 90, algorithm, 12);
+	    final Maze banded = MazeGenerator.generate(64, 90, algorithm, 12);
+	    final Coordinate keep = new Coordinate(10, 10);
+
+	    final int filled = DeadEndFiller.fill(whole, pool, whole.getHeight(), keep);
+	    assertEquals(algorithm.toString(), filled, DeadEndFiller.fill(banded, pool, 3, keep));
+	    MazeFormatTest.assertSameMaze(whole, banded);
+	    if (whole.get(keep) != HexType.WALL) assertEquals(HexType.OPEN, whole.get(keep));
+
+	    final SolverResult result = new BreadthFirstSolver().solve(whole, whole.find(HexType.MOUSE),
+		    whole.find(HexType.CHEESE));
+	    assertTrue(algorithm.toString(), result.isSolved());
+	}
+	pool.shutdown();
+    }
+
+    private static int countPassable(final Maze maze) {
+	int count = 0;
+	for (int i = 0; i < maze.getWidth() * maze.getHeight(); i++) {
+	    if (maze.isPassable(i)) count++;
+	}
+	return count;
+    }
+}
@@ -0,0 +1,81 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/**
+ * Solves a maze the same way a Player does: always move to the first open
+ * neighbour and backtrack out of dead ends. Finds a path, but not necessarily
+ * the shortest one.
+ */
+public class DepthFirstSolver extends AbstractSolver {
+
+    @Override
+    protected SolverResult search(final Maze maze, final int start, final int goal) {
+	final BitSet visited = new BitSet(maze.getWidth() * maze.getHeight());
+	int[] stack = new int[64];
+	int size = 0;
+	long expanded = 0;
+	long backtracks = 0;
+	int peak = 0;
+
+	stack[size++] = start;
+	visited.set(start);
+
+	while (size > 0) {
+	    final int current = stack[size - 1];
+	    final int y = maze.yOf(current);
+	    final int mask = maze.neighbourMask(current - y * maze.getWidth(), y);
+	    int next = -1;
+
+	    expanded++;
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		if ((mask & 1 << d) == 0) continue;
+
+		final int n = current + maze.neighbourOffset(y, d);
+		if (n == goal) {
+		    next = n;
+		    break;
+		}
+		if (next == -1 && !visited.get(n) && maze.isPassable(n)) {
+		    next = n;
+		}
+	    }
+
+	    if (next == goal) {
+		if (size == stack.length) stack = Arrays.copyOf(stack, size * 2);
+		stack[size++] = goal;
+		return new SolverResult(toPath(maze, stack, size), metrics(maze, expanded, backtracks, peak, stack));
+	    } else if (next == -1) {
+		size--; // Dead end, backtrack.
+		backtracks++;
+	    } else {
+		if (size == stack.length) stack = Arrays.copyOf(stack, size * 2);
+		stack[size++] = next;
+		visited.set(next);
+		if (size > peak) peak = size;
+	    }
+	}
+	return new SolverResult(new ArrayList<Coordinate>(), metrics(maze, expanded, backtracks, peak, stack));
+    }
+
+    private static SolverMetrics metrics(final Maze maze, final long expanded, final long backtracks,
+	    final int peak, final int[] stack) {
+	// The visited bits and every stack array grown through.
+	final SolverMetrics metrics = metrics(expanded, peak,
+		maze.getWidth() * maze.getHeight() / 8 + 8L * stack.length);
+	metrics.setBacktracks(backtracks);
+	return metrics;
+    }
+
+    private static ArrayList<Coordinate> toPath(final Maze maze, final int[] stack, final int size) {
+	final ArrayList<Coordinate> path = new ArrayList<>(size);
+
+	for (int i = 0; i < size; i++) {
+	    path.add(new Coordinate(maze.xOf(stack[i]), maze.yOf(stack[i])));
+	}
+	return path;
+    }
+}
@@ -0,0 +1,250 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * The distance from every position in a maze to the nearest of one or more goals,
+ * found with a single breadth first search outwards from every goal at once. Once
+ * built, a shortest path from any start to its nearest goal is found in time
+ * proportional to its length by always stepping to a neighbour one closer to a
+ * goal.
+ */
+public class DistanceField {
+    /**
+     * Distance of a position that can't reach the goal.
+     */
+    public static final int UNREACHABLE = -1;
+
+    private final Maze	maze;
+    private final int[]	goals;
+    private final int[]	distance;
+    private final int	version;
+    private final long	expanded;
+
+    private DistanceField(final Maze maze, final int[] goals, final int[] distance, final long expanded) {
+	this.maze = maze;
+	this.goals = goals;
+	this.distance = distance;
+	this.version = maze.getVersion();
+	this.expanded = expanded;
+    }
+
+    /**
+     * Finds the distance from every position in the maze to goal.
+     *
+     * @param maze
+     *            Maze to search. Must not change while the field is being built.
+     * @param goal
+     *            Position every distance is measured to.
+     * @return The distance field of the maze and goal.
+     * @throws InvalidPositionException
+     *             If goal is outside the maze.
+     */
+    public static DistanceField compute(final Maze maze, final Coordinate goal) throws InvalidPositionException {
+	return compute(maze, Collections.singletonList(goal));
+    }
+
+    /**
+     * Finds the distance from every position in the maze to the nearest of the
+     * goals.
+     *
+     * @param maze
+     *            Maze to search. Must not change while the field is being built.
+     * @param goals
+     *            Positions distances are measured to. Goals that aren't passable
+     *            are ignored.
+     * @return The distance field of the maze and goals.
+     * @throws InvalidPositionException
+     *             If any goal is outside the maze.
+     */
+    public static DistanceField compute(final Maze maze, final List<Coordinate> goals)
+	    throws InvalidPositionException {
+	final int[] indexes = new int[goals.size()];
+	for (int i = 0; i < indexes.length; i++) {
+	    final Coordinate goal = goals.get(i);
+	    if (!maze.contains(goal.getX(), goal.getY()))
+		throw new InvalidPositionException(goal, new Coordinate(maze.getWidth(), maze.getHeight()));
+	    indexes[i] = maze.index(goal.getX(), goal.getY());
+	}
+	return compute(maze, indexes);
+    }
+
+    /**
+     * Finds the distance from every position in the maze to the nearest position
+     * with the given type, such as the nearest CHEESE.
+     *
+     * @param maze
+     *            Maze to search. Must not change while the field is being built.
+     * @param type
+     *            HexType of every goal.
+     * @return The distance field of the maze and every position of that type.
+     */
+    public static DistanceField compute(final Maze maze, final HexType type) {
+	final int size = maze.getWidth() * maze.getHeight();
+	int[] goals = new int[4];
+	int count = 0;
+
+	for (int i = 0; i < size; i++) {
+	    if (maze.get(i) != type) continue;
+
+	    if (count == goals.length) goals = Arrays.copyOf(goals, 2 * count);
+	    goals[count++] = i;
+	}
+	return compute(maze, Arrays.copyOf(goals, count));
+    }
+
+    private static DistanceField compute(final Maze maze, final int[] goals) {
+	final int size = maze.getWidth() * maze.getHeight();
+	final int[] distance = new int[size];
+	long expanded = 0;
+
+	// The distances double as the visited set, so the queue is the only other
+	// allocation.
+	final int[] queue = new int[size];
+	int head = 0;
+	int tail = 0;
+
+	Arrays.fill(distance, UNREACHABLE);
+	for (final int goal : goals) {
+	    if (distance[goal] == UNREACHABLE && maze.isPassable(goal)) {
+		queue[tail++] = goal;
+		distance[goal] = 0;
+	    }
+	}
+	while (head < tail) {
+	    final int current = queue[head++];
+	    final int y = maze.yOf(current);
+	    final int mask = maze.neighbourMask(current - y * maze.getWidth(), y);
+	    final int next = distance[current] + 1;
+
+	    expanded++;
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		if ((mask & 1 << d) == 0) continue;
+
+		final int n = current + maze.neighbourOffset(y, d);
+		if (distance[n] != UNREACHABLE || !maze.isPassable(n)) continue;
+
+		distance[n] = next;
+		queue[tail++] = n;
+	    }
+	}
+	return new DistanceField(maze, goals, distance, expanded);
+    }
+
+    /**
+     * @param x
+     *            X position in the maze.
+     * @param y
+     *            Y position in the maze.
+     * @return Number of moves from the position to the nearest goal, or
+     *         UNREACHABLE.
+     */
+    public int distance(final int x, final int y) {
+	return distance[maze.index(x, y)];
+    }
+
+    /**
+     * @param index
+     *            Index of a position in the maze, see Maze.index(x, y).
+     * @return Number of moves from the position to the nearest goal, or
+     *         UNREACHABLE.
+     */
+    public int distance(final int index) {
+	return distance[index];
+    }
+
+    /**
+     * Walks downhill from start to the nearest goal.
+     *
+     * @param start
+     *            Position the path starts at.
+     * @return A shortest path from start to the nearest goal, inclusive, or an
+     *         empty list if start can't reach any goal.
+     * @throws InvalidPositionException
+     *             If start is outside the maze.
+     * @throws IllegalStateException
+     *             If the maze has changed so the path is blocked.
+     */
+    public List<Coordinate> path(final Coordinate start) throws InvalidPositionException {
+	if (!maze.contains(start.getX(), start.getY()))
+	    throw new InvalidPositionException(start, new Coordinate(maze.getWidth(), maze.getHeight()));
+
+	int current = maze.index(start.getX(), start.getY());
+	if (distance[current] == UNREACHABLE) return new ArrayList<>();
+
+	final List<Coordinate> path = new ArrayList<>(distance[current] + 1);
+	path.add(new Coordinate(start));
+	while (distance[current] > 0) {
+	    final int y = maze.yOf(current);
+	    final int mask = maze.neighbourMask(current - y * maze.getWidth(), y);
+	    final int next = distance[current] - 1;
+	    int step = -1;
+
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		if ((mask & 1 << d) == 0) continue;
+
+		final int n = current + maze.neighbourOffset(y, d);
+		if (distance[n] == next && maze.isPassable(n)) {
+		    step = n;
+		    break;
+		}
+	    }
+	    if (step < 0) throw new IllegalStateException("Maze changed since the distance field was built");
+	    current = step;
+	    path.add(new Coordinate(maze.xOf(current), maze.yOf(current)));
+	}
+	return path;
+    }
+
+    /**
+     * @return Maze the distances were measured in.
+     */
+    public Maze getMaze() {
+	return maze;
+    }
+
+    /**
+     * @return Position every distance is measured to, the first if there are
+     *         several, or null if there are none.
+     */
+    public Coordinate getGoal() {
+	return goals.length == 0 ? null : new Coordinate(maze.xOf(goals[0]), maze.yOf(goals[0]));
+    }
+
+    /**
+     * @return Every position distances are measured to.
+     */
+    public List<Coordinate> getGoals() {
+	final List<Coordinate> coordinates = new ArrayList<>(goals.length);
+	for (final int goal : goals) {
+	    coordinates.add(new Coordinate(maze.xOf(goal), maze.yOf(goal)));
+	}
+	return coordinates;
+    }
+
+    /**
+     * @return Number of positions expanded building the field.
+     */
+    public long getNodesExpanded() {
+	return expanded;
+    }
+
+    /**
+     * @return True if the maze has changed since the field was built.
+     */
+    public boolean isStale() {
+	return maze.getVersion() != version;
+    }
+
+    /**
+     * @return Approximate number of bytes of memory used by the field.
+     */
+    public long getMemoryBytes() {
+	return 4L * (distance.length + goals.length) + 64;
+    }
+}
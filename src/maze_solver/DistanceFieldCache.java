@@ -0,0 +1,179 @@
+package maze_solver;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * A least recently used cache of DistanceFields, keyed by maze and goal, that
+ * holds at most a set number of bytes of fields. The first path to a goal costs a
+ * full breadth first search; every later path to the same goal in the same,
+ * unchanged maze only walks the path. Mazes are told apart by identity, so a
+ * maze loaded twice is cached twice. Fields for a maze that has changed since
+ * they were built are rebuilt. Safe to share between threads, as long as no
+ * maze is changed while another thread is finding a path in it.
+ * <p>
+ * Every cached field keeps its maze alive, and the bytes of the mazes aren't
+ * counted against the limit, so call clear once the mazes are done with.
+ */
+public class DistanceFieldCache implements MazeSolver {
+    private final long			      maxBytes;
+    private final LinkedHashMap<Key, DistanceField> fields = new LinkedHashMap<>(16, 0.75f, true);
+    private long			      bytes;
+    private long			      hits;
+    private long			      misses;
+
+    /**
+     * @param maxBytes
+     *            Most memory the cached fields may use. A field bigger than this
+     *            on its own is built but not cached.
+     */
+    public DistanceFieldCache(final long maxBytes) {
+	this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached distance field for the maze and goal, building it if it
+     * isn't cached or is stale. Fields are built outside the lock so other mazes
+     * can be served meanwhile, which means two threads missing on the same key at
+     * once both build it.
+     *
+     * @param maze
+     *            Maze to measure distances in.
+     * @param goal
+     *            Position every distance is measured to.
+     * @return The distance field of the maze and goal.
+     * @throws InvalidPositionException
+     *             If goal is outside the maze.
+     */
+    public DistanceField get(final Maze maze, final Coordinate goal) throws InvalidPositionException {
+	if (!maze.contains(goal.getX(), goal.getY()))
+	    throw new InvalidPositionException(goal, new Coordinate(maze.getWidth(), maze.getHeight()));
+
+	final Key key = new Key(maze, maze.index(goal.getX(), goal.getY()));
+	final DistanceField field = cached(key);
+	return field != null ? field : build(key, goal);
+    }
+
+    /**
+     * Finds a path using the cached distance field of the maze and goal. The nodes
+     * expanded are those of building the field, or none when it was cached.
+     */
+    @Override
+    public SolverResult solve(final Maze maze, final Coordinate start, final Coordinate goal)
+	    throws InvalidPositionException {
+	if (!maze.contains(goal.getX(), goal.getY()))
+	    throw new InvalidPositionException(goal, new Coordinate(maze.getWidth(), maze.getHeight()));
+
+	final long startTime = System.nanoTime();
+	final Key key = new Key(maze, maze.index(goal.getX(), goal.getY()));
+	final DistanceField cached = cached(key);
+	final SolverResult result;
+	if (cached != null) {
+	    result = new SolverResult(cached.path(start), 0);
+	} else {
+	    final DistanceField built = build(key, goal);
+	    result = new SolverResult(built.path(start), built.getNodesExpanded());
+	    result.getMetrics().setAllocatedBytes(built.getMemoryBytes());
+	}
+
+	return AbstractSolver.finish(result, this, maze, startTime);
+    }
+
+    /**
+     * @return The up to date field for key, or null if it has to be built.
+     */
+    private synchronized DistanceField cached(final Key key) {
+	final DistanceField field = fields.get(key);
+	if (field != null && !field.isStale()) {
+	    hits++;
+	    return field;
+	}
+	misses++;
+	return null;
+    }
+
+    private DistanceField build(final Key key, final Coordinate goal) throws InvalidPositionException {
+	final DistanceField field = DistanceField.compute(key.maze, goal);
+	put(key, field);
+	return field;
+    }
+
+    private synchronized void put(final Key key, final DistanceField field) {
+	final DistanceField old = fields.remove(key);
+	if (old != null) bytes -= old.getMemoryBytes();
+	if (field.getMemoryBytes() > maxBytes) return;
+
+	fields.put(key, field);
+	bytes += field.getMemoryBytes();
+	// Iteration order is least recently used first.
+	final Iterator<DistanceField> eldest = fields.values().iterator();
+	while (bytes > maxBytes) {
+	    bytes -= eldest.next().getMemoryBytes();
+	    eldest.remove();
+	}
+    }
+
+    /**
+     * Removes every cached field.
+     */
+    public synchronized void clear() {
+	fields.clear();
+	bytes = 0;
+    }
+
+    /**
+     * @return Number of fields cached.
+     */
+    public synchronized int size() {
+	return fields.size();
+    }
+
+    /**
+     * @return Approximate number of bytes used by the cached fields.
+     */
+    public synchronized long getMemoryBytes() {
+	return bytes;
+    }
+
+    /**
+     * @return Number of fields found in the cache.
+     */
+    public synchronized long getHits() {
+	return hits;
+    }
+
+    /**
+     * @return Number of fields that had to be built.
+     */
+    public synchronized long getMisses() {
+	return misses;
+    }
+
+    /**
+     * A maze, compared by identity, and the index of a goal in it. Holds the maze
+     * strongly, so a cached field keeps its maze from being collected.
+     */
+    private static class Key {
+	private final Maze maze;
+	private final int  goal;
+
+	Key(final Maze maze, final int goal) {
+	    this.maze = maze;
+	    this.goal = goal;
+	}
+
+	@Override
+	public boolean equals(final Object other) {
+	    if (!(other instanceof Key)) return false;
+	    final Key key = (Key) other;
+	    return maze == key.maze && goal == key.goal;
+	}
+
+	@Override
+	public int hashCode() {
+	    return 31 * System.identityHashCode(maze) + goal;
+	}
+    }
+}
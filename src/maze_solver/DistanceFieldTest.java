@@ -0,0 +1,120 @@
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import maze_solver.Maze.HexType;
+import maze_solver.MazeGenerator.Algorithm;
+
+
+/**
+ * Tests DistanceField paths are shortest and the DistanceFieldCache reuses and
+ * evicts fields.
+ */
+class DistanceFieldTest {
+    static Maze	      maze;
+    static Coordinate cheese;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @BeforeAll
+    static void setUpBeforeClass() throws Exception {
+	maze = new Maze(0, 0);
+	maze.loadFromFile("maze.txt");
+	cheese = maze.find(HexType.CHEESE);
+    }
+
+    @Test
+    void testShortestPaths() throws InvalidPositionException {
+	final DistanceField field = DistanceField.compute(maze, cheese);
+	final BreadthFirstSolver bfs = new BreadthFirstSolver();
+
+	for (int y = 0; y < maze.getHeight(); y++) {
+	    for (int x = 0; x < maze.getWidth(); x++) {
+		final Coordinate start = new Coordinate(x, y);
+		final SolverResult expected = bfs.solve(maze, start, cheese);
+
+		assertEquals(start.toString(), expected.getLength(), field.distance(x, y));
+		assertEquals(start.toString(), expected.getLength(), field.path(start).size() - 1);
+		if (expected.isSolved()) MazeSolverTest.assertValidPath("field", maze, field.path(start));
+	    }
+	}
+	assertEquals(0, field.distance(cheese.getX(), cheese.getY()));
+	assertEquals(DistanceField.UNREACHABLE, field.distance(0, 0));
+    }
+
+    @Test
+    void testSeveralGoals() throws InvalidPositionException {
+	final List<Coordinate> goals = Arrays.asList(cheese, maze.find(HexType.MOUSE), new Coordinate(2, 2));
+	final DistanceField field = DistanceField.compute(maze, goals);
+	final DistanceField[] single = new DistanceField[goals.size()];
+	for (int g = 0; g < single.length; g++) {
+	    single[g] = DistanceField.compute(maze, goals.get(g));
+	}
+
+	for (int y = 0; y < maze.getHeight(); y++) {
+	    for (int x = 0; x < maze.getWidth(); x++) {
+		int nearest = DistanceField.UNREACHABLE;
+		for (final DistanceField f : single) {
+		    final int d = f.distance(x, y);
+		    if (d == DistanceField.UNREACHABLE) continue;
+		    nearest = nearest == DistanceField.UNREACHABLE ? d : Math.min(nearest, d);
+		}
+		assertEquals(nearest, field.distance(x, y));
+		if (nearest > 0) assertTrue(goals.contains(field.path(new Coordinate(x, y)).get(nearest)));
+	    }
+	}
+	assertEquals(goals, field.getGoals());
+	assertEquals(cheese, DistanceField.compute(maze, HexType.CHEESE).getGoal());
+    }
+
+    @Test
+    void testCache() throws InvalidPositionException {
+	final Maze copy = MazeGenerator.generate(50, 50, Algorithm.PRIM, 1);
+	final Coordinate goal = copy.find(HexType.CHEESE);
+	final Coordinate start = copy.find(HexType.MOUSE);
+	final DistanceFieldCache cache = new DistanceFieldCache(1 << 20);
+
+	final SolverResult first = cache.solve(copy, start, goal);
+	final SolverResult second = cache.solve(copy, start, goal);
+	assertEquals(first.getPath(), second.getPath());
+	assertTrue(first.getNodesExpanded() > 0);
+	assertEquals(0, second.getNodesExpanded());
+	assertEquals(1, cache.getHits());
+	assertEquals(1, cache.getMisses());
+	assertSame(cache.get(copy, goal), cache.get(copy, goal));
+
+	// Changing the maze makes the cached field stale.
+	final DistanceField before = cache.get(copy, goal);
+	copy.set(start, HexType.OPEN);
+	assertTrue(before.isStale());
+	assertFalse(cache.get(copy, goal).isStale());
+	assertEquals(1, cache.size());
+    }
+
+    @Test
+    void testEviction() throws InvalidPositionException {
+	final long fieldBytes = DistanceField.compute(maze, cheese).getMemoryBytes();
+	final DistanceFieldCache cache = new DistanceFieldCache(2 * fieldBytes);
+	final Coordinate start = maze.find(HexType.MOUSE);
+
+	cache.get(maze, cheese);
+	cache.get(maze, start);
+	cache.get(maze, cheese); // The start field is now the least recently used.
+	cache.get(maze, new Coordinate(2, 2));
+	assertEquals(2, cache.size());
+	assertTrue(cache.getMemoryBytes() <= 2 * fieldBytes);
+
+	final long misses = cache.getMisses();
+	cache.get(maze, cheese);
+	assertEquals(misses, cache.getMisses());
+	cache.get(maze, start);
+	assertEquals(misses + 1, cache.getMisses());
+    }
+}
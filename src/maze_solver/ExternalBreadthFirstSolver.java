@@ -0,0 +1,438 @@
+package maze_solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * Solves a maze with a breadth first search that keeps its frontier on disk
+ * instead of in memory. Only a few fixed size buffers are allocated, so a maze
+ * mapped with BinaryMazeFormat.map can be far larger than the heap: the
+ * operating system pages in the part of the maze the frontier is passing
+ * through and drops the rest.
+ * <p>
+ * Every level of the search is written to a file of sorted indexes. Stepping in
+ * one direction from every index of a sorted level gives indexes that are still
+ * sorted, so the next level is a six way merge of the current level, less the
+ * current and previous levels, which are the only ones a neighbour can be in.
+ * Every file is read and written sequentially. The path is traced back from the
+ * goal by binary searching the level files.
+ */
+public class ExternalBreadthFirstSolver extends AbstractSolver {
+    /**
+     * Number of indexes each buffer holds when none is given.
+     */
+    static final int	     DEFAULT_BUFFER = 1 << 14;
+    /**
+     * Marks an exhausted stream of indexes. Larger than any index.
+     */
+    private static final int END	    = Integer.MAX_VALUE;
+
+    private final Path	     directory;
+    private final int	     bufferSize;
+
+    /**
+     * Writes the levels to the default temporary directory.
+     */
+    public ExternalBreadthFirstSolver() {
+	this(null, DEFAULT_BUFFER);
+    }
+
+    /**
+     * @param directory
+     *            Where the levels are written, or null for the default temporary
+     *            directory. Needs room for 4 bytes per hexagon reached.
+     */
+    public ExternalBreadthFirstSolver(final Path directory) {
+	this(directory, DEFAULT_BUFFER);
+    }
+
+    /**
+     * @param directory
+     *            Where the levels are written, or null for the default temporary
+     *            directory.
+     * @param bufferSize
+     *            Number of indexes held by each of the nine buffers.
+     */
+    ExternalBreadthFirstSolver(final Path directory, final int bufferSize) {
+	this.directory = directory;
+	this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Labelling the maze would need 4 bytes of heap per hexagon.
+     */
+    @Override
+    protected boolean usesComponents() {
+	return false;
+    }
+
+    @Override
+    protected SolverResult search(final Maze maze, final int start, final int goal) {
+	try (Search search = new Search(maze)) {
+	    final int depth = search.run(start, goal);
+	    final List<Coordinate> path = depth < 0 ? new ArrayList<Coordinate>() : search.trace(goal, depth);
+	    return new SolverResult(path, metrics(search.expanded, search.peak, 9L * Integer.BYTES * bufferSize));
+	} catch (final IOException e) {
+	    throw new UncheckedIOException(e);
+	}
+    }
+
+    /**
+     * Finds the number of moves between two positions without tracing the path,
+     * so nothing but the buffers is kept in memory.
+     *
+     * @param maze
+     *            Maze to search.
+     * @param start
+     *            Position to search from.
+     * @param goal
+     *            Position to search for.
+     * @return Length of the shortest path, or -1 if the goal can't be reached.
+     * @throws InvalidPositionException
+     *             If start or goal are outside the maze.
+     * @throws IOException
+     *             If the levels can't be written to disk.
+     */
+    public int distance(final Maze maze, final Coordinate start, final Coordinate goal)
+	    throws InvalidPositionException, IOException {
+	final Coordinate size = new Coordinate(maze.getWidth(), maze.getHeight());
+	if (!maze.contains(start.getX(), start.getY())) throw new InvalidPositionException(start, size);
+	if (!maze.contains(goal.getX(), goal.getY())) throw new InvalidPositionException(goal, size);
+
+	final int startIndex = maze.index(start.getX(), start.getY());
+	final int goalIndex = maze.index(goal.getX(), goal.getY());
+	if (!maze.isPassable(startIndex) || !maze.isPassable(goalIndex)) return -1;
+	if (startIndex == goalIndex) return 0;
+
+	try (Search search = new Search(maze)) {
+	    return search.run(startIndex, goalIndex);
+	}
+    }
+
+    /**
+     * One search, owning the directory its levels are written to.
+     */
+    private class Search implements Closeable {
+	private final Maze	 maze;
+	private final Path	 levels;
+	private final List<Path> files = new ArrayList<>();
+	long			 expanded;
+	long			 peak;
+
+	Search(final Maze maze) throws IOException {
+	    this.maze = maze;
+	    levels = directory == null ? Files.createTempDirectory("maze-bfs")
+		    : Files.createTempDirectory(directory, "maze-bfs");
+	}
+
+	/**
+	 * @return The level the goal is in, or -1 if it can't be reached.
+	 */
+	int run(final int start, final int goal) throws IOException {
+	    try (IndexWriter first = new IndexWriter(level(0))) {
+		first.add(start);
+	    }
+
+	    for (int t = 0;; t++) {
+		final Path current = files.get(t);
+		final Path previous = t > 0 ? files.get(t - 1) : null;
+		final NeighbourStream[] streams = new NeighbourStream[Maze.DIRECTIONS];
+		long count = 0;
+
+		try (IndexWriter next = new IndexWriter(level(t + 1));
+			IndexReader seenCurrent = new IndexReader(current);
+			IndexReader seenPrevious = previous == null ? null : new IndexReader(previous)) {
+		    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+			streams[d] = new NeighbourStream(new IndexReader(current), d);
+		    }
+
+		    for (;;) {
+			int n = END;
+			for (final NeighbourStream stream : streams) {
+			    n = Math.min(n, stream.head);
+			}
+			if (n == END) break;
+			// Each stream is sorted, so every copy of n is at a head.
+			for (final NeighbourStream stream : streams) {
+			    while (stream.head == n) {
+				stream.advance();
+			    }
+			}
+
+			if (seenCurrent.skipTo(n) || seenPrevious != null && seenPrevious.skipTo(n)
+				|| !maze.isPassable(n))
+			    continue;
+
+			next.add(n);
+			count++;
+			if (n == goal) return t + 1;
+		    }
+		} finally {
+		    for (final NeighbourStream stream : streams) {
+			if (stream != null) stream.in.close();
+		    }
+		}
+
+		expanded += count;
+		peak = Math.max(peak, count);
+		if (count == 0) return -1;
+	    }
+	}
+
+	/**
+	 * Walks back from the goal, at each level stepping to any neighbour found in
+	 * the level before.
+	 */
+	List<Coordinate> trace(final int goal, final int depth) throws IOException {
+	    final int[] path = new int[depth + 1];
+	    path[depth] = goal;
+
+	    for (int t = depth; t > 0; t--) {
+		final int current = path[t];
+		final int y = maze.yOf(current);
+		final int mask = maze.neighbourMask(current);
+		path[t - 1] = -1;
+
+		try (FileChannel channel = FileChannel.open(files.get(t - 1), StandardOpenOption.READ)) {
+		    for (int d = 0; d < Maze.DIRECTIONS && path[t - 1] < 0; d++) {
+			if ((mask & 1 << d) == 0) continue;
+
+			final int n = current + maze.neighbourOffset(y, d);
+			if (contains(channel, n)) path[t - 1] = n;
+		    }
+		}
+		if (path[t - 1] < 0) throw new IllegalStateException("Level " + (t - 1) + " doesn't reach " + current);
+	    }
+
+	    final List<Coordinate> coordinates = new ArrayList<>(path.length);
+	    for (final int index : path) {
+		coordinates.add(new Coordinate(maze.xOf(index), maze.yOf(index)));
+	    }
+	    return coordinates;
+	}
+
+	private Path level(final int t) {
+	    final Path file = levels.resolve("level-" + t);
+	    files.add(file);
+	    return file;
+	}
+
+	@Override
+	public void close() throws IOException {
+	    for (final Path file : files) {
+		Files.deleteIfExists(file);
+	    }
+	    Files.deleteIfExists(levels);
+	}
+
+	/**
+	 * The indexes of a level stepped in one direction, leaving out those that
+	 * would step outside the maze.
+	 */
+	private class NeighbourStream {
+	    final IndexReader in;
+	    final int	      direction;
+	    int		      head;
+
+	    NeighbourStream(final IndexReader in, final int direction) throws IOException {
+		this.in = in;
+		this.direction = direction;
+		advance();
+	    }
+
+	    void advance() throws IOException {
+		while (in.hasNext()) {
+		    final int index = in.next();
+		    if ((maze.neighbourMask(index) & 1 << direction) != 0) {
+			head = index + maze.neighbourOffset(maze.yOf(index), direction);
+			return;
+		    }
+		}
+		head = END;
+	    }
+	}
+    }
+
+    /**
+     * Binary searches a level file for an index.
+     */
+    private static boolean contains(final FileChannel channel, final int index) throws IOException {
+	final ByteBuffer value = ByteBuffer.allocate(Integer.BYTES);
+	long low = 0;
+	long high = channel.size() / Integer.BYTES - 1;
+
+	while (low <= high) {
+	    final long middle = (low + high) >>> 1;
+	    value.clear();
+	    while (value.hasRemaining() && channel.read(value, middle * Integer.BYTES + value.position()) >= 0) {}
+	    final int found = value.getInt(0);
+
+	    if (found < index) {
+		low = middle + 1;
+	    } else if (found > index) {
+		high = middle - 1;
+	    } else {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Reads a file of indexes in order through a buffer.
+     */
+    private class IndexReader implements Closeable {
+	private final FileChannel channel;
+	private final ByteBuffer  buffer = ByteBuffer.allocateDirect(bufferSize * Integer.BYTES);
+
+	IndexReader(final Path file) throws IOException {
+	    channel = FileChannel.open(file, StandardOpenOption.READ);
+	    buffer.flip();
+	}
+
+	boolean hasNext() throws IOException {
+	    if (buffer.hasRemaining()) return true;
+
+	    buffer.clear();
+	    while (buffer.hasRemaining() && channel.read(buffer) >= 0) {}
+	    buffer.flip();
+	    return buffer.hasRemaining();
+	}
+
+	int next() {
+	    return buffer.getInt();
+	}
+
+	/**
+	 * Skips every index less than index.
+	 *
+	 * @return True if index is in the file.
+	 */
+	boolean skipTo(final int index) throws IOException {
+	    while (hasNext()) {
+		final int value = buffer.getInt(buffer.position());
+		if (value >= index) return value == index;
+		buffer.getInt();
+	    }
+	    return false;
+	}
+
+	@Override
+	public void close() throws IOException {
+	    channel.close();
+	}
+    }
+
+    /**
+     * Writes a file of indexes through a buffer.
+     */
+    private class IndexWriter implements Closeable {
+	private final FileChannel channel;
+	private final ByteBuffer  buffer = ByteBuffer.allocateDirect(bufferSize * Integer.BYTES);
+
+	IndexWriter(final Path file) throws IOException {
+	    channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+	}
+
+	void add(final int index) throws IOException {
+	    if (!buffer.hasRemaining()) flush();
+	    buffer.putInt(index);
+	}
+
+	private void flush() throws IOException {
+	    buffer.flip();
+	    while (buffer.hasRemaining()) {
+		channel.write(buffer);
+	    }
+	    buffer.clear();
+	}
+
+	@Override
+	public void close() throws IOException {
+	    try {
+		flush();
+	    } finally {
+		channel.close();
+	    }
+	}
+    }
+
+    /**
+     * @formatter:off
+     * Usage: ExternalBreadthFirstSolver <maze file> [--temp=DIR]
+     *   --temp        Directory for the levels of the search, defaults to the
+     *                 system temporary directory.
+     * @formatter:on
+     * Solves a maze from the MOUSE to the CHEESE without loading it into memory.
+     * A text maze is first converted to a binary maze in the temporary directory.
+     *
+     * @param args
+     *            Command line arguments.
+     */
+    public static void main(final String[] args) {
+	String source = null;
+	Path temp = null;
+
+	for (final String arg : args) {
+	    if (arg.startsWith("--temp=")) {
+		temp = Paths.get(arg.substring("--temp=".length()));
+	    } else if (arg.startsWith("--") || source != null) {
+		System.err.println("Unknown option " + arg);
+		return;
+	    } else {
+		source = arg;
+	    }
+	}
+	if (source == null) {
+	    System.err.println("Usage: ExternalBreadthFirstSolver <maze file> [--temp=DIR]");
+	    return;
+	}
+
+	Path converted = null;
+	try {
+	    final long loadStart = System.nanoTime();
+	    Path binary = Paths.get(source);
+	    if (!BinaryMazeFormat.isBinary(binary)) {
+		converted = temp == null ? Files.createTempFile("maze", ".hxmz")
+			: Files.createTempFile(temp, "maze", ".hxmz");
+		BinaryMazeFormat.textToBinary(binary, converted);
+		binary = converted;
+	    }
+	    final Maze maze = BinaryMazeFormat.map(binary);
+	    final Coordinate start = maze.find(HexType.MOUSE);
+	    final Coordinate goal = maze.find(HexType.CHEESE);
+	    final long loadNanos = System.nanoTime() - loadStart;
+	    if (start == null || goal == null) {
+		System.err.println("Maze has no mouse or cheese.");
+		return;
+	    }
+
+	    final SolverResult result = new ExternalBreadthFirstSolver(temp).solve(maze, start, goal);
+	    result.getMetrics().setSource(source);
+	    result.getMetrics().setLoadNanos(loadNanos);
+	    System.out.println(result);
+	    System.out.println(result.getMetrics().toJson());
+	} catch (final IOException | MazeFormatException | InvalidPositionException | UncheckedIOException e) {
+	    System.err.println("Couldn't solve '" + source + "': " + e.getMessage());
+	} finally {
+	    if (converted != null) {
+		try {
+		    Files.deleteIfExists(converted);
+		} catch (final IOException e) {
+		    System.err.println("Couldn't delete " + converted);
+		}
+	    }
+	}
+    }
+}
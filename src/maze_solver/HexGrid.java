@@ -0,0 +1,38 @@
+package maze_solver;
+
+import maze_solver.Maze.HexType;
+
+
+/**
+ * Storage for the HexType of every hexagon in a maze. Positions are addressed by
+ * a single index, y * width + x, so implementations only need to be a 1D array.
+ */
+public interface HexGrid {
+    /**
+     * @param index
+     *            Index of the hexagon to be returned.
+     * @return The HexType stored at index.
+     */
+    HexType get(int index);
+
+    /**
+     * @param index
+     *            Index of the hexagon to change.
+     * @param type
+     *            HexType enum for new type.
+     */
+    void set(int index, HexType type);
+
+    /**
+     * Sets every hexagon in the grid to type.
+     *
+     * @param type
+     *            HexType enum for new type.
+     */
+    void fill(HexType type);
+
+    /**
+     * @return Number of hexagons stored in the grid.
+     */
+    int size();
+}
@@ -0,0 +1,269 @@
+package maze_solver;
+
+import java.util.function.LongConsumer;
+
+
+/**
+ * Hexagon coordinate math on positions packed into a single long, so heuristics
+ * and walks over the grid don't allocate a Coordinate per position.
+ * <p>
+ * A packed position holds two ints: the column in the low 32 bits and the row in
+ * the high 32 bits. Mazes use offset coordinates, (x, y), where every odd row is
+ * shifted half a hexagon right, as in Maze. Distances and shapes are simpler in
+ * axial coordinates, (q, r), where r is the row and q runs along the NE-SW
+ * diagonal instead of straight down, so that every direction changes q and r by
+ * a fixed amount. Cube coordinates add the redundant s = -q - r. Positions may
+ * be outside any maze, including negative, and all methods work the same there.
+ */
+public final class HexMath {
+    /**
+     * Change in axial q to get to each neighbour, indexed by the directions of
+     * Maze.getNeighbours.
+     */
+    static final int[] AXIAL_DQ = { 1, 1, 0, -1, -1, 0 };
+    /**
+     * Change in axial r to get to each neighbour, indexed by direction.
+     */
+    static final int[] AXIAL_DR = { -1, 0, 1, 1, 0, -1 };
+    /**
+     * Nudges lines off hexagon edges so that they round the same way every time.
+     */
+    private static final double EPSILON = 1e-6;
+
+    private HexMath() {}
+
+    /**
+     * @param column
+     *            X or q coordinate.
+     * @param row
+     *            Y or r coordinate.
+     * @return Both coordinates packed into a long.
+     */
+    public static long pack(final int column, final int row) {
+	return (long) row << 32 | column & 0xFFFFFFFFL;
+    }
+
+    /**
+     * @param packed
+     *            A packed position.
+     * @return Its x or q coordinate.
+     */
+    public static int column(final long packed) {
+	return (int) packed;
+    }
+
+    /**
+     * @param packed
+     *            A packed position.
+     * @return Its y or r coordinate.
+     */
+    public static int row(final long packed) {
+	return (int) (packed >> 32);
+    }
+
+    /**
+     * @param x
+     *            Offset x coordinate.
+     * @param y
+     *            Offset y coordinate.
+     * @return The axial q coordinate of the position. The axial r is y.
+     */
+    public static int axialQ(final int x, final int y) {
+	return x - (y - (y & 1)) / 2;
+    }
+
+    /**
+     * @param q
+     *            Axial q coordinate.
+     * @param r
+     *            Axial r coordinate.
+     * @return The offset x coordinate of the position. The offset y is r.
+     */
+    public static int offsetX(final int q, final int r) {
+	return q + (r - (r & 1)) / 2;
+    }
+
+    /**
+     * @param offset
+     *            Packed offset position.
+     * @return The same position as packed axial coordinates.
+     */
+    public static long toAxial(final long offset) {
+	final int y = row(offset);
+	return pack(axialQ(column(offset), y), y);
+    }
+
+    /**
+     * @param axial
+     *            Packed axial position.
+     * @return The same position as packed offset coordinates.
+     */
+    public static long toOffset(final long axial) {
+	final int r = row(axial);
+	return pack(offsetX(column(axial), r), r);
+    }
+
+    /**
+     * @param axial
+     *            Packed axial position.
+     * @return The third cube coordinate, s, of the position. q + r + s is 0.
+     */
+    public static int cubeS(final long axial) {
+	return -column(axial) - row(axial);
+    }
+
+    /**
+     * Number of moves between two positions if there were no walls.
+     *
+     * @return Hexagon distance between offset positions (x1, y1) and (x2, y2).
+     */
+    public static int distance(final int x1, final int y1, final int x2, final int y2) {
+	final int dq = axialQ(x1, y1) - axialQ(x2, y2);
+	final int dr = y1 - y2;
+	return (Math.abs(dq) + Math.abs(dr) + Math.abs(dq + dr)) / 2;
+    }
+
+    /**
+     * @param a
+     *            Packed offset position.
+     * @param b
+     *            Another packed offset position.
+     * @return Hexagon distance between a and b.
+     */
+    public static int distance(final long a, final long b) {
+	return distance(column(a), row(a), column(b), row(b));
+    }
+
+    /**
+     * @param offset
+     *            Packed offset position.
+     * @param direction
+     *            Neighbour direction from 0 to 5, as in Maze.getNeighbours.
+     * @return Packed offset position of the neighbour in that direction.
+     */
+    public static long neighbour(final long offset, final int direction) {
+	final int y = row(offset);
+	return pack(column(offset) + Maze.NEIGHBOUR_DX[y & 1][direction], y + Maze.NEIGHBOUR_DY[direction]);
+    }
+
+    /**
+     * Visits every position exactly radius moves from center, walking clockwise
+     * from the west.
+     *
+     * @param center
+     *            Packed offset position in the middle of the ring.
+     * @param radius
+     *            Distance of the ring from center. A radius of 0 visits only
+     *            center.
+     * @param action
+     *            Given the packed offset position of each hexagon of the ring.
+     */
+    public static void ring(final long center, final int radius, final LongConsumer action) {
+	if (radius == 0) {
+	    action.accept(center);
+	    return;
+	}
+
+	final long axial = toAxial(center);
+	int q = column(axial) - radius;
+	int r = row(axial);
+	for (int d = 0; d < Maze.DIRECTIONS; d++) {
+	    for (int i = 0; i < radius; i++) {
+		action.accept(pack(offsetX(q, r), r));
+		q += AXIAL_DQ[d];
+		r += AXIAL_DR[d];
+	    }
+	}
+    }
+
+    /**
+     * Visits every position at most radius moves from center, row by row.
+     *
+     * @param center
+     *            Packed offset position in the middle of the range.
+     * @param radius
+     *            Greatest distance from center to visit.
+     * @param action
+     *            Given the packed offset position of each hexagon in range.
+     */
+    public static void range(final long center, final int radius, final LongConsumer action) {
+	final long axial = toAxial(center);
+	final int q = column(axial);
+	final int r = row(axial);
+
+	for (int dr = -radius; dr <= radius; dr++) {
+	    for (int dq = Math.max(-radius, -dr - radius); dq <= Math.min(radius, -dr + radius); dq++) {
+		action.accept(pack(offsetX(q + dq, r + dr), r + dr));
+	    }
+	}
+    }
+
+    /**
+     * @param radius
+     *            Distance from a center.
+     * @return Number of positions exactly radius moves from the center.
+     */
+    public static int ringSize(final int radius) {
+	return radius == 0 ? 1 : Maze.DIRECTIONS * radius;
+    }
+
+    /**
+     * @param radius
+     *            Distance from a center.
+     * @return Number of positions at most radius moves from the center.
+     */
+    public static int rangeSize(final int radius) {
+	return 3 * radius * (radius + 1) + 1;
+    }
+
+    /**
+     * Visits the positions of the straight line between two positions, each a
+     * neighbour of the one before.
+     *
+     * @param a
+     *            Packed offset position the line starts at.
+     * @param b
+     *            Packed offset position the line ends at.
+     * @param action
+     *            Given the packed offset position of each hexagon of the line,
+     *            distance(a, b) + 1 of them from a to b.
+     */
+    public static void line(final long a, final long b, final LongConsumer action) {
+	final long axialA = toAxial(a);
+	final long axialB = toAxial(b);
+	final int steps = distance(a, b);
+	final double q = column(axialA) + EPSILON;
+	final double r = row(axialA) + EPSILON;
+	final double dq = column(axialB) - column(axialA);
+	final double dr = row(axialB) - row(axialA);
+
+	action.accept(a);
+	for (int i = 1; i <= steps; i++) {
+	    final double t = (double) i / steps;
+	    action.accept(toOffset(round(q + dq * t, r + dr * t)));
+	}
+    }
+
+    /**
+     * Rounds fractional axial coordinates to the hexagon containing them, by
+     * rounding all three cube coordinates and fixing the one that moved most.
+     *
+     * @return Packed axial position.
+     */
+    static long round(final double q, final double r) {
+	final double s = -q - r;
+	int roundQ = (int) Math.round(q);
+	int roundR = (int) Math.round(r);
+	final int roundS = (int) Math.round(s);
+	final double errorQ = Math.abs(roundQ - q);
+	final double errorR = Math.abs(roundR - r);
+	final double errorS = Math.abs(roundS - s);
+
+	if (errorQ > errorR && errorQ > errorS) {
+	    roundQ = -roundR - roundS;
+	} else if (errorR > errorS) {
+	    roundR = -roundQ - roundS;
+	}
+	return pack(roundQ, roundR);
+    }
+}
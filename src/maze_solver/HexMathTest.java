@@ -0,0 +1,111 @@
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests the packed coordinate conversions, distances and shapes of HexMath.
+ */
+class HexMathTest {
+
+    @Test
+    void testPackAndConvert() {
+	for (int y = -5; y <= 5; y++) {
+	    for (int x = -5; x <= 5; x++) {
+		final long offset = HexMath.pack(x, y);
+		assertEquals(x, HexMath.column(offset));
+		assertEquals(y, HexMath.row(offset));
+		assertEquals(offset, HexMath.toOffset(HexMath.toAxial(offset)));
+		assertEquals(0, HexMath.column(HexMath.toAxial(offset)) + HexMath.row(HexMath.toAxial(offset))
+			+ HexMath.cubeS(HexMath.toAxial(offset)));
+		assertEquals(new Coordinate(x, y), Coordinate.unpack(new Coordinate(x, y).pack()));
+	    }
+	}
+    }
+
+    @Test
+    void testNeighbours() throws InvalidPositionException {
+	final Maze maze = new Maze(7, 6);
+	for (int y = 0; y < maze.getHeight(); y++) {
+	    for (int x = 0; x < maze.getWidth(); x++) {
+		final List<Coordinate> neighbours = maze.getNeighbours(new Coordinate(x, y));
+		final long axial = HexMath.toAxial(HexMath.pack(x, y));
+
+		for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		    final long n = HexMath.neighbour(HexMath.pack(x, y), d);
+		    if (neighbours.get(d) != null) assertEquals(neighbours.get(d), Coordinate.unpack(n));
+		    assertEquals(1, HexMath.distance(HexMath.pack(x, y), n));
+		    assertEquals(HexMath.pack(HexMath.column(axial) + HexMath.AXIAL_DQ[d],
+			    HexMath.row(axial) + HexMath.AXIAL_DR[d]), HexMath.toAxial(n));
+		}
+	    }
+	}
+    }
+
+    @Test
+    void testDistanceMatchesOpenMaze() throws InvalidPositionException {
+	final Maze maze = new Maze(9, 8);
+	final Coordinate from = new Coordinate(4, 3);
+	final BreadthFirstSolver bfs = new BreadthFirstSolver();
+
+	for (int y = 0; y < maze.getHeight(); y++) {
+	    for (int x = 0; x < maze.getWidth(); x++) {
+		final int distance = HexMath.distance(from.pack(), HexMath.pack(x, y));
+		assertEquals(bfs.solve(maze, from, new Coordinate(x, y)).getLength(), distance);
+		assertEquals(distance, HexMath.distance(HexMath.pack(x, y), from.pack()));
+	    }
+	}
+    }
+
+    @Test
+    void testRingAndRange() {
+	final long center = HexMath.pack(3, -2);
+
+	for (int radius = 0; radius <= 4; radius++) {
+	    final int r = radius;
+	    final List<Long> ring = new ArrayList<>();
+	    HexMath.ring(center, radius, ring::add);
+
+	    assertEquals(HexMath.ringSize(radius), ring.size());
+	    assertEquals(ring.size(), new HashSet<>(ring).size());
+	    for (int i = 0; i < ring.size(); i++) {
+		assertEquals(radius, HexMath.distance(center, ring.get(i)));
+		// The ring walks from each hexagon to the next.
+		if (radius > 0) assertEquals(1, HexMath.distance(ring.get(i), ring.get((i + 1) % ring.size())));
+	    }
+
+	    final Set<Long> range = new HashSet<>();
+	    HexMath.range(center, radius, p -> {
+		assertTrue(HexMath.distance(center, p) <= r);
+		range.add(p);
+	    });
+	    assertEquals(HexMath.rangeSize(radius), range.size());
+	}
+    }
+
+    @Test
+    void testLine() {
+	final long a = HexMath.pack(-3, 4);
+
+	for (int y = -4; y <= 6; y++) {
+	    for (int x = -4; x <= 6; x++) {
+		final long b = HexMath.pack(x, y);
+		final List<Long> line = new ArrayList<>();
+		HexMath.line(a, b, line::add);
+
+		assertEquals(HexMath.distance(a, b) + 1, line.size());
+		assertEquals(a, (long) line.get(0));
+		assertEquals(b, (long) line.get(line.size() - 1));
+		for (int i = 1; i < line.size(); i++) {
+		    assertEquals(1, HexMath.distance(line.get(i - 1), line.get(i)));
+		}
+	    }
+	}
+    }
+}
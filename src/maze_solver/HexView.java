@@ -0,0 +1,28 @@
+package maze_solver;
+
+import maze_solver.Maze.HexType;
+
+
+/**
+ * A read only view of the HexType of every hexagon in a maze, addressed the same
+ * way as Maze, y * width + x. Lets solve state be drawn over a Maze without
+ * writing it into the Maze.
+ */
+public interface HexView {
+    /**
+     * @param index
+     *            Index of the hexagon to be returned, see Maze.index(x, y).
+     * @return The HexType shown at index.
+     */
+    HexType get(int index);
+
+    /**
+     * @return Width of the view.
+     */
+    int getWidth();
+
+    /**
+     * @return Height of the view.
+     */
+    int getHeight();
+}
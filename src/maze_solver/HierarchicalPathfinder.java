@@ -0,0 +1,557 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * Finds paths across very large mazes with hierarchical path-finding A* (HPA*,
+ * Botea, Muller and Schaeffer). The maze is split into square clusters of rows
+ * and columns. Wherever two clusters touch through a run of open hexagons, the
+ * crossing in the middle of the run becomes an entrance in each cluster, and the
+ * distances between the entrances of each cluster are found ahead of time. A
+ * query searches the small graph of entrances first and then fills in each step
+ * with a search inside one cluster.
+ *
+ * Paths are always valid but can be a little longer than the shortest path,
+ * since a cluster is only crossed at its entrances. Clusters are preprocessed in
+ * parallel. The pathfinder listens to its maze, and changing a hexagon only
+ * rebuilds the entrances and distances of its cluster and the clusters around it,
+ * before the next query. Not thread safe, like Maze.
+ */
+public class HierarchicalPathfinder implements MazeListener {
+    /**
+     * Distance between positions that can't reach each other.
+     */
+    static final int	       INFINITY = Integer.MAX_VALUE / 2;
+
+    private final Maze	       maze;
+    private final int	       clusterSize;
+    private final ForkJoinPool pool;
+    private int		       width;
+    private int		       height;
+    private int		       clusterColumns;
+    private int		       clusterRows;
+    private Cluster[]	       clusters;
+    /**
+     * Chosen crossings between each pair of touching clusters, keyed by
+     * lower cluster id << 32 | higher cluster id. Each crossing is two adjacent
+     * hexagons, the one in the lower cluster first.
+     */
+    private final Map<Long, int[]> crossings = new HashMap<>();
+    /**
+     * Clusters with a hexagon that changed since they were built.
+     */
+    private final BitSet       changed	= new BitSet();
+    /**
+     * Version of the maze the clusters have seen every change up to.
+     */
+    private int		       version;
+    private boolean	       reset	= true;
+
+    /**
+     * Splits the maze into clusters on the common ForkJoinPool and starts
+     * listening to it. Clusters are built by the first query.
+     *
+     * @param maze
+     *            Maze to find paths in.
+     * @param clusterSize
+     *            Width and height of each cluster.
+     */
+    public HierarchicalPathfinder(final Maze maze, final int clusterSize) {
+	this(maze, clusterSize, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param maze
+     *            Maze to find paths in.
+     * @param clusterSize
+     *            Width and height of each cluster.
+     * @param pool
+     *            Pool the clusters are built on.
+     */
+    public HierarchicalPathfinder(final Maze maze, final int clusterSize, final ForkJoinPool pool) {
+	if (clusterSize < 2) throw new IllegalArgumentException("Clusters must be at least 2 wide");
+
+	this.maze = maze;
+	this.clusterSize = clusterSize;
+	this.pool = pool;
+	maze.addListener(this);
+    }
+
+    /**
+     * Stops listening to the maze. The pathfinder can't be used afterwards.
+     */
+    public void close() {
+	maze.removeListener(this);
+    }
+
+    @Override
+    public void cellChanged(final Maze changedMaze, final int index, final HexType oldType, final HexType newType) {
+	// Loading or resizing the maze changes it without telling listeners, which
+	// shows as a version skipped. Rebuild every cluster before the next query.
+	if (reset || version + 1 != changedMaze.getVersion()) {
+	    reset = true;
+	    return;
+	}
+	version = changedMaze.getVersion();
+	if (oldType.isPassable() != newType.isPassable()) changed.set(clusterOf(index));
+    }
+
+    /**
+     * Finds a path from start to goal, first bringing any clusters changed since
+     * the last query up to date.
+     *
+     * @param start
+     *            Position the path starts at.
+     * @param goal
+     *            Position the path ends at.
+     * @return A path from start to goal, and the number of positions and entrances
+     *         expanded finding it, not counting rebuilding clusters.
+     * @throws InvalidPositionException
+     *             If start or goal is outside the maze.
+     */
+    public SolverResult solve(final Coordinate start, final Coordinate goal) throws InvalidPositionException {
+	final Coordinate size = new Coordinate(maze.getWidth(), maze.getHeight());
+
+	if (!maze.contains(start.getX(), start.getY())) throw new InvalidPositionException(start, size);
+	if (!maze.contains(goal.getX(), goal.getY())) throw new InvalidPositionException(goal, size);
+
+	final int s = maze.index(start.getX(), start.getY());
+	final int t = maze.index(goal.getX(), goal.getY());
+
+	if (!maze.isPassable(s) || !maze.isPassable(t)) return new SolverResult(Collections.<Coordinate>emptyList(), 0);
+	if (s == t) return new SolverResult(Collections.singletonList(new Coordinate(start)), 0);
+
+	update();
+	return new Query(s, t).run();
+    }
+
+    /**
+     * @return Number of entrances in every cluster, building them if needed.
+     */
+    int entranceCount() {
+	update();
+	int count = 0;
+	for (final Cluster cluster : clusters) {
+	    count += cluster.entrances.length;
+	}
+	return count;
+    }
+
+    /**
+     * Rebuilds every cluster if the maze was reloaded, otherwise every cluster
+     * changed since the last update and the clusters around them.
+     */
+    private void update() {
+	if (reset || version != maze.getVersion()) {
+	    width = maze.getWidth();
+	    height = maze.getHeight();
+	    clusterColumns = (width + clusterSize - 1) / clusterSize;
+	    clusterRows = (height + clusterSize - 1) / clusterSize;
+	    clusters = new Cluster[clusterColumns * clusterRows];
+	    for (int id = 0; id < clusters.length; id++) {
+		clusters[id] = new Cluster(id);
+	    }
+	    crossings.clear();
+	    changed.set(0, clusters.length);
+	    version = maze.getVersion();
+	    reset = false;
+	}
+	if (changed.isEmpty()) return;
+
+	// Boundaries touching a changed cluster are found from their lower
+	// cluster, so group them by it.
+	final BitSet lower = new BitSet();
+	final BitSet affected = new BitSet();
+	for (int id = changed.nextSetBit(0); id >= 0; id = changed.nextSetBit(id + 1)) {
+	    for (final int other : neighbourClusters(id)) {
+		lower.set(Math.min(id, other));
+		affected.set(other);
+	    }
+	    lower.set(id);
+	    affected.set(id);
+	}
+
+	final List<Callable<Map<Long, int[]>>> boundaryTasks = new ArrayList<>();
+	for (int id = lower.nextSetBit(0); id >= 0; id = lower.nextSetBit(id + 1)) {
+	    final int a = id;
+	    boundaryTasks.add(() -> findCrossings(a));
+	}
+	for (final Map<Long, int[]> found : Parallel.invokeAll(pool, boundaryTasks, "building clusters")) {
+	    crossings.putAll(found);
+	}
+
+	final List<Callable<Void>> clusterTasks = new ArrayList<>();
+	for (int id = affected.nextSetBit(0); id >= 0; id = affected.nextSetBit(id + 1)) {
+	    final Cluster cluster = clusters[id];
+	    clusterTasks.add(() -> {
+		cluster.build();
+		return null;
+	    });
+	}
+	Parallel.invokeAll(pool, clusterTasks, "building clusters");
+	changed.clear();
+    }
+
+    /**
+     * Finds the crossings between a cluster and each touching cluster with a
+     * higher id. Only reads the maze, so clusters can be done in parallel.
+     *
+     * @return Crossings keyed like the crossings field. Boundaries without a
+     *         crossing map to an empty array.
+     */
+    private Map<Long, int[]> findCrossings(final int a) {
+	final Cluster cluster = clusters[a];
+	// Every open crossing to each higher cluster, packed as cell << 32 | other.
+	final TreeMap<Integer, List<Long>> open = new TreeMap<>();
+	for (final int b : neighbourClusters(a)) {
+	    if (b > a) open.put(b, new ArrayList<Long>());
+	}
+
+	for (int y = cluster.y0; y < cluster.y1; y++) {
+	    // Only the outside rows and columns of the cluster touch other clusters.
+	    final int step = y == cluster.y0 || y == cluster.y1 - 1 ? 1 : Math.max(1, cluster.x1 - cluster.x0 - 1);
+	    for (int x = cluster.x0; x < cluster.x1; x += step) {
+		final int c = y * width + x;
+		if (!maze.isPassable(c)) continue;
+
+		final int mask = maze.neighbourMask(x, y);
+		for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		    if ((mask & 1 << d) == 0) continue;
+
+		    final int n = c + maze.neighbourOffset(y, d);
+		    final List<Long> list = open.get(clusterOf(n));
+		    if (list != null && maze.isPassable(n)) list.add((long) c << 32 | n);
+		}
+	    }
+	}
+
+	final Map<Long, int[]> found = new HashMap<>();
+	for (final Map.Entry<Integer, List<Long>> boundary : open.entrySet()) {
+	    found.put((long) a << 32 | boundary.getKey(), chooseCrossings(boundary.getValue()));
+	}
+	return found;
+    }
+
+    /**
+     * Splits the open crossings of one boundary into runs where the hexagons on
+     * each side touch, and picks the middle crossing of each run.
+     *
+     * @return The chosen crossings as cell, other cell pairs.
+     */
+    private int[] chooseCrossings(final List<Long> open) {
+	Collections.sort(open);
+	final int[] chosen = new int[2 * open.size()];
+	int count = 0;
+	int runStart = 0;
+
+	for (int i = 1; i <= open.size(); i++) {
+	    // Both sides of a run must touch, otherwise the hexagons on one side might
+	    // only be connected through the crossing that isn't chosen.
+	    if (i < open.size()) {
+		final long previous = open.get(i - 1);
+		final long crossing = open.get(i);
+		if (touching((int) (previous >>> 32), (int) (crossing >>> 32))
+			&& touching((int) previous, (int) crossing))
+		    continue;
+	    }
+
+	    final long crossing = open.get((runStart + i - 1) / 2);
+	    chosen[count++] = (int) (crossing >>> 32);
+	    chosen[count++] = (int) crossing;
+	    runStart = i;
+	}
+	return Arrays.copyOf(chosen, count);
+    }
+
+    private boolean touching(final int a, final int b) {
+	return a == b || HexMath.distance(maze.xOf(a), maze.yOf(a), maze.xOf(b), maze.yOf(b)) == 1;
+    }
+
+    private int clusterOf(final int index) {
+	final int y = index / width;
+	return y / clusterSize * clusterColumns + (index - y * width) / clusterSize;
+    }
+
+    /**
+     * @return Ids of the up to eight clusters around a cluster.
+     */
+    private List<Integer> neighbourClusters(final int id) {
+	final List<Integer> neighbours = new ArrayList<>(8);
+	final int column = id % clusterColumns;
+	final int row = id / clusterColumns;
+
+	for (int dy = -1; dy <= 1; dy++) {
+	    for (int dx = -1; dx <= 1; dx++) {
+		final int x = column + dx;
+		final int y = row + dy;
+		if ((dx != 0 || dy != 0) && x >= 0 && x < clusterColumns && y >= 0 && y < clusterRows)
+		    neighbours.add(y * clusterColumns + x);
+	    }
+	}
+	return neighbours;
+    }
+
+    /**
+     * A rectangle of the maze, its entrances and the distances between them.
+     */
+    private class Cluster {
+	final int id;
+	final int x0;
+	final int y0;
+	final int x1;
+	final int y1;
+	/**
+	 * Maze indexes of the entrances, sorted.
+	 */
+	int[]	  entrances = new int[0];
+	/**
+	 * Hexagons in other clusters each entrance crosses to.
+	 */
+	int[][]	  partners  = new int[0][];
+	/**
+	 * Distance inside the cluster between each pair of entrances.
+	 */
+	int[][]	  distances = new int[0][];
+
+	Cluster(final int id) {
+	    this.id = id;
+	    x0 = id % clusterColumns * clusterSize;
+	    y0 = id / clusterColumns * clusterSize;
+	    x1 = Math.min(width, x0 + clusterSize);
+	    y1 = Math.min(height, y0 + clusterSize);
+	}
+
+	/**
+	 * Collects the entrances from the crossings on every boundary and finds the
+	 * distances between them. Only writes this cluster.
+	 */
+	void build() {
+	    final TreeMap<Integer, List<Integer>> found = new TreeMap<>();
+
+	    for (final int other : neighbourClusters(id)) {
+		final int[] pairs = crossings.get(other > id ? (long) id << 32 | other : (long) other << 32 | id);
+		if (pairs == null) continue;
+
+		for (int i = 0; i < pairs.length; i += 2) {
+		    final int mine = other > id ? pairs[i] : pairs[i + 1];
+		    final int theirs = other > id ? pairs[i + 1] : pairs[i];
+		    List<Integer> list = found.get(mine);
+		    if (list == null) found.put(mine, list = new ArrayList<>(2));
+		    list.add(theirs);
+		}
+	    }
+
+	    final int[] newEntrances = new int[found.size()];
+	    final int[][] newPartners = new int[found.size()][];
+	    int i = 0;
+	    for (final Map.Entry<Integer, List<Integer>> entrance : found.entrySet()) {
+		newEntrances[i] = entrance.getKey();
+		newPartners[i] = new int[entrance.getValue().size()];
+		for (int j = 0; j < newPartners[i].length; j++) {
+		    newPartners[i][j] = entrance.getValue().get(j);
+		}
+		i++;
+	    }
+
+	    final int[][] newDistances = new int[newEntrances.length][];
+	    final int[] distance = new int[area()];
+	    for (i = 0; i < newEntrances.length; i++) {
+		search(newEntrances[i], distance, null);
+		newDistances[i] = new int[newEntrances.length];
+		for (int j = 0; j < newEntrances.length; j++) {
+		    newDistances[i][j] = distance[local(newEntrances[j])];
+		}
+	    }
+
+	    entrances = newEntrances;
+	    partners = newPartners;
+	    distances = newDistances;
+	}
+
+	int area() {
+	    return (x1 - x0) * (y1 - y0);
+	}
+
+	int local(final int index) {
+	    final int y = index / width;
+	    return (y - y0) * (x1 - x0) + index - y * width - x0;
+	}
+
+	int global(final int local) {
+	    final int w = x1 - x0;
+	    return (y0 + local / w) * width + x0 + local % w;
+	}
+
+	/**
+	 * Breadth first search from source without leaving the cluster.
+	 *
+	 * @param distance
+	 *            Filled with the distance to every position in the cluster, by
+	 *            local index, or INFINITY.
+	 * @param parent
+	 *            If not null, filled with the local index each position was
+	 *            reached from.
+	 * @return Number of positions expanded.
+	 */
+	int search(final int source, final int[] distance, final int[] parent) {
+	    final int[] queue = new int[area()];
+	    int head = 0;
+	    int tail = 0;
+
+	    Arrays.fill(distance, 0, area(), INFINITY);
+	    queue[tail++] = local(source);
+	    distance[local(source)] = 0;
+	    while (head < tail) {
+		final int current = queue[head++];
+		final int index = global(current);
+		final int y = index / width;
+		final int mask = maze.neighbourMask(index - y * width, y);
+
+		for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		    if ((mask & 1 << d) == 0) continue;
+
+		    final int n = index + maze.neighbourOffset(y, d);
+		    final int nx = n - n / width * width;
+		    final int ny = n / width;
+		    if (nx < x0 || nx >= x1 || ny < y0 || ny >= y1) continue;
+
+		    final int ln = local(n);
+		    if (distance[ln] != INFINITY || !maze.isPassable(n)) continue;
+
+		    distance[ln] = distance[current] + 1;
+		    if (parent != null) parent[ln] = current;
+		    queue[tail++] = ln;
+		}
+	    }
+	    return tail;
+	}
+
+	int entranceIndex(final int index) {
+	    return Arrays.binarySearch(entrances, index);
+	}
+    }
+
+    /**
+     * One search over the entrance graph, with the start and goal added to it.
+     */
+    private class Query {
+	private final int		     start;
+	private final int		     goal;
+	private final Cluster		     startCluster;
+	private final Cluster		     goalCluster;
+	private final int[]		     startDistance;
+	private final int[]		     goalDistance;
+	private final HashMap<Integer, Integer> cost   = new HashMap<>();
+	private final HashMap<Integer, Integer> parent = new HashMap<>();
+	private final HashSet<Integer>	     closed = new HashSet<>();
+	private final AStarSolver.IndexHeap   open   = new AStarSolver.IndexHeap();
+	private long			     expanded;
+
+	Query(final int start, final int goal) {
+	    this.start = start;
+	    this.goal = goal;
+	    startCluster = clusters[clusterOf(start)];
+	    goalCluster = clusters[clusterOf(goal)];
+	    startDistance = new int[startCluster.area()];
+	    goalDistance = new int[goalCluster.area()];
+	    expanded += startCluster.search(start, startDistance, null);
+	    expanded += goalCluster.search(goal, goalDistance, null);
+	}
+
+	SolverResult run() {
+	    cost.put(start, 0);
+	    open.add(heuristic(start), start);
+
+	    while (!open.isEmpty()) {
+		final int u = open.poll();
+		if (!closed.add(u)) continue;
+		if (u == goal) return new SolverResult(refine(), expanded);
+
+		expanded++;
+		final int c = cost.get(u);
+		final Cluster cluster = clusters[clusterOf(u)];
+
+		if (u == start) {
+		    for (final int e : startCluster.entrances) {
+			relax(u, e, c + startDistance[startCluster.local(e)]);
+		    }
+		    if (startCluster == goalCluster) relax(u, goal, c + startDistance[startCluster.local(goal)]);
+		}
+
+		final int i = cluster.entranceIndex(u);
+		if (i >= 0) {
+		    for (int j = 0; j < cluster.entrances.length; j++) {
+			relax(u, cluster.entrances[j], c + cluster.distances[i][j]);
+		    }
+		    for (final int p : cluster.partners[i]) {
+			relax(u, p, c + 1);
+		    }
+		    if (cluster == goalCluster) relax(u, goal, c + goalDistance[goalCluster.local(u)]);
+		}
+	    }
+	    return new SolverResult(Collections.<Coordinate>emptyList(), expanded);
+	}
+
+	private void relax(final int from, final int to, final int newCost) {
+	    if (newCost >= INFINITY || closed.contains(to)) return;
+
+	    final Integer old = cost.get(to);
+	    if (old != null && old <= newCost) return;
+
+	    cost.put(to, newCost);
+	    parent.put(to, from);
+	    open.add(newCost + heuristic(to), to);
+	}
+
+	private int heuristic(final int index) {
+	    return HexMath.distance(maze.xOf(index), maze.yOf(index), maze.xOf(goal), maze.yOf(goal));
+	}
+
+	/**
+	 * Fills in each step of the entrance path with a search inside the cluster
+	 * both ends of the step are in.
+	 */
+	private List<Coordinate> refine() {
+	    final ArrayList<Integer> nodes = new ArrayList<>();
+	    for (Integer node = goal; node != null; node = parent.get(node)) {
+		nodes.add(node);
+	    }
+	    Collections.reverse(nodes);
+
+	    final ArrayList<Coordinate> path = new ArrayList<>();
+	    path.add(new Coordinate(maze.xOf(start), maze.yOf(start)));
+	    for (int i = 1; i < nodes.size(); i++) {
+		final int from = nodes.get(i - 1);
+		final int to = nodes.get(i);
+		final Cluster cluster = clusters[clusterOf(from)];
+
+		if (cluster != clusters[clusterOf(to)]) {
+		    path.add(new Coordinate(maze.xOf(to), maze.yOf(to)));
+		    continue;
+		}
+
+		final int[] distance = new int[cluster.area()];
+		final int[] steps = new int[cluster.area()];
+		expanded += cluster.search(from, distance, steps);
+		final int first = path.size();
+		for (int local = cluster.local(to); local != cluster.local(from); local = steps[local]) {
+		    final int index = cluster.global(local);
+		    path.add(first, new Coordinate(maze.xOf(index), maze.yOf(index)));
+		}
+	    }
+	    return path;
+	}
+    }
+}
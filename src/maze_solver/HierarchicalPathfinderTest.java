@@ -0,0 +1,106 @@
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import maze_solver.Maze.HexType;
+import maze_solver.MazeGenerator.Algorithm;
+
+
+/**
+ * Tests the HierarchicalPathfinder finds valid, nearly shortest paths and keeps
+ * doing so as the maze changes.
+ */
+class HierarchicalPathfinderTest {
+
+    @Test
+    void testPaths() throws InvalidPositionException {
+	for (final Algorithm algorithm : Algorithm.values()) {
+	    final Maze maze = MazeGenerator.generate(90, 70, algorithm, 4);
+	    final HierarchicalPathfinder hpa = new HierarchicalPathfinder(maze, 16);
+	    final BreadthFirstSolver bfs = new BreadthFirstSolver();
+	    final Random random = new Random(8);
+
+	    assertTrue(hpa.entranceCount() > 0);
+	    for (int i = 0; i < 40; i++) {
+		final Coordinate start = randomOpen(maze, random);
+		final Coordinate goal = randomOpen(maze, random);
+		final SolverResult expected = bfs.solve(maze, start, goal);
+		final SolverResult actual = hpa.solve(start, goal);
+
+		assertEquals(algorithm + " " + start + " " + goal, expected.isSolved(), actual.isSolved());
+		if (!actual.isSolved()) continue;
+
+		MazeSolverTest.assertValidPath(algorithm.toString(), maze, actual.getPath());
+		assertEquals(start, actual.getPath().get(0));
+		assertEquals(goal, actual.getPath().get(actual.getPath().size() - 1));
+		assertTrue(algorithm + " " + actual.getLength() + " vs " + expected.getLength(),
+			actual.getLength() <= expected.getLength() * 3 / 2 + 16);
+	    }
+	    hpa.close();
+	}
+    }
+
+    @Test
+    void testChanges() throws InvalidPositionException {
+	final Maze maze = MazeGenerator.generate(80, 80, Algorithm.OPEN_FIELD, 9);
+	final HierarchicalPathfinder hpa = new HierarchicalPathfinder(maze, 10);
+	final BreadthFirstSolver bfs = new BreadthFirstSolver();
+	final Coordinate start = maze.find(HexType.MOUSE);
+	final Coordinate goal = maze.find(HexType.CHEESE);
+	final Random random = new Random(5);
+
+	for (int i = 0; i < 200; i++) {
+	    final int x = 1 + random.nextInt(maze.getWidth() - 2);
+	    final int y = 1 + random.nextInt(maze.getHeight() - 2);
+	    final HexType type = maze.get(x, y);
+	    if (type == HexType.MOUSE || type == HexType.CHEESE) continue;
+
+	    maze.set(x, y, type == HexType.WALL ? HexType.OPEN : HexType.WALL);
+	    final SolverResult actual = hpa.solve(start, goal);
+	    assertEquals("change " + i, bfs.solve(maze, start, goal).isSolved(), actual.isSolved());
+	    if (actual.isSolved()) MazeSolverTest.assertValidPath("change " + i, maze, actual.getPath());
+	}
+	hpa.close();
+    }
+
+    @Test
+    void testReloadSameSize() throws IOException, InvalidPositionException {
+	final Maze maze = MazeGenerator.generate(30, 30, Algorithm.KRUSKAL, 4);
+	final HierarchicalPathfinder hpa = new HierarchicalPathfinder(maze, 10);
+	final Coordinate start = maze.find(HexType.MOUSE);
+	final Coordinate goal = maze.find(HexType.CHEESE);
+	final Path path = Files.createTempFile("open", ".hxmz");
+	try {
+	    assertTrue(hpa.solve(start, goal).isSolved());
+
+	    // Loading an open maze of the same size takes out every wall without
+	    // telling the listeners.
+	    BinaryMazeFormat.write(new Maze(30, 30), path);
+	    assertFalse(maze.loadFromFile(path.toString()));
+	    final HierarchicalPathfinder fresh = new HierarchicalPathfinder(maze, 10);
+	    assertEquals(fresh.entranceCount(), hpa.entranceCount());
+	    fresh.close();
+	    final SolverResult expected = new AStarSolver().solve(maze, start, goal);
+	    final SolverResult actual = hpa.solve(start, goal);
+	    MazeSolverTest.assertValidPath("reloaded", maze, actual.getPath());
+	    assertTrue(actual.getLength() + " vs " + expected.getLength(),
+		    actual.getLength() <= expected.getLength() * 3 / 2 + 16);
+	} finally {
+	    hpa.close();
+	    Files.delete(path);
+	}
+    }
+
+    private static Coordinate randomOpen(final Maze maze, final Random random) {
+	while (true) {
+	    final Coordinate c = new Coordinate(random.nextInt(maze.getWidth()), random.nextInt(maze.getHeight()));
+	    if (maze.get(c).isPassable()) return c;
+	}
+    }
+}
@@ -0,0 +1,340 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * Keeps a shortest path between two positions up to date while the maze is
+ * edited, using Lifelong Planning A* (Koenig and Likhachev). Listens to the maze,
+ * and the next solve only repairs the part of the search that the changes since
+ * the last solve affected, so flipping one wall on a large maze usually expands a
+ * handful of positions instead of searching the whole maze again.
+ *
+ * Each position keeps g, its distance from the start as of the last expansion,
+ * and rhs, the distance its neighbours' g values give it. Positions whose two
+ * values differ are queued and expanded in A* order until the goal is settled.
+ *
+ * Uses about 20 bytes per position in the maze, and isn't thread safe, like Maze.
+ */
+public class IncrementalSolver implements MazeListener {
+    /**
+     * Distance of a position that hasn't been reached. Small enough that adding a
+     * heuristic can't overflow.
+     */
+    static final int	 INFINITY = Integer.MAX_VALUE / 2;
+
+    private final Maze	 maze;
+    private final int	 start;
+    private final int	 goal;
+    private final int	 goalX;
+    private final int	 goalY;
+    private int		 width;
+    private int		 height;
+    private int[]	 g;
+    private int[]	 rhs;
+    private VertexHeap	 open;
+    /**
+     * Version of the maze the search has seen every change up to.
+     */
+    private int		 version;
+    /**
+     * True until the first solve, or after the maze was reloaded or resized.
+     */
+    private boolean	 reset	  = true;
+
+    /**
+     * Starts listening to the maze. Nothing is searched until the first solve.
+     *
+     * @param maze
+     *            Maze to search and listen to.
+     * @param start
+     *            Position the path starts at.
+     * @param goal
+     *            Position the path ends at.
+     * @throws InvalidPositionException
+     *             If start or goal is outside the maze.
+     */
+    public IncrementalSolver(final Maze maze, final Coordinate start, final Coordinate goal)
+	    throws InvalidPositionException {
+	final Coordinate size = new Coordinate(maze.getWidth(), maze.getHeight());
+
+	if (!maze.contains(start.getX(), start.getY())) throw new InvalidPositionException(start, size);
+	if (!maze.contains(goal.getX(), goal.getY())) throw new InvalidPositionException(goal, size);
+
+	this.maze = maze;
+	this.start = maze.index(start.getX(), start.getY());
+	this.goal = maze.index(goal.getX(), goal.getY());
+	goalX = goal.getX();
+	goalY = goal.getY();
+	maze.addListener(this);
+    }
+
+    /**
+     * Stops listening to the maze. The solver can't be used afterwards.
+     */
+    public void close() {
+	maze.removeListener(this);
+    }
+
+    /**
+     * Brings the shortest path up to date with every change to the maze since the
+     * last solve.
+     *
+     * @return A shortest path from the start to the goal, and the number of
+     *         positions expanded by this call.
+     */
+    public SolverResult solve() {
+	if (reset || version != maze.getVersion()) initialise();
+
+	final long expanded = computeShortestPath();
+	if (g[goal] >= INFINITY) return new SolverResult(Collections.<Coordinate>emptyList(), expanded);
+	return new SolverResult(extractPath(), expanded);
+    }
+
+    @Override
+    public void cellChanged(final Maze changed, final int index, final HexType oldType, final HexType newType) {
+	// Loading or resizing the maze changes it without telling listeners, which
+	// shows as a version skipped. Start again on the next solve.
+	if (reset || version + 1 != changed.getVersion()) {
+	    reset = true;
+	    return;
+	}
+	version = changed.getVersion();
+	if (oldType.isPassable() == newType.isPassable()) return;
+
+	// Every edge to the changed position changed cost.
+	updateVertex(index);
+	final int y = maze.yOf(index);
+	final int mask = maze.neighbourMask(index - y * width, y);
+	for (int d = 0; d < Maze.DIRECTIONS; d++) {
+	    if ((mask & 1 << d) != 0) updateVertex(index + maze.neighbourOffset(y, d));
+	}
+    }
+
+    private void initialise() {
+	final int size = maze.getWidth() * maze.getHeight();
+
+	width = maze.getWidth();
+	height = maze.getHeight();
+	if (g == null || g.length != size) {
+	    g = new int[size];
+	    rhs = new int[size];
+	    open = new VertexHeap(size);
+	} else {
+	    open.clear();
+	}
+	Arrays.fill(g, INFINITY);
+	Arrays.fill(rhs, INFINITY);
+	rhs[start] = 0;
+	open.update(start, key(start));
+	version = maze.getVersion();
+	reset = false;
+    }
+
+    /**
+     * Expands inconsistent positions until the goal is consistent and nothing
+     * queued could give it a shorter path.
+     *
+     * @return Number of positions expanded.
+     */
+    private long computeShortestPath() {
+	long expanded = 0;
+
+	while (!open.isEmpty() && (open.peekKey() < key(goal) || rhs[goal] != g[goal])) {
+	    final int u = open.poll();
+	    expanded++;
+
+	    if (g[u] > rhs[u]) {
+		g[u] = rhs[u];
+	    } else {
+		g[u] = INFINITY;
+		updateVertex(u);
+	    }
+
+	    final int y = maze.yOf(u);
+	    final int mask = maze.neighbourMask(u - y * width, y);
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		if ((mask & 1 << d) != 0) updateVertex(u + maze.neighbourOffset(y, d));
+	    }
+	}
+	return expanded;
+    }
+
+    /**
+     * Recalculates rhs of a position from its neighbours and queues it if it is
+     * now inconsistent.
+     */
+    private void updateVertex(final int u) {
+	if (u != start) {
+	    int best = INFINITY;
+
+	    if (maze.isPassable(u)) {
+		final int y = maze.yOf(u);
+		final int mask = maze.neighbourMask(u - y * width, y);
+		for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		    if ((mask & 1 << d) == 0) continue;
+
+		    final int n = u + maze.neighbourOffset(y, d);
+		    if (g[n] + 1 < best && maze.isPassable(n)) best = g[n] + 1;
+		}
+	    }
+	    rhs[u] = best;
+	}
+
+	if (g[u] != rhs[u]) {
+	    open.update(u, key(u));
+	} else {
+	    open.remove(u);
+	}
+    }
+
+    /**
+     * @return The priority of a position, the A* estimate of a path through it
+     *         first, then its distance from the start, packed into a long.
+     */
+    private long key(final int u) {
+	final int distance = Math.min(g[u], rhs[u]);
+	final int estimate = distance + HexMath.distance(maze.xOf(u), maze.yOf(u), goalX, goalY);
+	return (long) estimate << 32 | distance;
+    }
+
+    /**
+     * Follows the g values down from the goal to the start.
+     */
+    private List<Coordinate> extractPath() {
+	final ArrayList<Coordinate> path = new ArrayList<>(g[goal] + 1);
+	int current = goal;
+
+	path.add(new Coordinate(goalX, goalY));
+	while (current != start) {
+	    final int y = maze.yOf(current);
+	    final int mask = maze.neighbourMask(current - y * width, y);
+	    int previous = -1;
+
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		if ((mask & 1 << d) == 0) continue;
+
+		final int n = current + maze.neighbourOffset(y, d);
+		if (g[n] == g[current] - 1 && maze.isPassable(n)) {
+		    previous = n;
+		    break;
+		}
+	    }
+	    assert previous >= 0 : "No neighbour closer to the start than " + current;
+	    current = previous;
+	    path.add(new Coordinate(maze.xOf(current), maze.yOf(current)));
+	}
+	Collections.reverse(path);
+	return path;
+    }
+
+    /**
+     * A binary min heap of maze indexes that remembers where each index is, so
+     * the key of a queued index can be changed or the index removed.
+     */
+    static class VertexHeap {
+	private final int[]  heap;
+	private final long[] keys;
+	/**
+	 * Position of each maze index in heap, or -1 if it isn't queued.
+	 */
+	private final int[]  positions;
+	private int	     size = 0;
+
+	VertexHeap(final int capacity) {
+	    heap = new int[capacity];
+	    keys = new long[capacity];
+	    positions = new int[capacity];
+	    Arrays.fill(positions, -1);
+	}
+
+	/**
+	 * Queues index with the given key, or changes its key if already queued.
+	 */
+	void update(final int index, final long key) {
+	    int i = positions[index];
+	    if (i < 0) {
+		i = size++;
+		heap[i] = index;
+		positions[index] = i;
+	    } else if (key > keys[index]) {
+		keys[index] = key;
+		down(i);
+		return;
+	    }
+	    keys[index] = key;
+	    up(i);
+	}
+
+	void remove(final int index) {
+	    final int i = positions[index];
+	    if (i < 0) return;
+
+	    positions[index] = -1;
+	    final int last = heap[--size];
+	    if (i == size) return;
+
+	    heap[i] = last;
+	    positions[last] = i;
+	    up(i);
+	    down(positions[last]);
+	}
+
+	int poll() {
+	    final int top = heap[0];
+	    remove(top);
+	    return top;
+	}
+
+	long peekKey() {
+	    return keys[heap[0]];
+	}
+
+	boolean isEmpty() {
+	    return size == 0;
+	}
+
+	void clear() {
+	    for (int i = 0; i < size; i++) {
+		positions[heap[i]] = -1;
+	    }
+	    size = 0;
+	}
+
+	private void up(int i) {
+	    final int index = heap[i];
+	    final long key = keys[index];
+
+	    while (i > 0) {
+		final int p = (i - 1) / 2;
+		if (keys[heap[p]] <= key) break;
+		heap[i] = heap[p];
+		positions[heap[i]] = i;
+		i = p;
+	    }
+	    heap[i] = index;
+	    positions[index] = i;
+	}
+
+	private void down(int i) {
+	    final int index = heap[i];
+	    final long key = keys[index];
+
+	    while (true) {
+		int c = 2 * i + 1;
+		if (c >= size) break;
+		if (c + 1 < size && keys[heap[c + 1]] < keys[heap[c]]) c++;
+		if (key <= keys[heap[c]]) break;
+		heap[i] = heap[c];
+		positions[heap[i]] = i;
+		i = c;
+	    }
+	    heap[i] = index;
+	    positions[index] = i;
+	}
+    }
+}
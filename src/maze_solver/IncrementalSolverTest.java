@@ -0,0 +1,93 @@
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import maze_solver.Maze.HexType;
+import maze_solver.MazeGenerator.Algorithm;
+
+
+/**
+ * Tests the IncrementalSolver keeps finding shortest paths while walls are
+ * toggled.
+ */
+class IncrementalSolverTest {
+
+    @Test
+    void testToggleWalls() throws InvalidPositionException {
+	for (final Algorithm algorithm : new Algorithm[] { Algorithm.OPEN_FIELD, Algorithm.KRUSKAL }) {
+	    final Maze maze = MazeGenerator.generate(60, 40, algorithm, 11);
+	    final Coordinate start = maze.find(HexType.MOUSE);
+	    final Coordinate goal = maze.find(HexType.CHEESE);
+	    final IncrementalSolver incremental = new IncrementalSolver(maze, start, goal);
+	    final BreadthFirstSolver bfs = new BreadthFirstSolver();
+	    final Random random = new Random(3);
+
+	    assertEquals(bfs.solve(maze, start, goal).getLength(), incremental.solve().getLength());
+	    for (int i = 0; i < 300; i++) {
+		final int x = 1 + random.nextInt(maze.getWidth() - 2);
+		final int y = 1 + random.nextInt(maze.getHeight() - 2);
+		final HexType type = maze.get(x, y);
+		if (type == HexType.MOUSE || type == HexType.CHEESE) continue;
+
+		maze.set(x, y, type == HexType.WALL ? HexType.OPEN : HexType.WALL);
+		final SolverResult expected = bfs.solve(maze, start, goal);
+		final SolverResult actual = incremental.solve();
+
+		assertEquals(algorithm + " change " + i, expected.getLength(), actual.getLength());
+		if (actual.isSolved()) MazeSolverTest.assertValidPath(algorithm.toString(), maze, actual.getPath());
+	    }
+	    incremental.close();
+	}
+    }
+
+    @Test
+    void testRepairIsLocal() throws InvalidPositionException {
+	final Maze maze = MazeGenerator.generate(200, 200, Algorithm.OPEN_FIELD, 2);
+	final IncrementalSolver incremental = new IncrementalSolver(maze, maze.find(HexType.MOUSE),
+		maze.find(HexType.CHEESE));
+	final SolverResult first = incremental.solve();
+	assertTrue(first.isSolved());
+
+	// Nothing changed, nothing to expand.
+	assertEquals(0, incremental.solve().getNodesExpanded());
+
+	// Block one position in the middle of the path.
+	final Coordinate blocked = first.getPath().get(first.getPath().size() / 2);
+	maze.set(blocked, HexType.WALL);
+	final SolverResult second = incremental.solve();
+	assertTrue(second.isSolved());
+	assertFalse(second.getPath().contains(blocked));
+	assertTrue(second.getNodesExpanded() + " expanded", second.getNodesExpanded() < first.getNodesExpanded() / 4);
+	incremental.close();
+    }
+
+    @Test
+    void testReloadSameSize() throws IOException, InvalidPositionException {
+	final Maze maze = MazeGenerator.generate(30, 30, Algorithm.KRUSKAL, 4);
+	final Coordinate start = maze.find(HexType.MOUSE);
+	final Coordinate goal = maze.find(HexType.CHEESE);
+	final IncrementalSolver incremental = new IncrementalSolver(maze, start, goal);
+	final Path path = Files.createTempFile("open", ".hxmz");
+	try {
+	    assertTrue(incremental.solve().isSolved());
+
+	    // Loading an open maze of the same size takes out every wall without
+	    // telling the listeners.
+	    BinaryMazeFormat.write(new Maze(30, 30), path);
+	    assertFalse(maze.loadFromFile(path.toString()));
+	    final SolverResult expected = new AStarSolver().solve(maze, start, goal);
+	    final SolverResult actual = incremental.solve();
+	    assertEquals(expected.getLength(), actual.getLength());
+	    MazeSolverTest.assertValidPath("reloaded", maze, actual.getPath());
+	} finally {
+	    incremental.close();
+	    Files.delete(path);
+	}
+    }
+}
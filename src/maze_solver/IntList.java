@@ -0,0 +1,47 @@
+package maze_solver;
+
+import java.util.Arrays;
+
+
+/**
+ * A growable list of ints, without boxing every value like a List of Integers.
+ * Also used as a stack.
+ */
+class IntList {
+    private int[] values = new int[16];
+    private int	  size;
+
+    void add(final int value) {
+	if (size == values.length) values = Arrays.copyOf(values, 2 * size);
+	values[size++] = value;
+    }
+
+    void addAll(final IntList other) {
+	for (int i = 0; i < other.size; i++) {
+	    add(other.values[i]);
+	}
+    }
+
+    int get(final int index) {
+	return values[index];
+    }
+
+    /**
+     * Removes and returns the last value added.
+     */
+    int pop() {
+	return values[--size];
+    }
+
+    int size() {
+	return size;
+    }
+
+    void clear() {
+	size = 0;
+    }
+
+    int[] toArray() {
+	return Arrays.copyOf(values, size);
+    }
+}
@@ -0,0 +1,441 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * A maze with every corridor collapsed into one weighted edge. Nodes are the
+ * passable hexagons that don't have exactly two passable neighbours, the mouse,
+ * the cheese and any extra terminals; every other passable hexagon is part of a
+ * corridor between two nodes. The graph is stored as compressed sparse rows, so
+ * it uses memory in proportion to the number of nodes and edges rather than the
+ * size of the maze, and searches expand nodes instead of hexagons.
+ *
+ * Edges only store the direction they leave their node in. The hexagons of a
+ * corridor are found again by walking it through the maze, and only for the
+ * edges on a found path.
+ */
+public class JunctionGraph {
+    private final Maze	 maze;
+    private final int	 version;
+    /**
+     * Maze index of every node, sorted, so a node's id is its position here.
+     */
+    private final int[]	 nodes;
+    /**
+     * Edges of node i are edgeStart[i] to edgeStart[i + 1], exclusive.
+     */
+    private final int[]	 edgeStart;
+    private final int[]	 edgeTarget;
+    private final int[]	 edgeWeight;
+    /**
+     * Direction each edge leaves its node in.
+     */
+    private final byte[] edgeDirection;
+    /**
+     * Maze indexes of the extra terminals, sorted.
+     */
+    private final int[]	 terminals;
+
+    private JunctionGraph(final Maze maze, final int[] nodes, final int[] edgeStart, final int[] edgeTarget,
+	    final int[] edgeWeight, final byte[] edgeDirection, final int[] terminals) {
+	this.maze = maze;
+	this.version = maze.getVersion();
+	this.nodes = nodes;
+	this.edgeStart = edgeStart;
+	this.edgeTarget = edgeTarget;
+	this.edgeWeight = edgeWeight;
+	this.edgeDirection = edgeDirection;
+	this.terminals = terminals;
+    }
+
+    /**
+     * Finds every node of the maze and the corridors between them.
+     *
+     * @param maze
+     *            Maze to collapse. Must not change while the graph is built.
+     * @param terminals
+     *            Positions to make nodes even when they are in a corridor.
+     * @return The junction graph of the maze.
+     */
+    public static JunctionGraph build(final Maze maze, final Coordinate... terminals) {
+	final int size = maze.getWidth() * maze.getHeight();
+	final IntList terminalCells = new IntList();
+	for (final Coordinate c : terminals) {
+	    if (maze.contains(c.getX(), c.getY())) terminalCells.add(maze.index(c.getX(), c.getY()));
+	}
+	final int[] sortedTerminals = terminalCells.toArray();
+	Arrays.sort(sortedTerminals);
+
+	// The builder only needs the terminals to tell nodes from corridors.
+	final JunctionGraph finder = new JunctionGraph(maze, null, null, null, null, null, sortedTerminals);
+	final IntList nodes = new IntList();
+	for (int i = 0; i < size; i++) {
+	    if (finder.isNode(i)) nodes.add(i);
+	}
+
+	final int[] nodeCells = nodes.toArray();
+	final int[] edgeStart = new int[nodeCells.length + 1];
+	final IntList targets = new IntList();
+	final IntList weights = new IntList();
+	final IntList directions = new IntList();
+
+	for (int node = 0; node < nodeCells.length; node++) {
+	    final int cell = nodeCells[node];
+	    final int y = maze.yOf(cell);
+	    final int mask = maze.neighbourMask(cell - y * maze.getWidth(), y);
+
+	    edgeStart[node] = targets.size();
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		if ((mask & 1 << d) == 0 || !maze.isPassable(cell + maze.neighbourOffset(y, d))) continue;
+
+		final long end = finder.walk(cell, d, -1);
+		final int endCell = (int) (end >>> 32);
+		if (endCell < 0 || endCell == cell) continue; // A loop back to the same node is never useful.
+
+		targets.add(Arrays.binarySearch(nodeCells, endCell));
+		weights.add((int) end);
+		directions.add(d);
+	    }
+	}
+	edgeStart[nodeCells.length] = targets.size();
+
+	final byte[] edgeDirection = new byte[directions.size()];
+	for (int i = 0; i < edgeDirection.length; i++) {
+	    edgeDirection[i] = (byte) directions.get(i);
+	}
+	return new JunctionGraph(maze, nodeCells, edgeStart, targets.toArray(), weights.toArray(), edgeDirection,
+		sortedTerminals);
+    }
+
+    /**
+     * @return True if the passable hexagon at index isn't part of a corridor.
+     */
+    private boolean isNode(final int index) {
+	final HexType type = maze.get(index);
+	if (!type.isPassable()) return false;
+	if (type == HexType.MOUSE || type == HexType.CHEESE) return true;
+	if (Arrays.binarySearch(terminals, index) >= 0) return true;
+	return degree(index) != 2;
+    }
+
+    private int degree(final int index) {
+	final int y = maze.yOf(index);
+	final int mask = maze.neighbourMask(index - y * maze.getWidth(), y);
+	int degree = 0;
+
+	for (int d = 0; d < Maze.DIRECTIONS; d++) {
+	    if ((mask & 1 << d) != 0 && maze.isPassable(index + maze.neighbourOffset(y, d))) degree++;
+	}
+	return degree;
+    }
+
+    /**
+     * Follows a corridor from a hexagon until it reaches a node or stop.
+     *
+     * @param from
+     *            Hexagon to start from.
+     * @param direction
+     *            Direction of the first step, which must be passable.
+     * @param stop
+     *            Hexagon to stop at even if it isn't a node, or -1.
+     * @param path
+     *            If not null, every hexagon after from is added to it.
+     * @return The hexagon stopped at << 32 | the number of steps taken. The
+     *         hexagon is -1 if the corridor leads back to from without a node.
+     */
+    private long walk(final int from, final int direction, final int stop, final List<Coordinate> path) {
+	int previous = from;
+	int current = from + maze.neighbourOffset(maze.yOf(from), direction);
+	int steps = 1;
+
+	while (true) {
+	    if (path != null) path.add(new Coordinate(maze.xOf(current), maze.yOf(current)));
+	    if (current == stop || isNode(current)) return (long) current << 32 | steps;
+	    if (current == from) return -1L << 32 | steps;
+
+	    final int y = maze.yOf(current);
+	    final int mask = maze.neighbourMask(current - y * maze.getWidth(), y);
+	    int next = -1;
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		if ((mask & 1 << d) == 0) continue;
+
+		final int n = current + maze.neighbourOffset(y, d);
+		if (n != previous && maze.isPassable(n)) {
+		    next = n;
+		    break;
+		}
+	    }
+	    previous = current;
+	    current = next;
+	    steps++;
+	}
+    }
+
+    private long walk(final int from, final int direction, final int stop) {
+	return walk(from, direction, stop, null);
+    }
+
+    /**
+     * Finds a shortest path with A* over the nodes. A start or goal in the middle
+     * of a corridor is joined to the nodes at either end of it.
+     *
+     * @param start
+     *            Position the path starts at.
+     * @param goal
+     *            Position the path ends at.
+     * @return A shortest path from start to goal and the number of nodes expanded
+     *         finding it.
+     * @throws InvalidPositionException
+     *             If start or goal is outside the maze.
+     * @throws IllegalStateException
+     *             If the maze has changed since the graph was built.
+     */
+    public SolverResult solve(final Coordinate start, final Coordinate goal) throws InvalidPositionException {
+	final Coordinate size = new Coordinate(maze.getWidth(), maze.getHeight());
+
+	if (!maze.contains(start.getX(), start.getY())) throw new InvalidPositionException(start, size);
+	if (!maze.contains(goal.getX(), goal.getY())) throw new InvalidPositionException(goal, size);
+	if (isStale()) throw new IllegalStateException("Maze changed since the junction graph was built");
+
+	final int s = maze.index(start.getX(), start.getY());
+	final int t = maze.index(goal.getX(), goal.getY());
+
+	if (!maze.isPassable(s) || !maze.isPassable(t)) return new SolverResult(Collections.<Coordinate>emptyList(), 0);
+	if (s == t) return new SolverResult(Collections.singletonList(new Coordinate(start)), 0);
+
+	return new Search(s, t).run();
+    }
+
+    /**
+     * @return Number of nodes.
+     */
+    public int getNodeCount() {
+	return nodes.length;
+    }
+
+    /**
+     * @return Number of edges, counting each corridor once from each end.
+     */
+    public int getEdgeCount() {
+	return edgeTarget.length;
+    }
+
+    /**
+     * @param index
+     *            Index of a position in the maze, see Maze.index(x, y).
+     * @return Id of the node at index, or -1 if it isn't a node.
+     */
+    public int node(final int index) {
+	final int node = Arrays.binarySearch(nodes, index);
+	return node >= 0 ? node : -1;
+    }
+
+    /**
+     * @return Approximate number of bytes of memory used by the graph.
+     */
+    public long getMemoryBytes() {
+	return 4L * (nodes.length + edgeStart.length + terminals.length) + 9L * edgeTarget.length + 96;
+    }
+
+    /**
+     * @return Maze the graph was built from.
+     */
+    public Maze getMaze() {
+	return maze;
+    }
+
+    /**
+     * @return True if the maze has changed since the graph was built.
+     */
+    public boolean isStale() {
+	return maze.getVersion() != version;
+    }
+
+    /**
+     * One A* search. Node ids are used as they are, and the goal gets the extra
+     * id nodes.length when it isn't a node. The start is never a node of the
+     * search; the nodes it leads to start with their distance from it.
+     */
+    private class Search {
+	/**
+	 * Parent of a node reached straight from the start.
+	 */
+	private static final int NO_PARENT = -1;
+
+	private final int	 start;
+	private final int	 goal;
+	private final int	 goalNode;
+	private final int[]	 cost;
+	private final int[]	 parent;
+	/**
+	 * Edge each node was reached by, or -2 - direction when it was reached by
+	 * walking from the start, or when it is the goal, from the goal.
+	 */
+	private final int[]	 parentEdge;
+	private final boolean[]	 closed;
+	/**
+	 * Node at the end of the corridor in each direction from the goal, when the
+	 * goal isn't a node, or -1.
+	 */
+	private final int[]	 goalEndNode  = new int[Maze.DIRECTIONS];
+	private final int[]	 goalEndSteps = new int[Maze.DIRECTIONS];
+	/**
+	 * Length of the shortest corridor from the start straight to the goal, if
+	 * they are in the same corridor.
+	 */
+	private int		 directCost   = Integer.MAX_VALUE;
+	private int		 directDirection;
+	private final AStarSolver.IndexHeap open = new AStarSolver.IndexHeap();
+	private long		 expanded;
+
+	Search(final int start, final int goal) {
+	    this.start = start;
+	    this.goal = goal;
+	    final int node = node(goal);
+	    goalNode = node >= 0 ? node : nodes.length;
+	    cost = new int[nodes.length + 1];
+	    parent = new int[nodes.length + 1];
+	    parentEdge = new int[nodes.length + 1];
+	    closed = new boolean[nodes.length + 1];
+	    Arrays.fill(cost, Integer.MAX_VALUE);
+	    Arrays.fill(goalEndNode, -1);
+	}
+
+	SolverResult run() {
+	    joinStart();
+	    if (goalNode == nodes.length) joinGoal();
+
+	    while (!open.isEmpty()) {
+		final int u = open.poll();
+		if (closed[u]) continue;
+		if (u == goalNode) break;
+
+		closed[u] = true;
+		expanded++;
+		for (int e = edgeStart[u]; e < edgeStart[u + 1]; e++) {
+		    relax(u, edgeTarget[e], cost[u] + edgeWeight[e], e);
+		}
+		for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		    if (goalEndNode[d] == u) relax(u, goalNode, cost[u] + goalEndSteps[d], -2 - d);
+		}
+	    }
+
+	    if (directCost < Integer.MAX_VALUE && directCost <= cost[goalNode]) {
+		final List<Coordinate> path = new ArrayList<>(directCost + 1);
+		path.add(new Coordinate(maze.xOf(start), maze.yOf(start)));
+		walk(start, directDirection, goal, path);
+		return new SolverResult(path, expanded);
+	    }
+	    if (cost[goalNode] == Integer.MAX_VALUE)
+		return new SolverResult(Collections.<Coordinate>emptyList(), expanded);
+	    return new SolverResult(path(), expanded);
+	}
+
+	private void joinStart() {
+	    final int startNode = node(start);
+	    if (startNode >= 0) {
+		cost[startNode] = 0;
+		parent[startNode] = NO_PARENT;
+		parentEdge[startNode] = NO_PARENT;
+		open.add(heuristic(startNode), startNode);
+		return;
+	    }
+
+	    final int y = maze.yOf(start);
+	    final int mask = maze.neighbourMask(start - y * maze.getWidth(), y);
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		if ((mask & 1 << d) == 0 || !maze.isPassable(start + maze.neighbourOffset(y, d))) continue;
+
+		final long end = walk(start, d, goal);
+		final int endCell = (int) (end >>> 32);
+		if (endCell == goal) {
+		    // A ring without nodes reaches the goal both ways round.
+		    if ((int) end < directCost) {
+			directCost = (int) end;
+			directDirection = d;
+		    }
+		} else if (endCell >= 0) {
+		    final int n = node(endCell);
+		    if ((int) end < cost[n]) {
+			cost[n] = (int) end;
+			parent[n] = NO_PARENT;
+			parentEdge[n] = -2 - d;
+			open.add(cost[n] + heuristic(n), n);
+		    }
+		}
+	    }
+	}
+
+	private void joinGoal() {
+	    final int y = maze.yOf(goal);
+	    final int mask = maze.neighbourMask(goal - y * maze.getWidth(), y);
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		if ((mask & 1 << d) == 0 || !maze.isPassable(goal + maze.neighbourOffset(y, d))) continue;
+
+		final long end = walk(goal, d, start);
+		final int endCell = (int) (end >>> 32);
+		// A start in the middle of the goal's corridor was joined to the goal
+		// by joinStart, but a start that is a node is reached like any other.
+		final int n = endCell >= 0 ? node(endCell) : -1;
+		if (n >= 0) {
+		    goalEndNode[d] = n;
+		    goalEndSteps[d] = (int) end;
+		}
+	    }
+	}
+
+	private void relax(final int from, final int to, final int newCost, final int edge) {
+	    if (closed[to] || newCost >= cost[to]) return;
+
+	    cost[to] = newCost;
+	    parent[to] = from;
+	    parentEdge[to] = edge;
+	    open.add(newCost + heuristic(to), to);
+	}
+
+	/**
+	 * @return Hexagon distance from a node to the goal, which is never more
+	 *         than the length of any path between them.
+	 */
+	private int heuristic(final int node) {
+	    if (node == nodes.length) return 0;
+	    return HexMath.distance(maze.xOf(nodes[node]), maze.yOf(nodes[node]), maze.xOf(goal), maze.yOf(goal));
+	}
+
+	/**
+	 * Walks every corridor on the path found to list its hexagons.
+	 */
+	private List<Coordinate> path() {
+	    final ArrayList<Integer> chain = new ArrayList<>();
+	    for (int v = goalNode; v != NO_PARENT; v = parent[v]) {
+		chain.add(v);
+	    }
+	    Collections.reverse(chain);
+
+	    final List<Coordinate> path = new ArrayList<>(cost[goalNode] + 1);
+	    path.add(new Coordinate(maze.xOf(start), maze.yOf(start)));
+	    if (parentEdge[chain.get(0)] != NO_PARENT) walk(start, -2 - parentEdge[chain.get(0)], goal, path);
+
+	    for (int i = 1; i < chain.size(); i++) {
+		final int e = parentEdge[chain.get(i)];
+		if (e >= 0) {
+		    walk(nodes[chain.get(i - 1)], edgeDirection[e], -1, path);
+		    continue;
+		}
+
+		// The corridor to the goal was walked from the goal end.
+		final List<Coordinate> corridor = new ArrayList<>();
+		walk(goal, -2 - e, start, corridor);
+		Collections.reverse(corridor);
+		path.addAll(corridor.subList(1, corridor.size()));
+		path.add(new Coordinate(maze.xOf(goal), maze.yOf(goal)));
+	    }
+	    return path;
+	}
+    }
+}
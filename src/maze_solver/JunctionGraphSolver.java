@@ -0,0 +1,23 @@
+package maze_solver;
+
+/**
+ * Solves mazes with A* over their JunctionGraph. The graph of the last maze
+ * solved is kept and reused until a different or changed maze is solved, so
+ * repeated queries on one maze only search its junctions.
+ */
+public class JunctionGraphSolver implements MazeSolver {
+    private volatile JunctionGraph graph;
+
+    @Override
+    public SolverResult solve(final Maze maze, final Coordinate start, final Coordinate goal)
+	    throws InvalidPositionException {
+	final long startTime = System.nanoTime();
+	JunctionGraph current = graph;
+
+	if (current == null || current.getMaze() != maze || current.isStale()) {
+	    current = JunctionGraph.build(maze);
+	    graph = current;
+	}
+	return AbstractSolver.finish(current.solve(start, goal), this, maze, startTime);
+    }
+}
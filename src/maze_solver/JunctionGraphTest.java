@@ -0,0 +1,101 @@
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import maze_solver.Maze.HexType;
+import maze_solver.MazeGenerator.Algorithm;
+
+
+/**
+ * Tests the JunctionGraph is much smaller than the maze and finds shortest paths
+ * from anywhere, including the middle of corridors.
+ */
+class JunctionGraphTest {
+
+    @Test
+    void testShortestPaths() throws InvalidPositionException {
+	for (final Algorithm algorithm : Algorithm.values()) {
+	    final Maze maze = MazeGenerator.generate(70, 50, algorithm, 21);
+	    final JunctionGraph graph = JunctionGraph.build(maze);
+	    final BreadthFirstSolver bfs = new BreadthFirstSolver();
+	    final Random random = new Random(2);
+
+	    for (int i = 0; i < 60; i++) {
+		final Coordinate start = randomPassable(maze, random);
+		final Coordinate goal = i % 3 == 0 ? maze.find(HexType.CHEESE) : randomPassable(maze, random);
+		final SolverResult expected = bfs.solve(maze, start, goal);
+		final SolverResult actual = graph.solve(start, goal);
+
+		assertEquals(algorithm + " " + start + " " + goal, expected.getLength(), actual.getLength());
+		if (!actual.isSolved()) continue;
+
+		MazeSolverTest.assertValidPath(algorithm.toString(), maze, actual.getPath());
+		assertEquals(start, actual.getPath().get(0));
+		assertEquals(goal, actual.getPath().get(actual.getPath().size() - 1));
+	    }
+	}
+    }
+
+    @Test
+    void testCorridorsCollapse() throws InvalidPositionException {
+	final Maze maze = MazeGenerator.generate(200, 200, Algorithm.RECURSIVE_BACKTRACKER, 1);
+	final JunctionGraph graph = JunctionGraph.build(maze);
+	final SolverResult astar = new AStarSolver().solve(maze, maze.find(HexType.MOUSE), maze.find(HexType.CHEESE));
+	final SolverResult junction = graph.solve(maze.find(HexType.MOUSE), maze.find(HexType.CHEESE));
+
+	int passable = 0;
+	for (int i = 0; i < maze.getWidth() * maze.getHeight(); i++) {
+	    if (maze.isPassable(i)) passable++;
+	}
+	assertTrue(graph.getNodeCount() + " nodes", graph.getNodeCount() * 2 < passable);
+	assertEquals(astar.getLength(), junction.getLength());
+	assertTrue(junction.getNodesExpanded() < astar.getNodesExpanded());
+    }
+
+    @Test
+    void testCorridorEnds() throws InvalidPositionException {
+	// A corridor along the middle row, with a junction near its west end.
+	final Maze corridor = new Maze(7, 3);
+	for (int x = 0; x < 7; x++) {
+	    corridor.set(x, 0, HexType.WALL);
+	    corridor.set(x, 2, HexType.WALL);
+	}
+	corridor.set(1, 0, HexType.OPEN);
+	final JunctionGraph graph = JunctionGraph.build(corridor);
+	assertTrue(graph.node(corridor.index(1, 1)) >= 0);
+	assertSameLength(corridor, graph, new Coordinate(1, 1), new Coordinate(4, 1));
+	assertSameLength(corridor, graph, new Coordinate(4, 1), new Coordinate(1, 1));
+	assertEquals(3, graph.solve(new Coordinate(1, 1), new Coordinate(4, 1)).getLength());
+
+	// Six hexagons around one wall, every one of them in the corridor.
+	final Maze ring = new Maze(3, 3);
+	ring.set(0, 0, HexType.WALL);
+	ring.set(0, 2, HexType.WALL);
+	ring.set(1, 1, HexType.WALL);
+	final JunctionGraph ringGraph = JunctionGraph.build(ring);
+	assertEquals(0, ringGraph.getNodeCount());
+	for (final Coordinate start : ring.findAll(HexType.OPEN)) {
+	    for (final Coordinate goal : ring.findAll(HexType.OPEN)) {
+		assertSameLength(ring, ringGraph, start, goal);
+	    }
+	}
+	assertEquals(1, ringGraph.solve(new Coordinate(1, 0), new Coordinate(2, 0)).getLength());
+    }
+
+    private static void assertSameLength(final Maze maze, final JunctionGraph graph, final Coordinate start,
+	    final Coordinate goal) throws InvalidPositionException {
+	final SolverResult actual = graph.solve(start, goal);
+	assertEquals(start + " " + goal, new BreadthFirstSolver().solve(maze, start, goal).getLength(),
+		actual.getLength());
+	MazeSolverTest.assertValidPath(start + " " + goal, maze, actual.getPath());
+    }
+
+    private static Coordinate randomPassable(final Maze maze, final Random random) {
+	while (true) {
+	    final Coordinate c = new Coordinate(random.nextInt(maze.getWidth()), random.nextInt(maze.getHeight()));
+	    if (maze.get(c).isPassable()) return c;
+	}
+    }
+}
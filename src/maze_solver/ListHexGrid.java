@@ -0,0 +1,45 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * A HexGrid that stores one HexType reference per hexagon in an ArrayList. This
+ * is the original representation and is kept for comparison against the compact
+ * grids.
+ */
+public class ListHexGrid implements HexGrid {
+    private final ArrayList<HexType> map;
+
+    /**
+     * Create a grid of size hexagons that are all HexType.OPEN.
+     *
+     * @param size
+     *            Number of hexagons in the grid.
+     */
+    public ListHexGrid(final int size) {
+	map = new ArrayList<>(Collections.nCopies(size, HexType.OPEN));
+    }
+
+    @Override
+    public HexType get(final int index) {
+	return map.get(index);
+    }
+
+    @Override
+    public void set(final int index, final HexType type) {
+	map.set(index, type);
+    }
+
+    @Override
+    public void fill(final HexType type) {
+	Collections.fill(map, type);
+    }
+
+    @Override
+    public int size() {
+	return map.size();
+    }
+}
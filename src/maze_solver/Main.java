@@ -1,48 +1,472 @@
-package maze_solver;
-
-import java.io.FileNotFoundException;
-import java.util.concurrent.TimeUnit;
-
-
-/**
- * @author Terrence Plunkett
- */
-public class Main {
-
-    /**
-     * @param args
-     * @throws InvalidPositionException
-     */
-    public static void main(final String[] args) throws InvalidPositionException {
-	final Maze maze = new Maze(0, 0);
-	final Player player = new Player(maze, new Coordinate(2, 1));
-
-	try {
-	    maze.loadFromFile("maze.txt");
-	} catch (final FileNotFoundException e) {
-	    System.out.println("Invalid file name \"maze.txt\"");
-	    return;
-	}
-
-	System.out.println(maze);
-	System.out.println();
-
-	while (!player.hasWon()) {
-
-	    try {
-		player.attemptMove();
-	    } catch (final Exception e) {
-		System.err.println("Mouse tried to make an invalid move.");
-		e.printStackTrace();
-	    }
-	    System.out.println(maze);
-	    System.out.println();
-
-	    try {
-		TimeUnit.MILLISECONDS.sleep(100);
-	    } catch (final InterruptedException e) {}
-	}
-	System.out.println("Player has won!");
-	System.out.println(player.getSolution());
-    }
-}
+package maze_solver;
+
+import java.io.BufferedWriter;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * @author Terrence Plunkett
+ */
+public class Main {
+    /**
+     * Buffered standard output that mazes are streamed to.
+     */
+    private static final Writer OUT = new BufferedWriter(new OutputStreamWriter(System.out));
+
+    /**
+     * How often the maze is printed while it is being solved.
+     */
+    static enum RenderMode {
+	/**
+	 * @EVERY Print the maze every renderInterval moves.
+	 * @FINAL Only print the solved maze.
+	 * @NONE Never print the maze, only the solution and stats.
+	 * @ANSI Animate the player in place, redrawing only what each move changed.
+	 */
+	EVERY, @SuppressWarnings("javadoc")
+	FINAL, @SuppressWarnings("javadoc")
+	NONE, @SuppressWarnings("javadoc")
+	ANSI
+    }
+
+    /**
+     * Settings given on the command line.
+     */
+    static class Options {
+	String	   filePath	      = "maze.txt";
+	String	   solver	      = "player";
+	RenderMode render	      = RenderMode.EVERY;
+	int	   renderInterval     = 1;
+	long	   delay	      = 100;
+	boolean	   fillDeadEnds	      = false;
+	boolean	   metrics	      = false;
+	Path	   checkpoint;
+	long	   checkpointInterval = 100_000;
+	boolean	   resume	      = false;
+
+	/**
+	 * @formatter:off
+	 * Usage: [maze file] [--headless] [--render=final|none|ansi|N] [--delay=MS] [--solver=NAME] [--fill-dead-ends]
+	 *        [--metrics] [--checkpoint=FILE[,N]] [--resume]
+	 *   --headless    Same as --render=final --delay=0.
+	 *   --render      Print the maze only when solved, never, or every N moves. ansi animates the player in
+	 *                 place, and prints the solved maze for other solvers.
+	 *   --delay       Milliseconds to wait after each move.
+	 *   --solver      player to watch the mouse move, swarm to move a Player from every mouse at once, agents to
+	 *                 plan paths for every mouse that never collide, or a MazeSolver name.
+	 *   --fill-dead-ends  Fill every dead end before solving.
+	 *   --metrics     Print the SolverMetrics of the solve as a line of JSON.
+	 *   --checkpoint  Save the player to FILE every N moves, 100000 by default, and when it stops.
+	 *   --resume      Carry on from the --checkpoint file if there is one.
+	 * @formatter:on
+	 *
+	 * @param args
+	 *            Command line arguments.
+	 * @return Options described by args.
+	 * @throws IllegalArgumentException
+	 *             If an argument isn't recognised.
+	 */
+	static Options parse(final String[] args) {
+	    final Options options = new Options();
+
+	    for (final String arg : args) {
+		if (arg.equals("--headless")) {
+		    options.render = RenderMode.FINAL;
+		    options.delay = 0;
+		} else if (arg.startsWith("--render=")) {
+		    final String value = arg.substring("--render=".length());
+		    if (value.equals("final")) {
+			options.render = RenderMode.FINAL;
+		    } else if (value.equals("none")) {
+			options.render = RenderMode.NONE;
+		    } else if (value.equals("ansi")) {
+			options.render = RenderMode.ANSI;
+		    } else {
+			options.render = RenderMode.EVERY;
+			options.renderInterval = Integer.parseInt(value);
+			if (options.renderInterval < 1)
+			    throw new IllegalArgumentException("Render interval must be at least 1");
+		    }
+		} else if (arg.startsWith("--delay=")) {
+		    options.delay = Long.parseLong(arg.substring("--delay=".length()));
+		} else if (arg.startsWith("--solver=")) {
+		    options.solver = arg.substring("--solver=".length());
+		} else if (arg.equals("--fill-dead-ends")) {
+		    options.fillDeadEnds = true;
+		} else if (arg.equals("--metrics")) {
+		    options.metrics = true;
+		} else if (arg.startsWith("--checkpoint=")) {
+		    final String[] value = arg.substring("--checkpoint=".length()).split(",", 2);
+		    options.checkpoint = Paths.get(value[0]);
+		    if (value.length > 1) {
+			options.checkpointInterval = Long.parseLong(value[1]);
+			if (options.checkpointInterval < 1)
+			    throw new IllegalArgumentException("Checkpoint interval must be at least 1");
+		    }
+		} else if (arg.equals("--resume")) {
+		    options.resume = true;
+		} else if (arg.startsWith("--")) {
+		    throw new IllegalArgumentException("Unknown option " + arg);
+		} else {
+		    options.filePath = arg;
+		}
+	    }
+	    if (options.resume && options.checkpoint == null)
+		throw new IllegalArgumentException("--resume needs a --checkpoint file");
+	    return options;
+	}
+    }
+
+    /**
+     * @param args
+     * @throws InvalidPositionException
+     */
+    public static void main(final String[] args) throws InvalidPositionException {
+	final Options options;
+	try {
+	    options = Options.parse(args);
+	} catch (final IllegalArgumentException e) {
+	    System.err.println(e.getMessage());
+	    return;
+	}
+
+	final Maze maze = new Maze(0, 0);
+	final long loadStart = System.nanoTime();
+
+	try {
+	    if (maze.loadFromFile(options.filePath)) return;
+	} catch (final FileNotFoundException e) {
+	    System.out.println("Invalid file name \"" + options.filePath + "\"");
+	    return;
+	}
+	final long loadNanos = System.nanoTime() - loadStart;
+
+	final List<Coordinate> mice = maze.findAll(HexType.MOUSE);
+	if (mice.isEmpty()) {
+	    System.err.println("Maze has no mouse.");
+	    return;
+	}
+
+	if (options.fillDeadEnds) {
+	    final long startTime = System.nanoTime();
+	    final int filled = DeadEndFiller.fill(maze, mice.toArray(new Coordinate[mice.size()]));
+	    System.out.printf("Filled %d dead ends in %.3f ms%n", filled, (System.nanoTime() - startTime) / 1e6);
+	}
+
+	if (options.render == RenderMode.EVERY) {
+	    printMaze(maze);
+	}
+
+	final SolverMetrics metrics;
+	if (options.solver.equals("player")) {
+	    metrics = runPlayer(maze, mice.get(0), options);
+	} else if (options.solver.equals("swarm")) {
+	    metrics = runSwarm(maze, options);
+	} else if (options.solver.equals("agents")) {
+	    metrics = runAgents(maze, mice, options);
+	} else {
+	    metrics = runSolver(maze, mice.get(0), options);
+	}
+
+	if (options.metrics && metrics != null) {
+	    metrics.setSource(options.filePath);
+	    metrics.setLoadNanos(loadNanos);
+	    System.out.println(metrics.toJson());
+	}
+    }
+
+    /**
+     * Moves a Player through the maze one step at a time until it finds the
+     * cheese or runs out of places to look, checkpointing it if asked to.
+     *
+     * @return What the run cost, or null if the checkpoint couldn't be resumed.
+     */
+    private static SolverMetrics runPlayer(final Maze maze, final Coordinate start, final Options options) {
+	final Player player;
+	if (options.resume && Files.exists(options.checkpoint)) {
+	    try {
+		player = PlayerCheckpoint.read(maze, options.checkpoint);
+	    } catch (IOException | MazeFormatException e) {
+		System.err.println("Couldn't resume from " + options.checkpoint + ": " + e.getMessage());
+		return null;
+	    }
+	    System.out.printf("Resumed after %d moves%n", player.getMetrics().getNodesExpanded());
+	} else {
+	    player = new Player(maze, start);
+	}
+	final AnsiRenderer animation = options.render == RenderMode.ANSI ? new AnsiRenderer(player, OUT) : null;
+	if (animation != null) {
+	    player.addListener(animation);
+	    drawFrame(animation);
+	}
+	final long startTime = System.nanoTime();
+	// Count on from the checkpoint so a resumed run checkpoints at the same moves.
+	long moves = player.getMetrics().getNodesExpanded();
+
+	while (!player.hasWon() && !player.hasFailed()) {
+
+	    try {
+		player.attemptMove();
+	    } catch (final Exception e) {
+		// Trying again would only make the same move.
+		System.err.println("Mouse tried to make an invalid move.");
+		e.printStackTrace();
+		break;
+	    }
+	    moves++;
+
+	    if (options.render == RenderMode.EVERY && moves % options.renderInterval == 0) {
+		printMaze(player);
+	    } else if (animation != null) {
+		drawFrame(animation);
+	    }
+	    if (options.checkpoint != null && moves % options.checkpointInterval == 0) {
+		checkpoint(player, options.checkpoint);
+	    }
+
+	    if (options.delay > 0) {
+		try {
+		    TimeUnit.MILLISECONDS.sleep(options.delay);
+		} catch (final InterruptedException e) {}
+	    }
+	}
+	final long elapsed = System.nanoTime() - startTime;
+	if (options.checkpoint != null) {
+	    checkpoint(player, options.checkpoint);
+	}
+
+	if (options.render == RenderMode.FINAL) {
+	    printMaze(player);
+	}
+	if (player.hasWon()) {
+	    System.out.println("Player has won!");
+	    System.out.println(player.getSolution());
+	} else {
+	    System.out.println("No path to the cheese.");
+	}
+	System.out.printf("%d moves, path length %d, %d dead ends, %.3f ms%n", moves, player.getSolution().size(),
+		player.getDeadPositions().size(), elapsed / 1e6);
+
+	final SolverMetrics metrics = player.getMetrics();
+	metrics.setSolveNanos(elapsed);
+	return metrics;
+    }
+
+    /**
+     * Saves the player, reporting rather than stopping if it can't be saved.
+     */
+    private static void checkpoint(final Player player, final Path path) {
+	try {
+	    PlayerCheckpoint.write(player, path);
+	} catch (final IOException e) {
+	    System.err.println("Couldn't write checkpoint " + path + ": " + e.getMessage());
+	}
+    }
+
+    /**
+     * Moves a Player from every mouse in the maze at once, one step per tick,
+     * until each has found a cheese or run out of places to look.
+     *
+     * @return What the run cost, summed over every Player.
+     */
+    private static SolverMetrics runSwarm(final Maze maze, final Options options) {
+	final Swarm swarm = new Swarm(maze);
+	final long startTime = System.nanoTime();
+
+	while (swarm.tick()) {
+	    if (options.render == RenderMode.EVERY && swarm.getTicks() % options.renderInterval == 0) {
+		printMaze(new PathView(maze, solutions(swarm.getPlayers())));
+	    }
+
+	    if (options.delay > 0) {
+		try {
+		    TimeUnit.MILLISECONDS.sleep(options.delay);
+		} catch (final InterruptedException e) {}
+	    }
+	}
+	final long elapsed = System.nanoTime() - startTime;
+
+	if (options.render == RenderMode.FINAL || options.render == RenderMode.ANSI) {
+	    printMaze(new PathView(maze, solutions(swarm.getPlayers())));
+	}
+
+	final SolverMetrics metrics = new SolverMetrics();
+	int won = 0;
+	for (final Player player : swarm.getPlayers()) {
+	    final SolverMetrics played = player.getMetrics();
+	    metrics.setNodesExpanded(metrics.getNodesExpanded() + played.getNodesExpanded());
+	    metrics.setBacktracks(metrics.getBacktracks() + played.getBacktracks());
+	    metrics.setPeakFrontier(metrics.getPeakFrontier() + played.getPeakFrontier());
+	    metrics.setAllocatedBytes(metrics.getAllocatedBytes() + played.getAllocatedBytes());
+	    metrics.setPathLength(Math.max(metrics.getPathLength(), played.getPathLength()));
+	    if (player.hasWon()) won++;
+	}
+	System.out.printf("%d of %d mice found the cheese in %d ticks, %.3f ms%n", won, swarm.getPlayers().size(),
+		swarm.getTicks(), elapsed / 1e6);
+
+	metrics.setSolver(Swarm.class.getSimpleName());
+	metrics.setSize(maze.getWidth(), maze.getHeight());
+	metrics.setSolveNanos(elapsed);
+	return metrics;
+    }
+
+    /**
+     * @return The path of every Player, each from its start to where it is now.
+     */
+    private static List<List<Coordinate>> solutions(final List<Player> players) {
+	final List<List<Coordinate>> paths = new ArrayList<>(players.size());
+	for (final Player player : players) {
+	    final List<Coordinate> path = new ArrayList<>(player.getSolution());
+	    path.add(0, player.getPosition());
+	    paths.add(path);
+	}
+	return paths;
+    }
+
+    /**
+     * Plans a path from every mouse to its nearest cheese that never puts two
+     * mice in the same place at the same time.
+     *
+     * @return What planning cost, summed over every mouse.
+     */
+    private static SolverMetrics runAgents(final Maze maze, final List<Coordinate> mice, final Options options)
+	    throws InvalidPositionException {
+	final long startTime = System.nanoTime();
+	final List<SolverResult> results = new MultiAgentPlanner(maze).plan(mice);
+	final long elapsed = System.nanoTime() - startTime;
+
+	final List<List<Coordinate>> paths = new ArrayList<>(results.size());
+	final SolverMetrics metrics = new SolverMetrics();
+	int solved = 0;
+	for (int i = 0; i < results.size(); i++) {
+	    final SolverResult result = results.get(i);
+	    paths.add(result.getPath());
+	    metrics.setNodesExpanded(metrics.getNodesExpanded() + result.getNodesExpanded());
+	    metrics.setPathLength(Math.max(metrics.getPathLength(), result.getLength()));
+	    if (result.isSolved()) solved++;
+	    System.out.println(mice.get(i) + ": " + (result.isSolved() ? result.getPath() : "no path to a cheese"));
+	}
+	if (options.render != RenderMode.NONE) {
+	    printMaze(new PathView(maze, paths));
+	}
+	System.out.printf("agents: planned %d of %d mice, %.3f ms%n", solved, mice.size(), elapsed / 1e6);
+
+	metrics.setSolver(MultiAgentPlanner.class.getSimpleName());
+	metrics.setSize(maze.getWidth(), maze.getHeight());
+	metrics.setSolveNanos(elapsed);
+	return metrics;
+    }
+
+    /**
+     * Streams the maze to standard output followed by a blank line.
+     */
+    private static void printMaze(final HexView maze) {
+	try {
+	    MazeRenderer.render(maze, OUT);
+	    OUT.write(System.lineSeparator());
+	    OUT.write(System.lineSeparator());
+	    OUT.flush();
+	} catch (final IOException e) {
+	    System.err.println("Couldn't print the maze.");
+	}
+    }
+
+    /**
+     * Draws the next frame of an animation, reporting rather than stopping if it
+     * can't be drawn.
+     */
+    private static void drawFrame(final AnsiRenderer animation) {
+	try {
+	    animation.drawFrame();
+	} catch (final IOException e) {
+	    System.err.println("Couldn't print the maze.");
+	}
+    }
+
+    /**
+     * Solves the maze in one go with a MazeSolver.
+     *
+     * @return What the solve cost, or null if the maze couldn't be solved.
+     */
+    private static SolverMetrics runSolver(final Maze maze, final Coordinate start, final Options options)
+	    throws InvalidPositionException {
+	final MazeSolver solver;
+	try {
+	    solver = MazeSolver.forName(options.solver);
+	} catch (final IllegalArgumentException e) {
+	    System.err.println(e.getMessage());
+	    return null;
+	}
+
+	final Coordinate goal = maze.find(HexType.CHEESE);
+	if (goal == null) {
+	    System.err.println("Maze has no cheese.");
+	    return null;
+	}
+
+	final long startTime = System.nanoTime();
+	final SolverResult result = solver.solve(maze, start, goal);
+	final long elapsed = System.nanoTime() - startTime;
+
+	if (!result.isSolved()) {
+	    System.out.println("No path to the cheese.");
+	} else {
+	    if (options.render != RenderMode.NONE) {
+		printMaze(new PathView(maze, Collections.singletonList(result.getPath())));
+	    }
+	    System.out.println(result.getPath());
+	}
+	System.out.printf("%s: %s, %.3f ms%n", options.solver, result, elapsed / 1e6);
+
+	final SolverMetrics metrics = result.getMetrics();
+	metrics.setSolveNanos(elapsed);
+	return metrics;
+    }
+
+    /**
+     * A maze with solved paths drawn over it as CURRENT_PATH.
+     */
+    private static class PathView implements HexView {
+	private final Maze   maze;
+	private final BitSet path = new BitSet();
+
+	PathView(final Maze maze, final List<List<Coordinate>> paths) {
+	    this.maze = maze;
+	    for (final List<Coordinate> path : paths) {
+		// The ends keep their MOUSE and CHEESE, so a path of a mouse that
+		// never moved, or only moved once, has nothing to draw.
+		if (path.size() < 3) continue;
+		for (final Coordinate c : path.subList(1, path.size() - 1)) {
+		    this.path.set(maze.index(c.getX(), c.getY()));
+		}
+	    }
+	}
+
+	@Override
+	public HexType get(final int index) {
+	    return path.get(index) ? HexType.CURRENT_PATH : maze.get(index);
+	}
+
+	@Override
+	public int getWidth() {
+	    return maze.getWidth();
+	}
+
+	@Override
+	public int getHeight() {
+	    return maze.getHeight();
+	}
+    }
+}
@@ -1,363 +1,666 @@
-package maze_solver;
-
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.InputMismatchException;
-import java.util.NoSuchElementException;
-import java.util.Scanner;
-
-
-/**
- * @author Terrence Plunkett
- */
-public class Maze {
-    /**
-     * A 1D ArrayList that contains HexType objects for every position in the maze.
-     * Used as a 2D grid.
-     */
-    private ArrayList<HexType> map;
-    /**
-     * Height of the maze.
-     */
-    int			       height = 0;
-    /**
-     * Width of the maze.
-     */
-    int			       width  = 0;
-
-    /**
-     * Represents the type of hex that is in the map.
-     */
-    public static enum HexType {
-	/**
-	 * @WALL Represented by 'W'. An impassable space.
-	 * @OPEN Represented by ' '. A space that can be moved through.
-	 * @MOUSE Represented by 'M'. Current position of the mouse. Starts at the start
-	 *        of the maze.
-	 * @CHEESE Represented by 'C'. End position of maze.
-	 * @CURRENT_PATH Represented by '*'. The resulting path travelled by the player
-	 *               from start to finish.
-	 * @INVALID_TYPE Represented by '!'. An invalid HexType.
-	 */
-	WALL('W'), @SuppressWarnings("javadoc")
-	OPEN(' '), @SuppressWarnings("javadoc")
-	MOUSE('M'), @SuppressWarnings("javadoc")
-	DEAD_END('x'), @SuppressWarnings("javadoc")
-	CHEESE('C'), @SuppressWarnings("javadoc")
-	CURRENT_PATH('*'), @SuppressWarnings("javadoc")
-	INVALID_TYPE('!');
-	/**
-	 * A character that will be printed when the object is printed.
-	 */
-	char display;
-
-	@Override
-	public String toString() {
-	    return new String() + display;
-	}
-
-	/**
-	 * Create a new HexType that is represented by display.
-	 *
-	 * @param display
-	 *            A character that represents the HexType when printed.
-	 */
-	HexType(final char display) {
-	    this.display = display;
-	}
-    }
-
-    /**
-     * Create a maze filled with HexType.OPEN of the input width and height.
-     *
-     * @param width
-     *            Width of maze.
-     * @param height
-     *            Height of maze.
-     */
-    public Maze(final int width, final int height) {
-	this.width = width;
-	this.height = height;
-	generateEmptyMap();
-    }
-
-    /**
-     * Fills the map with HexType.OPEN.
-     */
-    public void generateEmptyMap() {
-	map = new ArrayList<>(width * height);
-	for (int x = 0; x < width; x++) {
-	    for (int y = 0; y < height; y++) {
-		map.add(HexType.OPEN);
-	    }
-	}
-    }
-
-    /**
-     * Loads a hexagonal map from a text file. The file should adhere to the following example format but the maze can be any dimensions.
-     * The characters are according to the HexType constants except for open hexagons should be 'O'. Ignores extra characters after maze, spaces and newlines.
-     * @formatter:off
-     * <Begin example file>
-     * 6 6
-     * M O W W O W
-     *  W O W O O O
-     * O O W O W W
-     *  O W O O O W
-     * O W O W W O
-     *  O O W W W C
-     * <End example file>
-     * @formatter:on
-     *
-     * @param filePath Path of text file to load.
-     * @return Returns true if failed to load file, false if successfully loaded file.
-     * @throws FileNotFoundException If file doesn't exist.
-     */
-    public boolean loadFromFile(final String filePath) throws FileNotFoundException {
-	final File file = new File(filePath);
-	Scanner input = null;
-	char c;
-	HexType t;
-
-	try {
-	    input = new Scanner(file);
-	    width = input.nextInt();
-	    height = input.nextInt();
-
-	    generateEmptyMap();
-
-	    for (int i = 0; i < map.size(); i++) {
-		c = input.next().toUpperCase().charAt(0);
-
-		switch (c) {
-		case 'W':
-		    t = HexType.WALL;
-		    break;
-		case 'O':
-		    t = HexType.OPEN;
-		    break;
-		case 'M':
-		    t = HexType.MOUSE;
-		    break;
-		case 'X':
-		    t = HexType.DEAD_END;
-		    break;
-		case 'C':
-		    t = HexType.CHEESE;
-		    break;
-		default:
-		    t = HexType.INVALID_TYPE;
-		}
-		map.set(i, t);
-	    }
-	} catch (final Exception e) {
-	    if (input != null) {
-		input.close();
-	    }
-
-	    if (e instanceof InputMismatchException || e instanceof NoSuchElementException) {
-		System.err.println("Input file is invalid.");
-		return true;
-	    } else if (e instanceof FileNotFoundException) {
-		System.err.println("Input file '" + filePath + "' could not be read.");
-		return true;
-	    } else throw e;
-	}
-
-	input.close();
-	return false;
-
-    }
-
-    /**
-     * Change the type of hexagon at a specific position on the maze.
-     *
-     * @param x
-     *            X position in maze to set the type of.
-     * @param y
-     *            Y position in maze to set the type of.
-     * @param type
-     *            HexType enum for new type.
-     */
-    public void set(final int x, final int y, final HexType type) {
-	map.set(y * width + x, type);
-    }
-
-    /**
-     * Change the type of hexagon at a specific position on the maze.
-     *
-     * @param position
-     *            Coordinate object that describes the position in maze to set the
-     *            type of.
-     * @param type
-     *            HexType enum for new type.
-     */
-    public void set(final Coordinate position, final HexType type) {
-	set(position.getX(), position.getY(), type);
-    }
-
-    /**
-     * @param x
-     *            X Position in the maze to be returned.
-     * @param y
-     *            Y position in the maze to be returned.
-     * @return The HexType for the given position in the maze.
-     */
-    public HexType get(final int x, final int y) {
-	return map.get(y * width + x);
-    }
-
-    /**
-     * @param position
-     *            Coordinate object that describes the position in the maze to be
-     *            returned.
-     * @return The HexType for the given position in the maze.
-     */
-    public HexType get(final Coordinate position) {
-	return get(position.getX(), position.getY());
-    }
-
-    /**
-     * Calculate the Coordinates of the adjacent neighbour hexagons for the
-     * specified position. Doesn't include positions for hexagons that don't exist,
-     * IE outside maze bounds. Invalid neighbours are null. Return ArrayList indexes
-     * correlate to cardinal direction of neighbour as such where p is the input position:
-     * @formatter:off
-     *  5 0
-     * 4 p 1
-     *  3 2
-     * @formatter:on
-     *
-     * @param position
-     *            Coordinate object for the position we want the adjacent neighbours
-     *            of.
-     * @return ArrayList<Coordinate> of size 6 where invalid neighbours are null and
-     *         indexes correlate to neighbours cardinal direction.
-     * @throws InvalidPositionException
-     *             If position argument describes a position outside the maze.
-     */
-    public ArrayList<Coordinate> getNeighbours(final Coordinate position) throws InvalidPositionException {
-	final ArrayList<Coordinate> neighbours = new ArrayList<>(6);
-
-	if (position.getX() < 0 || position.getX() >= width)
-	    throw new InvalidPositionException(position, new Coordinate(getWidth(), getHeight()));
-	if (position.getY() < 0 || position.getY() >= height)
-	    throw new InvalidPositionException(position, new Coordinate(getWidth(), getHeight()));
-
-	// Add all neighbour positions but don't set positions that change for even and
-	// odd Y values
-	neighbours.add(null);
-	neighbours.add(new Coordinate(position.getX() + 1, position.getY() - 0));
-	neighbours.add(null);
-	neighbours.add(null);
-	neighbours.add(new Coordinate(position.getX() - 1, position.getY() - 0));
-	neighbours.add(null);
-
-	// Set neighbours for even and odd Y values respectively.
-	if (position.getY() % 2 == 0) {
-	    neighbours.set(0, new Coordinate(position.getX() + 0, position.getY() - 1));
-	    neighbours.set(2, new Coordinate(position.getX() + 0, position.getY() + 1));
-	    neighbours.set(3, new Coordinate(position.getX() - 1, position.getY() + 1));
-	    neighbours.set(5, new Coordinate(position.getX() - 1, position.getY() - 1));
-	} else {
-	    neighbours.set(0, new Coordinate(position.getX() + 1, position.getY() - 1));
-	    neighbours.set(2, new Coordinate(position.getX() + 1, position.getY() + 1));
-	    neighbours.set(3, new Coordinate(position.getX() + 0, position.getY() + 1));
-	    neighbours.set(5, new Coordinate(position.getX() + 0, position.getY() - 1));
-	}
-
-	// Remove neighbours that are outside the maze bounds.
-	if (position.getY() % 2 == 0) {
-	    if (position.getX() == 0) {
-		neighbours.set(3, null);
-		neighbours.set(4, null);
-		neighbours.set(5, null);
-	    }
-	    if (position.getX() == width - 1) {
-		neighbours.set(1, null);
-		neighbours.set(2, null);
-	    }
-	    if (position.getY() == 0) {
-		neighbours.set(0, null);
-		neighbours.set(5, null);
-	    }
-	    if (position.getY() == width - 1) {
-		neighbours.set(2, null);
-		neighbours.set(3, null);
-	    }
-	} else {
-	    if (position.getX() == 0) {
-		neighbours.set(4, null);
-	    }
-	    if (position.getX() == width - 1) {
-		neighbours.set(0, null);
-		neighbours.set(1, null);
-		neighbours.set(2, null);
-	    }
-	    if (position.getY() == 0) {
-		neighbours.set(0, null);
-		neighbours.set(5, null);
-	    }
-	    if (position.getY() == width - 1) {
-		neighbours.set(2, null);
-		neighbours.set(3, null);
-	    }
-	}
-
-	return neighbours;
-    }
-
-    /**
-     * Returns a printable maze using HexType characters for every hexagon. Every
-     * second row is offset by adding a space as the first character. Every hexagon
-     * character is separated with a space. An example below:
-     * @formatter:off
-     * W * W W W W
-     *  W * *   W W
-     * W W W W   W
-     *  W C       W
-     * W W W W W W
-     *  W W W W W W
-     * @formatter:on
-     */
-    @Override
-    public String toString() {
-	String output = "";
-
-	for (int y = 0; y < height; y++) {
-	    if ((y + 1) % 2 == 0) {
-		output += " "; // Add a space to offset every second line.
-	    }
-
-	    for (int x = 0; x < width; x++) {
-		if (map.get(y * height + x) == HexType.MOUSE) {
-		    output = output.substring(0, output.length() - 1);
-		    output += "[" + map.get(y * height + x) + "]";
-		} else {
-		    output += map.get(y * height + x) + " ";
-		}
-	    }
-	    output += "%n";
-	}
-
-	if (output.endsWith("%n")) {
-	    output = output.substring(0, output.length() - 2);
-	}
-	return String.format(output);
-    }
-
-    /**
-     * @return Width of maze.
-     */
-    public int getWidth() {
-	return width;
-    }
-
-    /**
-     * @return Height of maze.
-     */
-    public int getHeight() {
-	return height;
-    }
-
-}
+package maze_solver;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * @author Terrence Plunkett
+ */
+public class Maze implements HexView {
+    /**
+     * A 1D HexGrid that contains the HexType for every position in the maze. Used
+     * as a 2D grid.
+     */
+    private HexGrid	       map;
+    /**
+     * How the HexGrid stores every position in the maze.
+     */
+    private final Storage      storage;
+    /**
+     * Index offsets of the six neighbours, indexed by [y % 2][direction]. Depends
+     * on the width so is rebuilt with the map.
+     */
+    private final int[][]      neighbourOffsets	= new int[2][DIRECTIONS];
+    /**
+     * Incremented every time the maze changes. A plain int, since every set
+     * increments it; like the hexagons themselves, other threads see it through
+     * the locks of whatever they share, such as DistanceFieldCache.
+     */
+    private int		       version;
+    /**
+     * Told about every hexagon set in the maze.
+     */
+    private final List<MazeListener> listeners = new ArrayList<>();
+    /**
+     * Connected components of the maze, built by the first getComponents.
+     */
+    private ComponentLabels	       components;
+    /**
+     * Height of the maze.
+     */
+    int			       height = 0;
+    /**
+     * Width of the maze.
+     */
+    int			       width  = 0;
+
+    /**
+     * Number of neighbours a hexagon has.
+     */
+    public static final int    DIRECTIONS	= 6;
+    /**
+     * Change in x to get to each neighbour, indexed by [y % 2][direction]. Every
+     * second row is offset to the right, so the diagonal neighbours depend on the
+     * row parity.
+     */
+    static final int[][]       NEIGHBOUR_DX	= { { 0, 1, 0, -1, -1, -1 }, { 1, 1, 1, 0, -1, 0 } };
+    /**
+     * Change in y to get to each neighbour, indexed by direction.
+     */
+    static final int[]	       NEIGHBOUR_DY	= { -1, 0, 1, 1, 0, -1 };
+
+    /**
+     * Represents the type of hex that is in the map.
+     */
+    public static enum HexType {
+	/**
+	 * @WALL Represented by 'W'. An impassable space.
+	 * @OPEN Represented by ' '. A space that can be moved through.
+	 * @MOUSE Represented by 'M'. Current position of the mouse. Starts at the start
+	 *        of the maze.
+	 * @CHEESE Represented by 'C'. End position of maze.
+	 * @CURRENT_PATH Represented by '*'. The resulting path travelled by the player
+	 *               from start to finish.
+	 * @INVALID_TYPE Represented by '!'. An invalid HexType.
+	 */
+	WALL('W'), @SuppressWarnings("javadoc")
+	OPEN(' '), @SuppressWarnings("javadoc")
+	MOUSE('M'), @SuppressWarnings("javadoc")
+	DEAD_END('x'), @SuppressWarnings("javadoc")
+	CHEESE('C'), @SuppressWarnings("javadoc")
+	CURRENT_PATH('*'), @SuppressWarnings("javadoc")
+	INVALID_TYPE('!');
+	/**
+	 * Every HexType indexed by ordinal. Saves the copy made by values().
+	 */
+	private static final HexType[] VALUES = values();
+	/**
+	 * A character that will be printed when the object is printed.
+	 */
+	char			       display;
+
+	@Override
+	public String toString() {
+	    return new String() + display;
+	}
+
+	/**
+	 * Create a new HexType that is represented by display.
+	 *
+	 * @param display
+	 *            A character that represents the HexType when printed.
+	 */
+	HexType(final char display) {
+	    this.display = display;
+	}
+
+	/**
+	 * @param ordinal
+	 *            Ordinal of the HexType, as stored by a HexGrid.
+	 * @return The HexType with the given ordinal.
+	 */
+	static HexType fromOrdinal(final int ordinal) {
+	    return VALUES[ordinal];
+	}
+
+	/**
+	 * @return True if a player can move through a hexagon of this type.
+	 */
+	public boolean isPassable() {
+	    switch (this) {
+	    case OPEN:
+	    case MOUSE:
+	    case CHEESE:
+	    case CURRENT_PATH:
+		return true;
+	    default:
+		return false;
+	    }
+	}
+    }
+
+    /**
+     * Represents how the HexType of every position in the maze is stored.
+     */
+    public static enum Storage {
+	/**
+	 * @LIST One HexType reference per hexagon in an ArrayList.
+	 * @BYTE One byte per hexagon.
+	 * @PACKED Three bits per hexagon packed into longs. The smallest, for mazes
+	 *         with hundreds of millions of hexagons.
+	 */
+	LIST, @SuppressWarnings("javadoc")
+	BYTE, @SuppressWarnings("javadoc")
+	PACKED;
+
+	/**
+	 * Create a new HexGrid of size hexagons that are all HexType.OPEN.
+	 *
+	 * @param size
+	 *            Number of hexagons in the grid.
+	 * @return A HexGrid using this storage.
+	 */
+	public HexGrid create(final int size) {
+	    switch (this) {
+	    case LIST:
+		return new ListHexGrid(size);
+	    case PACKED:
+		return new PackedHexGrid(size);
+	    default:
+		return new ByteHexGrid(size);
+	    }
+	}
+    }
+
+    /**
+     * Create a maze filled with HexType.OPEN of the input width and height.
+     *
+     * @param width
+     *            Width of maze.
+     * @param height
+     *            Height of maze.
+     */
+    public Maze(final int width, final int height) {
+	this(width, height, Storage.BYTE);
+    }
+
+    /**
+     * Create a maze filled with HexType.OPEN of the input width and height.
+     *
+     * @param width
+     *            Width of maze.
+     * @param height
+     *            Height of maze.
+     * @param storage
+     *            How the HexType of every position in the maze is stored.
+     */
+    public Maze(final int width, final int height, final Storage storage) {
+	this.width = width;
+	this.height = height;
+	this.storage = storage;
+	generateEmptyMap();
+    }
+
+    /**
+     * Create a maze that uses an existing packed grid, like one mapped from a
+     * binary maze file.
+     *
+     * @param width
+     *            Width of maze.
+     * @param height
+     *            Height of maze.
+     * @param grid
+     *            Packed grid of width * height hexagons.
+     */
+    Maze(final int width, final int height, final PackedHexGrid grid) {
+	this.width = width;
+	this.height = height;
+	storage = Storage.PACKED;
+	map = grid;
+	computeNeighbourOffsets();
+    }
+
+    /**
+     * Fills the map with HexType.OPEN.
+     */
+    public void generateEmptyMap() {
+	map = storage.create(width * height);
+	computeNeighbourOffsets();
+	version++;
+    }
+
+    /**
+     * Loads a hexagonal map from a text file. The file should adhere to the following example format but the maze can be any dimensions.
+     * The characters are according to the HexType constants except for open hexagons should be 'O'. Ignores extra characters after maze, spaces and newlines.
+     * @formatter:off
+     * <Begin example file>
+     * 6 6
+     * M O W W O W
+     *  W O W O O O
+     * O O W O W W
+     *  O W O O O W
+     * O W O W W O
+     *  O O W W W C
+     * <End example file>
+     * @formatter:on
+     * Files in the BinaryMazeFormat are also accepted.
+     *
+     * @param filePath Path of text file to load.
+     * @return Returns true if failed to load file, false if successfully loaded file.
+     * @throws FileNotFoundException If file doesn't exist.
+     */
+    public boolean loadFromFile(final String filePath) throws FileNotFoundException {
+	try {
+	    read(Paths.get(filePath), this);
+	} catch (final NoSuchFileException e) {
+	    throw new FileNotFoundException(filePath);
+	} catch (final MazeFormatException e) {
+	    System.err.println("Input file is invalid. " + e.getMessage());
+	    return true;
+	} catch (final IOException e) {
+	    System.err.println("Input file '" + filePath + "' could not be read.");
+	    return true;
+	}
+	return false;
+    }
+
+    /**
+     * Reads a maze file in either the text or the binary format into a new maze.
+     *
+     * @param path
+     *            Maze file to read.
+     * @param storage
+     *            How the new maze stores its hexagons.
+     * @return The maze described by the file.
+     * @throws IOException
+     *             If the file can't be read.
+     * @throws MazeFormatException
+     *             If the file isn't a valid maze.
+     */
+    public static Maze read(final Path path, final Storage storage) throws IOException, MazeFormatException {
+	final Maze maze = new Maze(0, 0, storage);
+	read(path, maze);
+	return maze;
+    }
+
+    private static void read(final Path path, final Maze maze) throws IOException, MazeFormatException {
+	if (BinaryMazeFormat.isBinary(path)) {
+	    BinaryMazeFormat.read(path, maze);
+	} else {
+	    TextMazeFormat.read(path, maze);
+	}
+    }
+
+    /**
+     * Changes the size of the maze and fills it with HexType.OPEN.
+     *
+     * @param width
+     *            New width of maze.
+     * @param height
+     *            New height of maze.
+     */
+    void resize(final int width, final int height) {
+	this.width = width;
+	this.height = height;
+	generateEmptyMap();
+    }
+
+    /**
+     * Change the type of hexagon at a specific position on the maze.
+     *
+     * @param x
+     *            X position in maze to set the type of.
+     * @param y
+     *            Y position in maze to set the type of.
+     * @param type
+     *            HexType enum for new type.
+     */
+    public void set(final int x, final int y, final HexType type) {
+	set(index(x, y), type);
+    }
+
+    /**
+     * Change the type of hexagon at a specific position on the maze.
+     *
+     * @param position
+     *            Coordinate object that describes the position in maze to set the
+     *            type of.
+     * @param type
+     *            HexType enum for new type.
+     */
+    public void set(final Coordinate position, final HexType type) {
+	set(position.getX(), position.getY(), type);
+    }
+
+    /**
+     * @param x
+     *            X Position in the maze to be returned.
+     * @param y
+     *            Y position in the maze to be returned.
+     * @return The HexType for the given position in the maze.
+     */
+    public HexType get(final int x, final int y) {
+	return get(index(x, y));
+    }
+
+    /**
+     * @param position
+     *            Coordinate object that describes the position in the maze to be
+     *            returned.
+     * @return The HexType for the given position in the maze.
+     */
+    public HexType get(final Coordinate position) {
+	return get(position.getX(), position.getY());
+    }
+
+    /**
+     * Calculate the Coordinates of the adjacent neighbour hexagons for the
+     * specified position. Doesn't include positions for hexagons that don't exist,
+     * IE outside maze bounds. Invalid neighbours are null. Return ArrayList indexes
+     * correlate to cardinal direction of neighbour as such where p is the input position:
+     * @formatter:off
+     *  5 0
+     * 4 p 1
+     *  3 2
+     * @formatter:on
+     *
+     * @param position
+     *            Coordinate object for the position we want the adjacent neighbours
+     *            of.
+     * @return ArrayList<Coordinate> of size 6 where invalid neighbours are null and
+     *         indexes correlate to neighbours cardinal direction.
+     * @throws InvalidPositionException
+     *             If position argument describes a position outside the maze.
+     */
+    public ArrayList<Coordinate> getNeighbours(final Coordinate position) throws InvalidPositionException {
+	final ArrayList<Coordinate> neighbours = new ArrayList<>(DIRECTIONS);
+	final int x = position.getX();
+	final int y = position.getY();
+
+	if (!contains(x, y)) throw new InvalidPositionException(position, new Coordinate(getWidth(), getHeight()));
+
+	final int mask = neighbourMask(x, y);
+	for (int direction = 0; direction < DIRECTIONS; direction++) {
+	    if ((mask & 1 << direction) != 0) {
+		neighbours.add(new Coordinate(x + NEIGHBOUR_DX[y & 1][direction], y + NEIGHBOUR_DY[direction]));
+	    } else {
+		neighbours.add(null);
+	    }
+	}
+
+	return neighbours;
+    }
+
+    /**
+     * Calculate which of the six neighbour directions of a position are inside the
+     * maze bounds. Bit d of the result is set if the neighbour in direction d
+     * exists, using the same direction numbering as getNeighbours.
+     *
+     * @param x
+     *            X position in the maze.
+     * @param y
+     *            Y position in the maze.
+     * @return Bitmask of the valid neighbour directions.
+     */
+    public int neighbourMask(final int x, final int y) {
+	final int[] dx = NEIGHBOUR_DX[y & 1];
+	int mask = 0;
+
+	for (int direction = 0; direction < DIRECTIONS; direction++) {
+	    if (contains(x + dx[direction], y + NEIGHBOUR_DY[direction])) {
+		mask |= 1 << direction;
+	    }
+	}
+	return mask;
+    }
+
+    /**
+     * @param index
+     *            Index of a position in the maze, see index(x, y).
+     * @return Bitmask of the valid neighbour directions, see neighbourMask(x, y).
+     */
+    public int neighbourMask(final int index) {
+	return neighbourMask(xOf(index), yOf(index));
+    }
+
+    /**
+     * The amount to add to an index to get the index of its neighbour. Only valid
+     * when the direction is set in the neighbourMask of the position.
+     *
+     * @param y
+     *            Y position of the hexagon, only the row parity matters.
+     * @param direction
+     *            Neighbour direction from 0 to 5, as in getNeighbours.
+     * @return Index offset of the neighbour in the given direction.
+     */
+    public int neighbourOffset(final int y, final int direction) {
+	return neighbourOffsets[y & 1][direction];
+    }
+
+    /**
+     * @param index
+     *            Index of a position in the maze, see index(x, y).
+     * @param direction
+     *            Neighbour direction from 0 to 5, as in getNeighbours.
+     * @return Index of the neighbour in the given direction. Only valid when the
+     *         direction is set in the neighbourMask of the position.
+     */
+    public int neighbour(final int index, final int direction) {
+	return index + neighbourOffset(yOf(index), direction);
+    }
+
+    /**
+     * Builds the neighbour index offsets for the current width.
+     */
+    private void computeNeighbourOffsets() {
+	for (int parity = 0; parity < 2; parity++) {
+	    for (int direction = 0; direction < DIRECTIONS; direction++) {
+		neighbourOffsets[parity][direction] = NEIGHBOUR_DY[direction] * width
+			+ NEIGHBOUR_DX[parity][direction];
+	    }
+	}
+    }
+
+    /**
+     * @param x
+     *            X position.
+     * @param y
+     *            Y position.
+     * @return True if the position is inside the maze bounds.
+     */
+    public boolean contains(final int x, final int y) {
+	return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * @param x
+     *            X position in the maze.
+     * @param y
+     *            Y position in the maze.
+     * @return The index of the position, y * width + x.
+     */
+    public int index(final int x, final int y) {
+	return y * width + x;
+    }
+
+    /**
+     * @param index
+     *            Index of a position in the maze.
+     * @return X position of the index.
+     */
+    public int xOf(final int index) {
+	return index % width;
+    }
+
+    /**
+     * @param index
+     *            Index of a position in the maze.
+     * @return Y position of the index.
+     */
+    public int yOf(final int index) {
+	return index / width;
+    }
+
+    /**
+     * @param index
+     *            Index of the position in the maze to be returned, see index(x,
+     *            y).
+     * @return The HexType for the given position in the maze.
+     */
+    @Override
+    public HexType get(final int index) {
+	return map.get(index);
+    }
+
+    /**
+     * @param index
+     *            Index of a position in the maze, see index(x, y).
+     * @return True if a player can move through the position.
+     */
+    public boolean isPassable(final int index) {
+	return map.get(index).isPassable();
+    }
+
+    /**
+     * Finds the first position in the maze, scanning row by row, that has the
+     * given type.
+     *
+     * @param type
+     *            HexType to search for.
+     * @return Coordinate of the first position with the given type, or null if
+     *         there isn't one.
+     */
+    public Coordinate find(final HexType type) {
+	for (int i = 0; i < map.size(); i++) {
+	    if (map.get(i) == type) return new Coordinate(xOf(i), yOf(i));
+	}
+	return null;
+    }
+
+    /**
+     * Finds every position in the maze, scanning row by row, that has the given
+     * type.
+     *
+     * @param type
+     *            HexType to search for.
+     * @return Coordinates of every position with the given type, in index order.
+     */
+    public List<Coordinate> findAll(final HexType type) {
+	final List<Coordinate> found = new ArrayList<>();
+	for (int i = 0; i < map.size(); i++) {
+	    if (map.get(i) == type) found.add(new Coordinate(xOf(i), yOf(i)));
+	}
+	return found;
+    }
+
+    /**
+     * Change the type of hexagon at a specific position on the maze.
+     *
+     * @param index
+     *            Index of the position in the maze to set the type of, see
+     *            index(x, y).
+     * @param type
+     *            HexType enum for new type.
+     */
+    public void set(final int index, final HexType type) {
+	if (listeners.isEmpty()) {
+	    map.set(index, type);
+	    version++;
+	    return;
+	}
+
+	final HexType oldType = map.get(index);
+	map.set(index, type);
+	version++;
+	for (final MazeListener listener : listeners) {
+	    listener.cellChanged(this, index, oldType, type);
+	}
+    }
+
+    /**
+     * Labels the connected components of the maze the first time it is called.
+     * The same labels are returned from then on and follow changes to the maze.
+     *
+     * @return The connected components of the maze.
+     */
+    public synchronized ComponentLabels getComponents() {
+	if (components == null) components = new ComponentLabels(this);
+	return components;
+    }
+
+    /**
+     * @param listener
+     *            Told about every hexagon set in the maze from now on.
+     */
+    public void addListener(final MazeListener listener) {
+	listeners.add(listener);
+    }
+
+    /**
+     * @param listener
+     *            No longer told about changes to the maze.
+     */
+    public void removeListener(final MazeListener listener) {
+	listeners.remove(listener);
+    }
+
+    /**
+     * Returns a printable maze using HexType characters for every hexagon. Every
+     * second row is offset by adding a space as the first character. Every hexagon
+     * character is separated with a space. An example below:
+     * @formatter:off
+     * W * W W W W
+     *  W * *   W W
+     * W W W W   W
+     *  W C       W
+     * W W W W W W
+     *  W W W W W W
+     * @formatter:on
+     */
+    @Override
+    public String toString() {
+	final StringBuilder output = new StringBuilder((2 * width + 2) * height);
+
+	try {
+	    MazeRenderer.render(this, output);
+	} catch (final IOException e) {
+	    throw new AssertionError("StringBuilder doesn't throw IOException", e);
+	}
+	return output.toString();
+    }
+
+    /**
+     * @return Width of maze.
+     */
+    @Override
+    public int getWidth() {
+	return width;
+    }
+
+    /**
+     * @return Height of maze.
+     */
+    @Override
+    public int getHeight() {
+	return height;
+    }
+
+    /**
+     * @return A number that changes every time the maze is changed, so anything
+     *         computed from the maze can tell when it is out of date.
+     */
+    public int getVersion() {
+	return version;
+    }
+
+    /**
+     * @return How the HexType of every position in the maze is stored.
+     */
+    public Storage getStorage() {
+	return storage;
+    }
+
+    /**
+     * @return The grid holding every position in the maze.
+     */
+    HexGrid getGrid() {
+	return map;
+    }
+
+}
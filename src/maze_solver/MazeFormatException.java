@@ -0,0 +1,53 @@
+package maze_solver;
+
+/**
+ * Thrown when a maze file, or a checkpoint of a Player walking one, doesn't
+ * follow its format. Records where in the file the problem was found.
+ */
+public class MazeFormatException extends Exception {
+    private static final long serialVersionUID = 1L;
+    private final long line;
+    private final long column;
+
+    /**
+     * @param message
+     *            What is wrong with the file.
+     * @param line
+     *            Line the problem was found on, starting at 1.
+     * @param column
+     *            Column the problem was found at, starting at 1.
+     */
+    public MazeFormatException(final String message, final long line, final long column) {
+	super(String.format("%s at line %d, column %d", message, line, column));
+	this.line = line;
+	this.column = column;
+    }
+
+    /**
+     * For formats that don't have lines, like the binary format.
+     *
+     * @param message
+     *            What is wrong with the file.
+     */
+    public MazeFormatException(final String message) {
+	super(message);
+	line = 0;
+	column = 0;
+    }
+
+    /**
+     * @return Line the problem was found on, starting at 1, or 0 if the format
+     *         doesn't have lines.
+     */
+    public long getLine() {
+	return line;
+    }
+
+    /**
+     * @return Column the problem was found at, starting at 1, or 0 if the format
+     *         doesn't have lines.
+     */
+    public long getColumn() {
+	return column;
+    }
+}
@@ -0,0 +1,192 @@
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.junit.jupiter.api.Test;
+import maze_solver.Maze.HexType;
+import maze_solver.Maze.Storage;
+
+
+/**
+ * Tests reading and writing maze files.
+ */
+class MazeFormatTest {
+
+    @Test
+    void testParseText() throws MazeFormatException {
+	final Maze maze = new Maze(0, 0);
+
+	TextMazeFormat.parse(text("3 2\r\nW o Mouse\r\n x c W\r\n"), maze);
+	assertEquals(3, maze.getWidth());
+	assertEquals(2, maze.getHeight());
+	assertEquals(HexType.WALL, maze.get(0, 0));
+	assertEquals(HexType.OPEN, maze.get(1, 0));
+	assertEquals(HexType.MOUSE, maze.get(2, 0));
+	assertEquals(HexType.DEAD_END, maze.get(0, 1));
+	assertEquals(HexType.CHEESE, maze.get(1, 1));
+	assertEquals(HexType.WALL, maze.get(2, 1));
+    }
+
+    @Test
+    void testParseTextErrors() {
+	assertError("6\n", 2, 1);
+	assertError("2 2x\nW W\n", 1, 4);
+	assertError("2 2\nW W\n O", 3, 3);
+    }
+
+    @Test
+    void testLoadSameAsScanner() throws Exception {
+	final Maze maze = new Maze(0, 0);
+
+	assertTrue(!maze.loadFromFile("test_maze.txt"));
+	assertEquals(6, maze.getWidth());
+	assertEquals(6, maze.getHeight());
+	assertEquals(HexType.MOUSE, maze.get(2, 1));
+	assertEquals(HexType.CHEESE, maze.get(2, 4));
+	assertEquals(HexType.OPEN, maze.get(1, 3));
+	assertEquals(HexType.WALL, maze.get(5, 5));
+    }
+
+    @Test
+    void testBinaryRoundTrip() throws Exception {
+	final Path text = Files.createTempFile("maze", ".txt");
+	final Path binary = Files.createTempFile("maze", ".hxmz");
+	try {
+	    final Maze original = TextMazeFormat.read(Paths.get("maze.txt"), Storage.BYTE);
+
+	    BinaryMazeFormat.textToBinary(Paths.get("maze.txt"), binary);
+	    assertTrue(BinaryMazeFormat.isBinary(binary));
+	    assertTrue(Files.size(binary) < Files.size(Paths.get("maze.txt")));
+	    assertSameMaze(original, BinaryMazeFormat.map(binary));
+	    for (final Storage storage : Storage.values()) {
+		assertSameMaze(original, BinaryMazeFormat.read(binary, storage));
+	    }
+
+	    BinaryMazeFormat.binaryToText(binary, text);
+	    assertSameMaze(original, TextMazeFormat.read(text, Storage.LIST));
+
+	    final Maze loaded = new Maze(0, 0);
+	    assertTrue(!loaded.loadFromFile(binary.toString()));
+	    assertSameMaze(original, loaded);
+	} finally {
+	    Files.delete(text);
+	    Files.delete(binary);
+	}
+    }
+
+    @Test
+    void testRowReader() throws Exception {
+	final Path text = Files.createTempFile("maze", ".txt");
+	final Path binary = Files.createTempFile("maze", ".hxmz");
+	try {
+	    // Rows of 47 don't line up with the 21 hexagons in each binary word.
+	    final Maze original = MazeGenerator.generate(47, 13, MazeGenerator.Algorithm.KRUSKAL, 8);
+	    TextMazeFormat.write(original, text);
+	    BinaryMazeFormat.write(original, binary);
+
+	    for (final Path path : new Path[] { text, binary }) {
+		try (MazeRowReader rows = MazeRowReader.open(path)) {
+		    final HexType[] row = new HexType[rows.getWidth()];
+		    assertEquals(47, rows.getWidth());
+		    assertEquals(13, rows.getHeight());
+
+		    int index = 0;
+		    while (rows.readRow(row)) {
+			for (final HexType type : row) {
+			    assertEquals(path + " index " + index, original.get(index++), type);
+			}
+		    }
+		    assertEquals(47 * 13, index);
+		}
+	    }
+
+	    Files.write(text, "3 2\nW O W\n O W".getBytes(StandardCharsets.US_ASCII));
+	    try (MazeRowReader rows = MazeRowReader.open(text)) {
+		final HexType[] row = new HexType[3];
+		assertTrue(rows.readRow(row));
+		rows.readRow(row);
+		fail("Expected MazeFormatException for a short row");
+	    } catch (final MazeFormatException e) {
+		assertEquals(3, e.getLine());
+	    }
+	} finally {
+	    Files.delete(text);
+	    Files.delete(binary);
+	}
+    }
+
+    @Test
+    void testBinaryErrors() throws IOException {
+	final Path binary = Files.createTempFile("maze", ".hxmz");
+	try {
+	    try {
+		Files.write(binary, new byte[] { 'H', 'X', 'M', 'Z', 9, 0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0 });
+		BinaryMazeFormat.map(binary);
+		fail("Expected MazeFormatException for version 9");
+	    } catch (final MazeFormatException e) {
+		assertEquals(0, e.getLine());
+	    }
+
+	    BinaryMazeFormat.write(MazeGenerator.generate(30, 20, MazeGenerator.Algorithm.PRIM, 2), binary);
+	    // Every value from HexType.values().length up fits in 3 bits but isn't a
+	    // HexType. Hexagon 25 is the fifth of the second word.
+	    final byte[] bytes = Files.readAllBytes(binary);
+	    final int bit = 4 * PackedHexGrid.BITS;
+	    for (int b = 0; b < PackedHexGrid.BITS; b++) {
+		bytes[BinaryMazeFormat.HEADER_SIZE + Long.BYTES + (bit + b) / 8] |= 1 << (bit + b) % 8;
+	    }
+	    Files.write(binary, bytes);
+
+	    for (final Storage storage : new Storage[] { null, Storage.BYTE }) {
+		try {
+		    if (storage == null) {
+			BinaryMazeFormat.map(binary);
+		    } else {
+			BinaryMazeFormat.read(binary, storage);
+		    }
+		    fail("Expected MazeFormatException for hexagon value 7");
+		} catch (final MazeFormatException e) {
+		    assertTrue(e.getMessage(), e.getMessage().contains("index 25"));
+		}
+	    }
+	    try (MazeRowReader rows = MazeRowReader.open(binary)) {
+		final HexType[] row = new HexType[rows.getWidth()];
+		while (rows.readRow(row)) {}
+		fail("Expected MazeFormatException for hexagon value 7 read by row");
+	    } catch (final MazeFormatException e) {
+		assertTrue(e.getMessage(), e.getMessage().contains("index 25"));
+	    }
+	} finally {
+	    Files.delete(binary);
+	}
+    }
+
+    static void assertSameMaze(final Maze expected, final Maze actual) {
+	assertEquals(expected.getWidth(), actual.getWidth());
+	assertEquals(expected.getHeight(), actual.getHeight());
+	for (int i = 0; i < expected.getWidth() * expected.getHeight(); i++) {
+	    assertEquals("Index " + i, expected.get(i), actual.get(i));
+	}
+    }
+
+    private static void assertError(final String text, final int line, final int column) {
+	try {
+	    TextMazeFormat.parse(text(text), new Maze(0, 0));
+	    fail("Expected MazeFormatException for " + text);
+	} catch (final MazeFormatException e) {
+	    assertEquals(e.getMessage(), line, e.getLine());
+	    assertEquals(e.getMessage(), column, e.getColumn());
+	}
+    }
+
+    private static ByteBuffer text(final String text) {
+	return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,377 @@
+package maze_solver;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.SplittableRandom;
+import maze_solver.Maze.HexType;
+import maze_solver.Maze.Storage;
+
+
+/**
+ * Generates random mazes of any size for load testing. The same seed always
+ * generates the same maze. Every maze is surrounded by walls and has one mouse
+ * and one cheese with a path between them.
+ */
+public class MazeGenerator {
+    /**
+     * Fraction of hexagons that are walls in an Algorithm.OPEN_FIELD maze.
+     */
+    static final double OPEN_FIELD_WALLS = 0.15;
+    /**
+     * Number of rows Algorithm.KRUSKAL shuffles together.
+     */
+    static final int	KRUSKAL_BAND	 = 64;
+
+    /**
+     * How the maze is carved.
+     */
+    public static enum Algorithm {
+	/**
+	 * @RECURSIVE_BACKTRACKER Long winding corridors with few branches. The cheese
+	 *                        is at the end of the longest corridor.
+	 * @KRUSKAL Opens hexagons in a random order unless they would join up a
+	 *          loop. Many short dead ends.
+	 * @PRIM Grows outwards from the start. Many short dead ends.
+	 * @OPEN_FIELD Mostly open with randomly scattered walls, so has many paths.
+	 */
+	RECURSIVE_BACKTRACKER, @SuppressWarnings("javadoc")
+	KRUSKAL, @SuppressWarnings("javadoc")
+	PRIM, @SuppressWarnings("javadoc")
+	OPEN_FIELD
+    }
+
+    /**
+     * States of a hexagon while the maze is being carved.
+     */
+    private static final byte	   WALL	  = 0;
+    private static final byte	   OPEN	  = 1;
+    private static final byte	   BORDER = 2;
+
+    private final Maze		   maze;
+    private final SplittableRandom random;
+    private final int		   width;
+    private final int		   height;
+    /**
+     * State of every hexagon. Carving works on this rather than the maze so each
+     * hexagon is a single byte lookup, and the maze is only set once at the end.
+     */
+    private final byte[]	   cells;
+    /**
+     * Index offsets of the six neighbours, indexed by [y % 2][direction].
+     */
+    private final int[][]	   offsets;
+
+    private MazeGenerator(final Maze maze, final long seed) {
+	this.maze = maze;
+	random = new SplittableRandom(seed);
+	width = maze.getWidth();
+	height = maze.getHeight();
+	cells = new byte[width * height];
+	offsets = new int[2][Maze.DIRECTIONS];
+	for (int d = 0; d < Maze.DIRECTIONS; d++) {
+	    offsets[0][d] = maze.neighbourOffset(0, d);
+	    offsets[1][d] = maze.neighbourOffset(1, d);
+	}
+	// The border is never opened, so marking it means interior hexagons never
+	// need a bounds check.
+	for (int x = 0; x < width; x++) {
+	    cells[x] = BORDER;
+	    cells[(height - 1) * width + x] = BORDER;
+	}
+	for (int y = 0; y < height; y++) {
+	    cells[y * width] = BORDER;
+	    cells[y * width + width - 1] = BORDER;
+	}
+    }
+
+    /**
+     * @see #generate(int, int, Algorithm, long, Storage)
+     */
+    public static Maze generate(final int width, final int height, final Algorithm algorithm, final long seed) {
+	return generate(width, height, algorithm, seed, Storage.BYTE);
+    }
+
+    /**
+     * Generates a random maze.
+     *
+     * @param width
+     *            Width of maze, at least 3.
+     * @param height
+     *            Height of maze, at least 3.
+     * @param algorithm
+     *            How the maze is carved.
+     * @param seed
+     *            Seed for the random choices.
+     * @param storage
+     *            How the maze stores its hexagons.
+     * @return A new maze with one MOUSE and one CHEESE.
+     */
+    public static Maze generate(final int width, final int height, final Algorithm algorithm, final long seed,
+	    final Storage storage) {
+	if (width < 3 || height < 3) throw new IllegalArgumentException("Maze must be at least 3x3");
+
+	final Maze maze = new Maze(width, height, storage);
+	final MazeGenerator generator = new MazeGenerator(maze, seed);
+
+	switch (algorithm) {
+	case RECURSIVE_BACKTRACKER:
+	    generator.recursiveBacktracker();
+	    break;
+	case KRUSKAL:
+	    generator.kruskal();
+	    break;
+	case PRIM:
+	    generator.prim();
+	    break;
+	default:
+	    generator.openField();
+	}
+	return maze;
+    }
+
+    /**
+     * Carves a depth first walk from (1, 1), always moving to a random hexagon
+     * that can be opened and backtracking when there are none.
+     */
+    private void recursiveBacktracker() {
+	final int start = maze.index(1, 1);
+	final int[] candidates = new int[Maze.DIRECTIONS];
+	int[] stack = new int[1024];
+	int size = 0;
+	int deepest = start;
+	int deepestSize = 0;
+
+	cells[start] = OPEN;
+	stack[size++] = start;
+	while (size > 0) {
+	    final int current = stack[size - 1];
+	    final int parity = current / width & 1;
+	    int count = 0;
+
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		final int n = current + offsets[parity][d];
+		if (canOpen(n, parity ^ Maze.NEIGHBOUR_DY[d] & 1)) candidates[count++] = n;
+	    }
+
+	    if (count == 0) {
+		size--;
+		continue;
+	    }
+
+	    final int next = candidates[random.nextInt(count)];
+	    cells[next] = OPEN;
+	    if (size == stack.length) stack = Arrays.copyOf(stack, size * 2);
+	    stack[size++] = next;
+	    if (size > deepestSize) {
+		deepestSize = size;
+		deepest = next;
+	    }
+	}
+	copyToMaze(start, deepest);
+    }
+
+    /**
+     * Opens random frontier hexagons next to the open area as long as they only
+     * touch one open hexagon.
+     */
+    private void prim() {
+	final int start = maze.index(1, 1);
+	final BitSet seen = new BitSet(width * height);
+	int[] frontier = new int[1024];
+	int size = 0;
+	int last = start;
+
+	cells[start] = OPEN;
+	seen.set(start);
+	int current = start;
+	while (current != -1) {
+	    // Add the walls around the newly opened hexagon to the frontier.
+	    final int parity = current / width & 1;
+	    for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		final int n = current + offsets[parity][d];
+		if (cells[n] == WALL && !seen.get(n)) {
+		    seen.set(n);
+		    if (size == frontier.length) frontier = Arrays.copyOf(frontier, size * 2);
+		    frontier[size++] = n;
+		}
+	    }
+
+	    current = -1;
+	    while (size > 0 && current == -1) {
+		final int i = random.nextInt(size);
+		final int candidate = frontier[i];
+		frontier[i] = frontier[--size];
+		if (canOpen(candidate, candidate / width & 1)) current = candidate;
+	    }
+	    if (current != -1) {
+		cells[current] = OPEN;
+		last = Math.max(last, current);
+	    }
+	}
+	copyToMaze(start, last);
+    }
+
+    /**
+     * Visits every interior hexagon in a random order and opens it unless two of
+     * its open neighbours are already connected, which would make a loop. Huge
+     * mazes are shuffled in bands of KRUSKAL_BAND rows rather than all at once,
+     * so the hexagons being visited stay in the cache.
+     */
+    private void kruskal() {
+	final int[] order = new int[(width - 2) * (height - 2)];
+	final int[] parent = new int[width * height];
+	final int[] roots = new int[Maze.DIRECTIONS];
+
+	for (int y = 1, i = 0; y < height - 1; y++) {
+	    for (int x = 1; x < width - 1; x++) {
+		order[i++] = y * width + x;
+	    }
+	}
+	final int band = KRUSKAL_BAND * (width - 2);
+	for (int bandStart = 0; bandStart < order.length; bandStart += band) {
+	    final int bandEnd = Math.min(order.length, bandStart + band);
+	    for (int i = bandEnd - 1; i > bandStart; i--) {
+		final int j = bandStart + random.nextInt(i - bandStart + 1);
+		final int t = order[i];
+		order[i] = order[j];
+		order[j] = t;
+	    }
+	}
+
+	for (final int cell : order) {
+	    final int parity = cell / width & 1;
+	    int count = 0;
+	    boolean loop = false;
+
+	    for (int d = 0; d < Maze.DIRECTIONS && !loop; d++) {
+		final int n = cell + offsets[parity][d];
+		if (cells[n] != OPEN) continue;
+
+		final int root = find(parent, n);
+		for (int i = 0; i < count; i++) {
+		    if (roots[i] == root) loop = true;
+		}
+		roots[count++] = root;
+	    }
+	    if (loop) continue;
+
+	    cells[cell] = OPEN;
+	    parent[cell] = count == 0 ? cell : roots[0];
+	    for (int i = 1; i < count; i++) {
+		parent[roots[i]] = roots[0];
+	    }
+	}
+
+	// The open hexagons are a forest, so the cheese has to be in the same tree
+	// as the mouse.
+	final int start = order[0];
+	final int startRoot = find(parent, start);
+	int goal = start;
+	for (int i = cells.length - 1; i >= 0; i--) {
+	    if (cells[i] == OPEN && i != start && find(parent, i) == startRoot) {
+		goal = i;
+		break;
+	    }
+	}
+	copyToMaze(start, goal);
+    }
+
+    /**
+     * Scatters walls over an open maze and keeps the corners clear for the mouse
+     * and cheese.
+     */
+    private void openField() {
+	for (int i = 0; i < cells.length; i++) {
+	    if (cells[i] == WALL && random.nextDouble() >= OPEN_FIELD_WALLS) cells[i] = OPEN;
+	}
+	// Clear a path along the top and down the right side so there is always
+	// a way from the mouse to the cheese.
+	for (int x = 1; x < width - 1; x++) {
+	    cells[width + x] = OPEN;
+	}
+	for (int y = 1; y < height - 1; y++) {
+	    cells[y * width + width - 2] = OPEN;
+	}
+	copyToMaze(maze.index(1, 1), maze.index(width - 2, height - 2));
+    }
+
+    /**
+     * @param index
+     *            Index of a hexagon next to an open one.
+     * @param parity
+     *            Row parity of the hexagon.
+     * @return True if index is an interior wall whose only open neighbour is the
+     *         hexagon it would be opened from.
+     */
+    private boolean canOpen(final int index, final int parity) {
+	if (cells[index] != WALL) return false;
+
+	int open = 0;
+	for (int d = 0; d < Maze.DIRECTIONS; d++) {
+	    if (cells[index + offsets[parity][d]] == OPEN && ++open > 1) return false;
+	}
+	return true;
+    }
+
+    /**
+     * Sets every hexagon of the maze from the carved cells.
+     *
+     * @param mouse
+     *            Index of the mouse.
+     * @param cheese
+     *            Index of the cheese.
+     */
+    private void copyToMaze(final int mouse, final int cheese) {
+	for (int i = 0; i < cells.length; i++) {
+	    maze.set(i, cells[i] == OPEN ? HexType.OPEN : HexType.WALL);
+	}
+	maze.set(mouse, HexType.MOUSE);
+	maze.set(cheese, HexType.CHEESE);
+    }
+
+    private static int find(final int[] parent, int i) {
+	while (parent[i] != i) {
+	    parent[i] = parent[parent[i]];
+	    i = parent[i];
+	}
+	return i;
+    }
+
+    /**
+     * Generates a maze and writes it to a file, in the binary format if the file
+     * name ends in .hxmz and the text format otherwise.
+     *
+     * @param args
+     *            Width, height, algorithm, seed and output file.
+     */
+    public static void main(final String[] args) {
+	if (args.length != 5) {
+	    System.err.println("Usage: MazeGenerator <width> <height> <algorithm> <seed> <output maze>");
+	    System.err.println("Algorithms: " + Arrays.toString(Algorithm.values()));
+	    return;
+	}
+
+	try {
+	    final int width = Integer.parseInt(args[0]);
+	    final int height = Integer.parseInt(args[1]);
+	    final Algorithm algorithm = Algorithm.valueOf(args[2].toUpperCase());
+	    final long seed = Long.parseLong(args[3]);
+	    final long startTime = System.nanoTime();
+	    final Maze maze = generate(width, height, algorithm, seed);
+	    final long elapsed = System.nanoTime() - startTime;
+
+	    if (args[4].endsWith(".hxmz")) {
+		BinaryMazeFormat.write(maze, Paths.get(args[4]));
+	    } else {
+		TextMazeFormat.write(maze, Paths.get(args[4]));
+	    }
+	    System.out.printf("Generated %dx%d %s maze in %.3f ms%n", width, height, algorithm, elapsed / 1e6);
+	} catch (final IllegalArgumentException e) {
+	    System.err.println(e.getMessage());
+	} catch (final IOException e) {
+	    System.err.println("Couldn't write '" + args[4] + "': " + e.getMessage());
+	}
+    }
+}
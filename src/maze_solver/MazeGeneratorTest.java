@@ -0,0 +1,71 @@
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.jupiter.api.Test;
+import maze_solver.Maze.HexType;
+import maze_solver.MazeGenerator.Algorithm;
+
+
+/**
+ * Tests every MazeGenerator algorithm makes a valid, solvable maze.
+ */
+class MazeGeneratorTest {
+
+    @Test
+    void testSolvable() throws InvalidPositionException {
+	for (final Algorithm algorithm : Algorithm.values()) {
+	    final Maze maze = MazeGenerator.generate(41, 23, algorithm, 7);
+
+	    assertEquals(algorithm.toString(), 1, count(maze, HexType.MOUSE));
+	    assertEquals(algorithm.toString(), 1, count(maze, HexType.CHEESE));
+	    for (int x = 0; x < maze.getWidth(); x++) {
+		assertEquals(HexType.WALL, maze.get(x, 0));
+		assertEquals(HexType.WALL, maze.get(x, maze.getHeight() - 1));
+	    }
+	    for (int y = 0; y < maze.getHeight(); y++) {
+		assertEquals(HexType.WALL, maze.get(0, y));
+		assertEquals(HexType.WALL, maze.get(maze.getWidth() - 1, y));
+	    }
+
+	    final SolverResult result = new BreadthFirstSolver().solve(maze, maze.find(HexType.MOUSE),
+		    maze.find(HexType.CHEESE));
+	    assertTrue(algorithm.toString(), result.isSolved());
+	}
+    }
+
+    @Test
+    void testSameSeedSameMaze() {
+	for (final Algorithm algorithm : Algorithm.values()) {
+	    MazeFormatTest.assertSameMaze(MazeGenerator.generate(30, 30, algorithm, 42),
+		    MazeGenerator.generate(30, 30, algorithm, 42));
+	}
+    }
+
+    @Test
+    void testBacktrackerHasNoLoops() {
+	final Maze maze = MazeGenerator.generate(60, 60, Algorithm.RECURSIVE_BACKTRACKER, 3);
+	int open = 0;
+	int edges = 0;
+
+	for (int i = 0; i < maze.getWidth() * maze.getHeight(); i++) {
+	    if (!maze.isPassable(i)) continue;
+
+	    open++;
+	    final int mask = maze.neighbourMask(i);
+	    for (int d = 0; d < 3; d++) { // Each edge is counted from one end only.
+		if ((mask & 1 << d + 1) != 0 && maze.isPassable(maze.neighbour(i, d + 1))) edges++;
+	    }
+	}
+	// A connected area without loops is a tree.
+	assertEquals(open - 1, edges);
+    }
+
+    private static int count(final Maze maze, final HexType type) {
+	int count = 0;
+	for (int i = 0; i < maze.getWidth() * maze.getHeight(); i++) {
+	    if (maze.get(i) == type) count++;
+	}
+	return count;
+    }
+}
@@ -0,0 +1,27 @@
+package maze_solver;
+
+import maze_solver.Maze.HexType;
+
+
+/**
+ * Told about every change made to a Maze it has been added to with
+ * Maze.addListener, or to what a Player shows of its maze with
+ * Player.addListener.
+ */
+public interface MazeListener {
+    /**
+     * Called after a hexagon in the maze has been set, even if its type didn't
+     * change. Not called when the whole maze is resized, check the width and
+     * height of the maze to notice that.
+     *
+     * @param maze
+     *            Maze that changed.
+     * @param index
+     *            Index of the hexagon that was set, see Maze.index(x, y).
+     * @param oldType
+     *            HexType of the hexagon before it was set.
+     * @param newType
+     *            HexType of the hexagon now.
+     */
+    void cellChanged(Maze maze, int index, HexType oldType, HexType newType);
+}
@@ -0,0 +1,57 @@
+package maze_solver;
+
+import java.io.IOException;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * Writes a printable maze to an Appendable in a single pass, one character at a
+ * time, so large mazes can be streamed to a file or the console without
+ * building the whole output in memory.
+ */
+public class MazeRenderer {
+    private static final String NEWLINE = System.lineSeparator();
+
+    private MazeRenderer() {}
+
+    /**
+     * Writes the maze using HexType characters for every hexagon. Every second row
+     * is offset by adding a space as the first character. Every hexagon character
+     * is separated with a space, except the mouse which is surrounded by brackets
+     * instead. Rows are separated by the system line separator with no trailing
+     * line separator.
+     *
+     * @param maze
+     *            Maze, or a view of a maze being solved, to write.
+     * @param out
+     *            Where to write the maze. Should be buffered when it's a stream.
+     * @throws IOException
+     *             If out can't be written to.
+     */
+    public static void render(final HexView maze, final Appendable out) throws IOException {
+	final int width = maze.getWidth();
+	final int height = maze.getHeight();
+
+	for (int y = 0; y < height; y++) {
+	    // The space before each hexagon is only written once the hexagon is known,
+	    // so it can be replaced by the opening bracket of the mouse.
+	    boolean space = y % 2 == 1; // Add a space to offset every second line.
+	    int index = y * width;
+
+	    for (int x = 0; x < width; x++, index++) {
+		final HexType type = maze.get(index);
+
+		if (type == HexType.MOUSE) {
+		    out.append('[').append(type.display).append(']');
+		    space = false;
+		} else {
+		    if (space) out.append(' ');
+		    out.append(type.display);
+		    space = true;
+		}
+	    }
+	    if (space) out.append(' ');
+	    if (y < height - 1) out.append(NEWLINE);
+	}
+    }
+}
@@ -0,0 +1,256 @@
+package maze_solver;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * Reads a maze file one row at a time, so that mazes too large for the heap can
+ * be converted or scanned with only a row of them in memory. Reads both the text
+ * and the binary formats.
+ */
+public abstract class MazeRowReader implements Closeable {
+    /**
+     * Size in bytes of the buffer the file is read through.
+     */
+    static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Width of the maze, set once the header has been read.
+     */
+    int width;
+    /**
+     * Height of the maze, set once the header has been read.
+     */
+    int height;
+    /**
+     * Number of rows read so far.
+     */
+    int row = 0;
+
+    /**
+     * Opens a maze file and reads its header.
+     *
+     * @param path
+     *            Text or binary maze file to read.
+     * @return A reader positioned before the first row.
+     * @throws IOException
+     *             If the file can't be read.
+     * @throws MazeFormatException
+     *             If the file's header isn't valid.
+     */
+    public static MazeRowReader open(final Path path) throws IOException, MazeFormatException {
+	if (BinaryMazeFormat.isBinary(path)) {
+	    final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+	    try {
+		return new Binary(channel);
+	    } catch (IOException | MazeFormatException | RuntimeException e) {
+		channel.close();
+		throw e;
+	    }
+	}
+
+	final InputStream in = Files.newInputStream(path);
+	try {
+	    return new Text(in);
+	} catch (IOException | MazeFormatException | RuntimeException e) {
+	    in.close();
+	    throw e;
+	}
+    }
+
+    /**
+     * @return Width of the maze, the length of every row.
+     */
+    public int getWidth() {
+	return width;
+    }
+
+    /**
+     * @return Number of rows in the maze.
+     */
+    public int getHeight() {
+	return height;
+    }
+
+    /**
+     * @return Number of rows read so far, which is the y position of the next row.
+     */
+    public int getRow() {
+	return row;
+    }
+
+    /**
+     * Reads the next row of the maze.
+     *
+     * @param hexagons
+     *            Array of at least getWidth() HexTypes to read the row into.
+     * @return False, leaving hexagons unchanged, if every row has already been
+     *         read.
+     * @throws IOException
+     *             If the file can't be read.
+     * @throws MazeFormatException
+     *             If the row isn't valid or the file ends too early.
+     */
+    public boolean readRow(final HexType[] hexagons) throws IOException, MazeFormatException {
+	if (row == height) return false;
+
+	read(hexagons);
+	row++;
+	return true;
+    }
+
+    /**
+     * Reads width hexagons into the array.
+     */
+    abstract void read(HexType[] hexagons) throws IOException, MazeFormatException;
+
+    /**
+     * Parses the text format from a stream, byte by byte like TextMazeFormat.
+     */
+    private static class Text extends MazeRowReader {
+	private final InputStream in;
+	private final byte[]	  buffer = new byte[BUFFER_SIZE];
+	private int		  position;
+	private int		  limit;
+	private long		  line	 = 1;
+	private long		  column = 1;
+
+	Text(final InputStream in) throws IOException, MazeFormatException {
+	    this.in = in;
+	    width = readSize("width");
+	    height = readSize("height");
+	    if ((long) width * height > Integer.MAX_VALUE)
+		throw error("Maze of " + width + "x" + height + " is too large");
+	}
+
+	@Override
+	void read(final HexType[] hexagons) throws IOException, MazeFormatException {
+	    for (int x = 0; x < width; x++) {
+		skipWhitespace();
+		if (!fill()) throw error("Expected " + (long) width * height + " hexagons but found "
+			+ ((long) row * width + x));
+
+		hexagons[x] = TextMazeFormat.toHexType(next());
+		// Only the first character of each hexagon matters.
+		while (fill() && !TextMazeFormat.isWhitespace(buffer[position])) {
+		    next();
+		}
+	    }
+	}
+
+	@Override
+	public void close() throws IOException {
+	    in.close();
+	}
+
+	private int readSize(final String name) throws IOException, MazeFormatException {
+	    skipWhitespace();
+
+	    boolean digits = false;
+	    long value = 0;
+	    while (fill() && buffer[position] >= '0' && buffer[position] <= '9') {
+		value = value * 10 + next() - '0';
+		if (value > Integer.MAX_VALUE) throw error("Maze " + name + " is too large");
+		digits = true;
+	    }
+	    if (!digits || fill() && !TextMazeFormat.isWhitespace(buffer[position]))
+		throw error("Expected maze " + name);
+	    return (int) value;
+	}
+
+	private void skipWhitespace() throws IOException {
+	    while (fill() && TextMazeFormat.isWhitespace(buffer[position])) {
+		next();
+	    }
+	}
+
+	/**
+	 * @return False if the end of the stream has been reached.
+	 */
+	private boolean fill() throws IOException {
+	    while (position == limit) {
+		limit = in.read(buffer);
+		position = 0;
+		if (limit < 0) {
+		    limit = 0;
+		    return false;
+		}
+	    }
+	    return true;
+	}
+
+	private byte next() {
+	    final byte c = buffer[position++];
+	    if (c == '\n') {
+		line++;
+		column = 1;
+	    } else {
+		column++;
+	    }
+	    return c;
+	}
+
+	private MazeFormatException error(final String message) {
+	    return new MazeFormatException(message, line, column);
+	}
+    }
+
+    /**
+     * Unpacks the binary format from a channel. Rows don't start on a word
+     * boundary, so the unread part of the current word is kept between rows.
+     */
+    private static class Binary extends MazeRowReader {
+	private final FileChannel channel;
+	private final ByteBuffer  buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private long		  word;
+	private int		  cellsLeft;
+
+	Binary(final FileChannel channel) throws IOException, MazeFormatException {
+	    this.channel = channel;
+	    final ByteBuffer header = BinaryMazeFormat.readHeader(channel);
+	    width = header.getInt(8);
+	    height = header.getInt(12);
+	    buffer.flip();
+	}
+
+	@Override
+	void read(final HexType[] hexagons) throws IOException, MazeFormatException {
+	    for (int x = 0; x < width; x++) {
+		if (cellsLeft == 0) {
+		    word = nextWord();
+		    cellsLeft = PackedHexGrid.CELLS_PER_WORD;
+		}
+		final long value = word & PackedHexGrid.MASK;
+		BinaryMazeFormat.checkCell(value, (long) row * width + x);
+		hexagons[x] = HexType.fromOrdinal((int) value);
+		word >>>= PackedHexGrid.BITS;
+		cellsLeft--;
+	    }
+	}
+
+	private long nextWord() throws IOException, MazeFormatException {
+	    if (buffer.remaining() < Long.BYTES) {
+		buffer.compact();
+		while (buffer.position() < Long.BYTES && channel.read(buffer) >= 0) {}
+		buffer.flip();
+		if (buffer.remaining() < Long.BYTES) throw new MazeFormatException(
+			"Binary maze file is shorter than its " + width + "x" + height + " size");
+	    }
+	    return buffer.getLong();
+	}
+
+	@Override
+	public void close() throws IOException {
+	    channel.close();
+	}
+    }
+}
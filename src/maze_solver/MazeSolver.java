@@ -0,0 +1,51 @@
+package maze_solver;
+
+/**
+ * A strategy for finding a path through a Maze from a start position to a goal
+ * position. Implementations don't change the maze.
+ */
+public interface MazeSolver {
+    /**
+     * Find a path through the maze from start to goal.
+     *
+     * @param maze
+     *            Maze to search.
+     * @param start
+     *            Position the path starts at.
+     * @param goal
+     *            Position the path ends at.
+     * @return The path found and the number of positions expanded finding it.
+     * @throws InvalidPositionException
+     *             If start or goal describes a position outside the maze.
+     */
+    SolverResult solve(Maze maze, Coordinate start, Coordinate goal) throws InvalidPositionException;
+
+    /**
+     * @param name
+     *            Name of a solver, one of dfs, bfs, parallel-bfs, astar,
+     *            bidirectional, junction or external-bfs.
+     * @return A new solver of the named type.
+     * @throws IllegalArgumentException
+     *             If there is no solver with the given name.
+     */
+    static MazeSolver forName(final String name) {
+	switch (name.toLowerCase()) {
+	case "dfs":
+	    return new DepthFirstSolver();
+	case "bfs":
+	    return new BreadthFirstSolver();
+	case "parallel-bfs":
+	    return new ParallelBreadthFirstSolver();
+	case "astar":
+	    return new AStarSolver();
+	case "bidirectional":
+	    return new BidirectionalSolver();
+	case "junction":
+	    return new JunctionGraphSolver();
+	case "external-bfs":
+	    return new ExternalBreadthFirstSolver();
+	default:
+	    throw new IllegalArgumentException("Unknown solver \"" + name + "\"");
+	}
+    }
+}
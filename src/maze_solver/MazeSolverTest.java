@@ -0,0 +1,154 @@
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * Runs every MazeSolver over the same mazes.
+ */
+class MazeSolverTest {
+    static final String[] SOLVERS = { "dfs", "bfs", "parallel-bfs", "astar", "bidirectional", "junction",
+	    "external-bfs" };
+    static Maze		  testMaze;
+    static Maze		  bigMaze;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @BeforeAll
+    static void setUpBeforeClass() throws Exception {
+	testMaze = new Maze(0, 0);
+	testMaze.loadFromFile("test_maze.txt");
+	bigMaze = new Maze(0, 0);
+	bigMaze.loadFromFile("maze.txt");
+    }
+
+    @Test
+    void testSolvesTestMaze() throws InvalidPositionException {
+	for (final String name : SOLVERS) {
+	    final SolverResult result = MazeSolver.forName(name).solve(testMaze, new Coordinate(2, 1),
+		    new Coordinate(2, 4));
+
+	    assertTrue(name, result.isSolved());
+	    assertValidPath(name, testMaze, result.getPath());
+	    assertTrue(name, result.getNodesExpanded() > 0);
+	}
+    }
+
+    @Test
+    void testShortestPaths() throws InvalidPositionException {
+	final Coordinate start = bigMaze.find(HexType.MOUSE);
+	final Coordinate goal = bigMaze.find(HexType.CHEESE);
+	final SolverResult bfs = new BreadthFirstSolver().solve(bigMaze, start, goal);
+
+	assertTrue(bfs.isSolved());
+	assertValidPath("bfs", bigMaze, bfs.getPath());
+	for (final String name : new String[] { "parallel-bfs", "astar", "bidirectional", "junction",
+		"external-bfs" }) {
+	    final SolverResult result = MazeSolver.forName(name).solve(bigMaze, start, goal);
+	    assertEquals(name, bfs.getLength(), result.getLength());
+	    assertValidPath(name, bigMaze, result.getPath());
+	}
+
+	final SolverResult dfs = new DepthFirstSolver().solve(bigMaze, start, goal);
+	assertValidPath("dfs", bigMaze, dfs.getPath());
+	assertTrue(dfs.getLength() >= bfs.getLength());
+    }
+
+    @Test
+    void testParallelOpenField() throws InvalidPositionException {
+	final Maze maze = MazeGenerator.generate(400, 300, MazeGenerator.Algorithm.OPEN_FIELD, 5);
+	final Coordinate start = maze.find(HexType.MOUSE);
+	final Coordinate goal = maze.find(HexType.CHEESE);
+	final SolverResult bfs = new BreadthFirstSolver().solve(maze, start, goal);
+	// Small chunks so that the frontiers are split between several tasks.
+	final ForkJoinPool pool = new ForkJoinPool(4);
+	final SolverResult parallel = new ParallelBreadthFirstSolver(pool, 16).solve(maze, start, goal);
+	pool.shutdown();
+
+	assertTrue(bfs.isSolved());
+	assertEquals(bfs.getLength(), parallel.getLength());
+	assertValidPath("parallel-bfs", maze, parallel.getPath());
+    }
+
+    @Test
+    void testExternalSmallBuffers() throws InvalidPositionException, IOException {
+	final Maze maze = MazeGenerator.generate(120, 90, MazeGenerator.Algorithm.PRIM, 3);
+	final Coordinate start = maze.find(HexType.MOUSE);
+	final Coordinate goal = maze.find(HexType.CHEESE);
+	final SolverResult bfs = new BreadthFirstSolver().solve(maze, start, goal);
+	// Buffers smaller than a level so that every file is read in pieces.
+	final ExternalBreadthFirstSolver external = new ExternalBreadthFirstSolver(null, 3);
+	final SolverResult result = external.solve(maze, start, goal);
+
+	assertTrue(bfs.isSolved());
+	assertEquals(bfs.getLength(), result.getLength());
+	assertValidPath("external-bfs", maze, result.getPath());
+	assertEquals(bfs.getLength(), external.distance(maze, start, goal));
+    }
+
+    @Test
+    void testUnreachableGoal() throws InvalidPositionException {
+	final Maze walled = new Maze(5, 5);
+	for (final int[] wall : new int[][] { { 2, 1 }, { 3, 2 }, { 2, 3 }, { 1, 3 }, { 1, 2 }, { 1, 1 } }) {
+	    walled.set(wall[0], wall[1], HexType.WALL);
+	}
+
+	for (final String name : SOLVERS) {
+	    final SolverResult result = MazeSolver.forName(name).solve(walled, new Coordinate(0, 0),
+		    new Coordinate(2, 2));
+	    assertFalse(name, result.isSolved());
+	    assertEquals(name, -1, result.getLength());
+	}
+    }
+
+    @Test
+    void testMetrics() throws InvalidPositionException {
+	final Coordinate start = bigMaze.find(HexType.MOUSE);
+	final Coordinate goal = bigMaze.find(HexType.CHEESE);
+
+	for (final String name : SOLVERS) {
+	    final SolverResult result = MazeSolver.forName(name).solve(bigMaze, start, goal);
+	    final SolverMetrics metrics = result.getMetrics();
+	    assertEquals(name, result.getLength(), metrics.getPathLength());
+	    assertEquals(name, bigMaze.getWidth(), metrics.getWidth());
+	    assertTrue(name, metrics.getSolveNanos() > 0);
+	    assertFalse(name, metrics.getSolver().isEmpty());
+	    if (!name.equals("junction")) {
+		assertTrue(name, metrics.getPeakFrontier() > 0);
+		assertTrue(name, metrics.getAllocatedBytes() > 0);
+	    }
+	}
+
+	// The recursive backtracker maze is full of dead ends to back out of.
+	assertTrue(new DepthFirstSolver().solve(bigMaze, start, goal).getMetrics().getBacktracks() > 0);
+
+	final SolverMetrics metrics = new SolverMetrics();
+	metrics.setSource("a \"quoted\" maze.txt");
+	metrics.setSolveNanos(1_500_000);
+	final String json = metrics.toJson();
+	assertTrue(json, json.contains("\"source\":\"a \\\"quoted\\\" maze.txt\""));
+	assertTrue(json, json.contains("\"solved\":false,\"pathLength\":-1"));
+	assertTrue(json, json.contains("\"solveMs\":1.500}"));
+    }
+
+    static void assertValidPath(final String message, final Maze maze, final List<Coordinate> path)
+	    throws InvalidPositionException {
+	for (final Coordinate c : path) {
+	    assertTrue(message + " " + c, maze.get(c).isPassable());
+	}
+	for (int i = 1; i < path.size(); i++) {
+	    final ArrayList<Coordinate> neighbours = maze.getNeighbours(path.get(i - 1));
+	    assertTrue(message + " " + path.get(i), neighbours.contains(path.get(i)));
+	}
+    }
+}
@@ -1,69 +1,140 @@
-package maze_solver;
-
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
-import java.util.ArrayList;
-import org.junit.jupiter.api.AfterAll;
-import org.junit.jupiter.api.AfterEach;
-import org.junit.jupiter.api.BeforeAll;
-import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Test;
-
-
-/**
- * @author Terrence Plunkett
- */
-class MazeTest {
-    static Maze maze;
-
-    /**
-     * @throws java.lang.Exception
-     */
-    @BeforeAll
-    static void setUpBeforeClass() throws Exception {
-	maze = new Maze(0, 0);
-	maze.loadFromFile("test_maze.txt");
-    }
-
-    /**
-     * @throws java.lang.Exception
-     */
-    @AfterAll
-    static void tearDownAfterClass() throws Exception {}
-
-    /**
-     * @throws java.lang.Exception
-     */
-    @BeforeEach
-    void setUp() throws Exception {}
-
-    /**
-     * @throws java.lang.Exception
-     */
-    @AfterEach
-    void tearDown() throws Exception {}
-
-    @Test
-    void testGetNeighbours() throws InvalidPositionException {
-	ArrayList<Coordinate> neighbours;
-
-	neighbours = maze.getNeighbours(new Coordinate(0, 0));
-	assertEquals(6, neighbours.size());
-	assertTrue(neighbours.get(0) == null);
-	assertTrue(neighbours.get(1).toString(), neighbours.get(1).equals(new Coordinate(1, 0)));
-	assertTrue(neighbours.get(2).toString(), neighbours.get(2).equals(new Coordinate(0, 1)));
-	assertTrue(neighbours.get(3) == null);
-	assertTrue(neighbours.get(4) == null);
-	assertTrue(neighbours.get(5) == null);
-
-	neighbours = maze.getNeighbours(new Coordinate(1, 1));
-	assertEquals(6, neighbours.size());
-	assertTrue(neighbours.get(0).toString(), neighbours.get(0).equals(new Coordinate(2, 0)));
-	assertTrue(neighbours.get(1).toString(), neighbours.get(1).equals(new Coordinate(2, 1)));
-	assertTrue(neighbours.get(2).toString(), neighbours.get(2).equals(new Coordinate(2, 2)));
-	assertTrue(neighbours.get(3).toString(), neighbours.get(3).equals(new Coordinate(1, 2)));
-	assertTrue(neighbours.get(4).toString(), neighbours.get(4).equals(new Coordinate(0, 1)));
-	assertTrue(neighbours.get(5).toString(), neighbours.get(5).equals(new Coordinate(1, 0)));
-    }
-
-}
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import maze_solver.Maze.HexType;
+import maze_solver.Maze.Storage;
+
+
+/**
+ * @author Terrence Plunkett
+ */
+class MazeTest {
+    static Maze maze;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @BeforeAll
+    static void setUpBeforeClass() throws Exception {
+	maze = new Maze(0, 0);
+	maze.loadFromFile("test_maze.txt");
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @AfterAll
+    static void tearDownAfterClass() throws Exception {}
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @BeforeEach
+    void setUp() throws Exception {}
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @AfterEach
+    void tearDown() throws Exception {}
+
+    @Test
+    void testGetNeighbours() throws InvalidPositionException {
+	ArrayList<Coordinate> neighbours;
+
+	neighbours = maze.getNeighbours(new Coordinate(0, 0));
+	assertEquals(6, neighbours.size());
+	assertTrue(neighbours.get(0) == null);
+	assertTrue(neighbours.get(1).toString(), neighbours.get(1).equals(new Coordinate(1, 0)));
+	assertTrue(neighbours.get(2).toString(), neighbours.get(2).equals(new Coordinate(0, 1)));
+	assertTrue(neighbours.get(3) == null);
+	assertTrue(neighbours.get(4) == null);
+	assertTrue(neighbours.get(5) == null);
+
+	neighbours = maze.getNeighbours(new Coordinate(1, 1));
+	assertEquals(6, neighbours.size());
+	assertTrue(neighbours.get(0).toString(), neighbours.get(0).equals(new Coordinate(2, 0)));
+	assertTrue(neighbours.get(1).toString(), neighbours.get(1).equals(new Coordinate(2, 1)));
+	assertTrue(neighbours.get(2).toString(), neighbours.get(2).equals(new Coordinate(2, 2)));
+	assertTrue(neighbours.get(3).toString(), neighbours.get(3).equals(new Coordinate(1, 2)));
+	assertTrue(neighbours.get(4).toString(), neighbours.get(4).equals(new Coordinate(0, 1)));
+	assertTrue(neighbours.get(5).toString(), neighbours.get(5).equals(new Coordinate(1, 0)));
+    }
+
+    @Test
+    void testNeighbourIndexes() throws InvalidPositionException {
+	final Maze wide = new Maze(7, 3);
+
+	for (int y = 0; y < wide.getHeight(); y++) {
+	    for (int x = 0; x < wide.getWidth(); x++) {
+		final ArrayList<Coordinate> neighbours = wide.getNeighbours(new Coordinate(x, y));
+		final int index = wide.index(x, y);
+		final int mask = wide.neighbourMask(index);
+
+		for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		    final Coordinate n = neighbours.get(d);
+		    assertEquals(n != null, (mask & 1 << d) != 0);
+		    if (n != null) {
+			assertEquals(wide.index(n.getX(), n.getY()), wide.neighbour(index, d));
+			assertEquals(wide.index(n.getX(), n.getY()), index + wide.neighbourOffset(y, d));
+		    }
+		}
+	    }
+	}
+
+	// Bottom row of a non-square maze has no neighbours below it.
+	assertEquals(0, wide.neighbourMask(3, 2) & (1 << 2 | 1 << 3));
+	// Last hexagon of an even row still has the neighbour directly below it.
+	assertTrue(wide.getNeighbours(new Coordinate(6, 0)).get(2).equals(new Coordinate(6, 1)));
+    }
+
+    @Test
+    void testToString() {
+	final String n = System.lineSeparator();
+	final Maze m = new Maze(4, 3);
+
+	m.set(0, 0, HexType.WALL);
+	m.set(3, 2, HexType.CHEESE);
+	assertEquals("W       " + n + "         " + n + "      C ", m.toString());
+
+	m.set(1, 0, HexType.MOUSE);
+	m.set(0, 1, HexType.MOUSE);
+	m.set(2, 1, HexType.MOUSE);
+	m.set(3, 1, HexType.MOUSE);
+	assertEquals("W[M]    " + n + "[M] [M][M]" + n + "      C ", m.toString());
+    }
+
+    @Test
+    void testStorage() {
+	for (final Storage storage : Storage.values()) {
+	    final Maze m = new Maze(7, 9, storage);
+	    assertEquals(storage, m.getStorage());
+
+	    for (int y = 0; y < m.getHeight(); y++) {
+		for (int x = 0; x < m.getWidth(); x++) {
+		    assertEquals(storage.toString(), HexType.OPEN, m.get(x, y));
+		}
+	    }
+
+	    for (int y = 0; y < m.getHeight(); y++) {
+		for (int x = 0; x < m.getWidth(); x++) {
+		    m.set(x, y, HexType.values()[(y * m.getWidth() + x) % HexType.values().length]);
+		}
+	    }
+	    for (int y = 0; y < m.getHeight(); y++) {
+		for (int x = 0; x < m.getWidth(); x++) {
+		    assertEquals(storage.toString(), HexType.values()[(y * m.getWidth() + x) % HexType.values().length],
+			    m.get(x, y));
+		}
+	    }
+	}
+    }
+
+}
@@ -0,0 +1,243 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * Plans paths for many mice in one maze, each to whichever CHEESE is nearest to
+ * it. A single breadth first search out from every cheese at once gives the
+ * distance from every position to its nearest cheese, which is then shared by
+ * every mouse: tracing one mouse's path only reads it, so the paths are traced
+ * in parallel.
+ * <p>
+ * plan also keeps the mice from colliding. Mice are planned one at a time,
+ * nearest first, each with an A* search over positions and time steps that
+ * avoids the positions the mice already planned hold at each step, and never
+ * swaps places with one. A mouse may wait where it is. A mouse leaves the maze
+ * when it reaches a cheese, so several mice can share a cheese. Like any
+ * prioritised planner it can fail to find a plan for a mouse that a joint search
+ * would find, in which case that mouse's path is empty.
+ */
+public class MultiAgentPlanner {
+    private final Maze		 maze;
+    private final ForkJoinPool	 pool;
+    private final DistanceField	 field;
+
+    /**
+     * Measures the distance to the nearest cheese on the common ForkJoinPool.
+     *
+     * @param maze
+     *            Maze to plan in. Must not change while the planner is used.
+     */
+    public MultiAgentPlanner(final Maze maze) {
+	this(maze, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param maze
+     *            Maze to plan in. Must not change while the planner is used.
+     * @param pool
+     *            Pool paths are traced on.
+     */
+    public MultiAgentPlanner(final Maze maze, final ForkJoinPool pool) {
+	this.maze = maze;
+	this.pool = pool;
+	field = DistanceField.compute(maze, HexType.CHEESE);
+    }
+
+    /**
+     * @return Distance from every position to its nearest cheese.
+     */
+    public DistanceField getField() {
+	return field;
+    }
+
+    /**
+     * Finds a shortest path from every start to its nearest cheese, ignoring the
+     * other mice.
+     *
+     * @param starts
+     *            Position of every mouse.
+     * @return The path of each mouse, in the same order as starts. Empty for a
+     *         mouse that can't reach any cheese.
+     * @throws InvalidPositionException
+     *             If a start is outside the maze.
+     */
+    public List<SolverResult> nearestCheese(final List<Coordinate> starts) throws InvalidPositionException {
+	checkStarts(starts);
+
+	final List<Callable<SolverResult>> tasks = new ArrayList<>(starts.size());
+	for (final Coordinate start : starts) {
+	    tasks.add(() -> new SolverResult(field.path(start), field.getNodesExpanded()));
+	}
+
+	return Parallel.invokeAll(pool, tasks, "tracing paths");
+    }
+
+    /**
+     * Plans paths for every mouse to a cheese that never put two mice in the same
+     * position at the same time.
+     *
+     * @param starts
+     *            Position of every mouse at time 0. Must all be different.
+     * @return The path of each mouse, in the same order as starts. Each path has
+     *         one position per time step, repeating a position when the mouse
+     *         waits, and ends on a cheese. Empty for a mouse that can't reach any
+     *         cheese or that no plan was found for.
+     * @throws InvalidPositionException
+     *             If a start is outside the maze.
+     */
+    public List<SolverResult> plan(final List<Coordinate> starts) throws InvalidPositionException {
+	checkStarts(starts);
+
+	final Integer[] order = new Integer[starts.size()];
+	final int[] startIndexes = new int[starts.size()];
+	for (int i = 0; i < order.length; i++) {
+	    order[i] = i;
+	    startIndexes[i] = maze.index(starts.get(i).getX(), starts.get(i).getY());
+	}
+	// Nearest first, so the mice with the least room to move aside go first.
+	Arrays.sort(order, (a, b) -> Integer.compare(field.distance(startIndexes[a]), field.distance(startIndexes[b])));
+
+	final Reservations reservations = new Reservations();
+	final SolverResult[] results = new SolverResult[order.length];
+	for (final int agent : order) {
+	    final SpaceTimeSearch search = new SpaceTimeSearch(reservations);
+	    final int[] path = search.run(startIndexes[agent]);
+	    final List<Coordinate> coordinates = new ArrayList<>(path.length);
+	    for (final int index : path) {
+		coordinates.add(new Coordinate(maze.xOf(index), maze.yOf(index)));
+	    }
+	    reservations.add(agent, path);
+	    results[agent] = new SolverResult(coordinates, search.expanded);
+	}
+	return Arrays.asList(results);
+    }
+
+    private void checkStarts(final List<Coordinate> starts) throws InvalidPositionException {
+	for (final Coordinate start : starts) {
+	    if (!maze.contains(start.getX(), start.getY()))
+		throw new InvalidPositionException(start, new Coordinate(maze.getWidth(), maze.getHeight()));
+	}
+    }
+
+    /**
+     * @return Key of a position at a time step.
+     */
+    private static long key(final int time, final int index) {
+	return (long) time << 32 | index;
+    }
+
+    /**
+     * Which mouse holds each position at each time step.
+     */
+    private static class Reservations {
+	private final Map<Long, Integer> holders = new HashMap<>();
+	int				 lastTime;
+
+	void add(final int agent, final int[] path) {
+	    for (int t = 0; t < path.length; t++) {
+		holders.put(key(t, path[t]), agent);
+	    }
+	    lastTime = Math.max(lastTime, path.length - 1);
+	}
+
+	/**
+	 * @return True if a mouse can't step from one position to another between
+	 *         time and time + 1.
+	 */
+	boolean blocked(final int time, final int from, final int to) {
+	    if (holders.containsKey(key(time + 1, to))) return true;
+
+	    // Two mice can't swap places.
+	    final Integer there = holders.get(key(time, to));
+	    return there != null && there.equals(holders.get(key(time + 1, from)));
+	}
+    }
+
+    /**
+     * A* over (position, time step) states for one mouse, with the distance to
+     * the nearest cheese as the heuristic.
+     */
+    private class SpaceTimeSearch {
+	private final Reservations	   reservations;
+	private final Map<Long, Integer>   states = new HashMap<>();
+	private final AStarSolver.IndexHeap open   = new AStarSolver.IndexHeap();
+	private int[]			   index  = new int[64];
+	private int[]			   time	  = new int[64];
+	private int[]			   parent = new int[64];
+	private int			   count;
+	long				   expanded;
+
+	SpaceTimeSearch(final Reservations reservations) {
+	    this.reservations = reservations;
+	}
+
+	/**
+	 * @return Position of the mouse at every time step until it reaches a
+	 *         cheese, or an empty array if no plan was found.
+	 */
+	int[] run(final int start) {
+	    if (field.distance(start) == DistanceField.UNREACHABLE) return new int[0];
+	    // After the last reserved step the maze is clear, so waiting longer than
+	    // that plus the walk itself can't help.
+	    final int horizon = reservations.lastTime + 2 * field.distance(start) + 1;
+
+	    open.add(field.distance(start), state(start, 0, -1));
+	    while (!open.isEmpty()) {
+		final int current = open.poll();
+		final int at = index[current];
+		final int t = time[current];
+
+		expanded++;
+		if (field.distance(at) == 0) return path(current);
+		if (t == horizon) continue;
+
+		visit(current, at, t, at);
+		final int y = maze.yOf(at);
+		final int mask = maze.neighbourMask(at);
+		for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		    if ((mask & 1 << d) == 0) continue;
+
+		    final int n = at + maze.neighbourOffset(y, d);
+		    if (field.distance(n) != DistanceField.UNREACHABLE) visit(current, at, t, n);
+		}
+	    }
+	    return new int[0];
+	}
+
+	private void visit(final int current, final int from, final int t, final int to) {
+	    if (reservations.blocked(t, from, to) || states.containsKey(key(t + 1, to))) return;
+
+	    open.add(t + 1 + field.distance(to), state(to, t + 1, current));
+	}
+
+	private int state(final int at, final int t, final int from) {
+	    if (count == index.length) {
+		index = Arrays.copyOf(index, 2 * count);
+		time = Arrays.copyOf(time, 2 * count);
+		parent = Arrays.copyOf(parent, 2 * count);
+	    }
+	    index[count] = at;
+	    time[count] = t;
+	    parent[count] = from;
+	    states.put(key(t, at), count);
+	    return count++;
+	}
+
+	private int[] path(final int end) {
+	    final int[] path = new int[time[end] + 1];
+	    for (int s = end; s >= 0; s = parent[s]) {
+		path[time[s]] = index[s];
+	    }
+	    return path;
+	}
+    }
+}
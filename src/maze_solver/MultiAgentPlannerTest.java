@@ -0,0 +1,178 @@
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import maze_solver.Maze.HexType;
+import maze_solver.MazeGenerator.Algorithm;
+
+
+/**
+ * Tests MultiAgentPlanner finds the nearest cheese and plans paths that never
+ * collide, and that a Swarm of Players shares one maze.
+ */
+class MultiAgentPlannerTest {
+
+    @Test
+    void testNearestCheese() throws InvalidPositionException {
+	final Maze maze = crowdedMaze(Algorithm.PRIM, 12, 4);
+	final List<Coordinate> mice = maze.findAll(HexType.MOUSE);
+	final List<Coordinate> cheeses = maze.findAll(HexType.CHEESE);
+	final List<SolverResult> results = new MultiAgentPlanner(maze).nearestCheese(mice);
+	final BreadthFirstSolver bfs = new BreadthFirstSolver();
+
+	assertEquals(mice.size(), results.size());
+	for (int i = 0; i < mice.size(); i++) {
+	    int nearest = -1;
+	    for (final Coordinate cheese : cheeses) {
+		final int length = bfs.solve(maze, mice.get(i), cheese).getLength();
+		if (length >= 0 && (nearest < 0 || length < nearest)) nearest = length;
+	    }
+
+	    final SolverResult result = results.get(i);
+	    assertEquals(mice.get(i).toString(), nearest, result.getLength());
+	    if (result.isSolved()) {
+		assertEquals(mice.get(i), result.getPath().get(0));
+		MazeSolverTest.assertValidPath("nearest", maze, result.getPath());
+	    }
+	}
+    }
+
+    @Test
+    void testPlanAvoidsCollisions() throws InvalidPositionException {
+	for (final Algorithm algorithm : Algorithm.values()) {
+	    final Maze maze = crowdedMaze(algorithm, 40, 6);
+	    final List<Coordinate> mice = maze.findAll(HexType.MOUSE);
+	    final List<SolverResult> plans = new MultiAgentPlanner(maze).plan(mice);
+
+	    assertEquals(mice.size(), plans.size());
+	    for (int i = 0; i < plans.size(); i++) {
+		final List<Coordinate> path = plans.get(i).getPath();
+		if (path.isEmpty()) continue;
+
+		assertEquals(mice.get(i), path.get(0));
+		assertEquals(HexType.CHEESE, maze.get(path.get(path.size() - 1)));
+		for (int t = 1; t < path.size(); t++) {
+		    // Each step waits or moves to a passable neighbour.
+		    assertTrue(maze.get(path.get(t)).isPassable());
+		    assertTrue(HexMath.distance(path.get(t - 1).pack(), path.get(t).pack()) <= 1);
+		}
+	    }
+	    assertNoCollisions(algorithm.toString(), plans);
+	}
+    }
+
+    @Test
+    void testPlanWaits() throws InvalidPositionException {
+	// Two mice either side of a cheese in a corridor can't both arrive at once.
+	final Maze maze = new Maze(5, 1);
+	maze.set(0, 0, HexType.MOUSE);
+	maze.set(2, 0, HexType.CHEESE);
+	maze.set(4, 0, HexType.MOUSE);
+
+	final List<SolverResult> plans = new MultiAgentPlanner(maze).plan(maze.findAll(HexType.MOUSE));
+	assertEquals(Arrays.asList(2, 3), Arrays.asList(plans.get(0).getLength(), plans.get(1).getLength()));
+	// The second mouse waits a step somewhere along the way.
+	assertEquals(3, new HashSet<>(plans.get(1).getPath()).size());
+	assertNoCollisions("corridor", plans);
+    }
+
+    @Test
+    void testSwarm() {
+	final Maze maze = crowdedMaze(Algorithm.KRUSKAL, 200, 10);
+	final int version = maze.getVersion();
+	final ForkJoinPool pool = new ForkJoinPool(4);
+	final Swarm swarm = new Swarm(maze, maze.findAll(HexType.MOUSE), pool);
+
+	assertEquals(200, swarm.getPlayers().size());
+	assertTrue(swarm.run() > 0);
+	assertFalse(swarm.tick());
+	final List<Coordinate> mice = maze.findAll(HexType.MOUSE);
+	for (int i = 0; i < mice.size(); i++) {
+	    final Player player = swarm.getPlayers().get(i);
+	    final Coordinate start = mice.get(i);
+	    assertEquals(maze.getComponents().reachesCheese(maze.index(start.getX(), start.getY())), player.hasWon());
+	    assertTrue(player.hasWon() != player.hasFailed());
+	    if (player.hasWon()) assertEquals(HexType.CHEESE, maze.get(player.getPosition()));
+	}
+	assertEquals(version, maze.getVersion());
+	pool.shutdown();
+    }
+
+    @Test
+    void testSwarmWalledOff() throws IOException, InvalidPositionException {
+	// The first mouse is walled into a corner, so its Player never moves.
+	final Maze maze = new Maze(6, 3);
+	maze.set(0, 0, HexType.MOUSE);
+	maze.set(1, 0, HexType.WALL);
+	maze.set(0, 1, HexType.WALL);
+	maze.set(2, 2, HexType.MOUSE);
+	maze.set(5, 1, HexType.CHEESE);
+	final Path path = Files.createTempFile("walled", ".hxmz");
+	try {
+	    BinaryMazeFormat.write(maze, path);
+	    final Swarm swarm = new Swarm(maze);
+	    swarm.run();
+	    assertTrue(swarm.getPlayers().get(0).hasFailed());
+	    assertTrue(swarm.getPlayers().get(1).hasWon());
+
+	    // Drawing the Player that never moved used to throw.
+	    Main.main(new String[] { path.toString(), "--solver=swarm", "--headless" });
+	    Main.main(new String[] { path.toString(), "--solver=swarm", "--render=1" });
+	} finally {
+	    Files.delete(path);
+	}
+    }
+
+    /**
+     * @return A 60x60 maze with extra mice and cheese on open hexagons.
+     */
+    private static Maze crowdedMaze(final Algorithm algorithm, final int mice, final int cheeses) {
+	final Maze maze = MazeGenerator.generate(60, 60, algorithm, 11);
+	final SplittableRandom random = new SplittableRandom(algorithm.ordinal());
+	final int size = maze.getWidth() * maze.getHeight();
+	int placed = 0;
+
+	while (placed < mice + cheeses - 2) {
+	    final int index = random.nextInt(size);
+	    if (maze.get(index) != HexType.OPEN) continue;
+
+	    maze.set(index, placed < mice - 1 ? HexType.MOUSE : HexType.CHEESE);
+	    placed++;
+	}
+	assertNotNull(maze.find(HexType.MOUSE));
+	return maze;
+    }
+
+    /**
+     * Checks that no two mice are ever in the same place at the same time, nor
+     * swap places, while both are still in the maze.
+     */
+    private static void assertNoCollisions(final String message, final List<SolverResult> plans) {
+	for (int a = 0; a < plans.size(); a++) {
+	    final List<Coordinate> pathA = plans.get(a).getPath();
+	    for (int b = a + 1; b < plans.size(); b++) {
+		final List<Coordinate> pathB = plans.get(b).getPath();
+		final int end = Math.min(pathA.size(), pathB.size());
+
+		for (int t = 0; t < end; t++) {
+		    assertFalse(message + " " + a + " and " + b + " at " + t, pathA.get(t).equals(pathB.get(t)));
+		    if (t > 0) {
+			assertFalse(message + " " + a + " and " + b + " swap at " + t,
+				pathA.get(t).equals(pathB.get(t - 1)) && pathB.get(t).equals(pathA.get(t - 1)));
+		    }
+		}
+	    }
+	}
+    }
+}
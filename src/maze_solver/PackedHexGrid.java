@@ -0,0 +1,104 @@
+package maze_solver;
+
+import java.nio.LongBuffer;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * A HexGrid that packs the HexType ordinal of every hexagon into 3 bits. Each
+ * long holds 21 hexagons so that a hexagon never spans two longs. The longs can
+ * be on the heap or in a buffer mapped from a binary maze file.
+ */
+public class PackedHexGrid implements HexGrid {
+    /**
+     * Number of bits used for each hexagon. Enough for every HexType.
+     */
+    static final int BITS	    = 3;
+    /**
+     * Number of hexagons stored in each long.
+     */
+    static final int CELLS_PER_WORD = Long.SIZE / BITS;
+    /**
+     * Mask for the bits of a single hexagon.
+     */
+    static final long MASK	    = (1L << BITS) - 1;
+
+    private final LongBuffer words;
+    private final int	     size;
+
+    /**
+     * Create a grid of size hexagons that are all HexType.OPEN.
+     *
+     * @param size
+     *            Number of hexagons in the grid.
+     */
+    public PackedHexGrid(final int size) {
+	this.size = size;
+	words = LongBuffer.allocate(wordCount(size));
+	fill(HexType.OPEN);
+    }
+
+    /**
+     * Create a grid of size hexagons stored in existing packed words. Changes to
+     * the grid are written to words.
+     *
+     * @param words
+     *            At least wordCount(size) longs of packed hexagons, starting at
+     *            index 0.
+     * @param size
+     *            Number of hexagons in the grid.
+     */
+    PackedHexGrid(final LongBuffer words, final int size) {
+	if (words.capacity() < wordCount(size))
+	    throw new IllegalArgumentException(size + " hexagons don't fit in " + words.capacity() + " words");
+	this.size = size;
+	this.words = words;
+    }
+
+    /**
+     * @param size
+     *            Number of hexagons.
+     * @return Number of longs needed to store size hexagons.
+     */
+    static int wordCount(final int size) {
+	return (size + CELLS_PER_WORD - 1) / CELLS_PER_WORD;
+    }
+
+    @Override
+    public HexType get(final int index) {
+	if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	final int shift = index % CELLS_PER_WORD * BITS;
+	return HexType.fromOrdinal((int) (words.get(index / CELLS_PER_WORD) >>> shift & MASK));
+    }
+
+    @Override
+    public void set(final int index, final HexType type) {
+	if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+	final int word = index / CELLS_PER_WORD;
+	final int shift = index % CELLS_PER_WORD * BITS;
+	words.put(word, words.get(word) & ~(MASK << shift) | (long) type.ordinal() << shift);
+    }
+
+    @Override
+    public void fill(final HexType type) {
+	long word = 0;
+	for (int i = 0; i < CELLS_PER_WORD; i++) {
+	    word |= (long) type.ordinal() << i * BITS;
+	}
+	for (int i = 0; i < words.capacity(); i++) {
+	    words.put(i, word);
+	}
+    }
+
+    /**
+     * @return The packed words of the grid, for writing them out in bulk.
+     */
+    LongBuffer words() {
+	return words.duplicate();
+    }
+
+    @Override
+    public int size() {
+	return size;
+    }
+}
@@ -0,0 +1,63 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+
+/**
+ * Runs tasks on a ForkJoinPool for the classes that work on a maze in parallel,
+ * and decides how much of the work each task gets.
+ */
+final class Parallel {
+    private Parallel() {}
+
+    /**
+     * Runs every task and waits for them all to finish.
+     *
+     * @param pool
+     *            Pool to run the tasks on.
+     * @param tasks
+     *            Tasks to run.
+     * @param what
+     *            What the tasks do, such as "filling dead ends", for the message
+     *            of a failure.
+     * @return The result of every task, in the same order as tasks.
+     * @throws IllegalStateException
+     *             If a task threw, with what it threw as the cause, or if the
+     *             thread was interrupted while waiting.
+     */
+    static <T> List<T> invokeAll(final ForkJoinPool pool, final List<Callable<T>> tasks, final String what) {
+	final List<T> results = new ArrayList<>(tasks.size());
+	try {
+	    for (final Future<T> future : pool.invokeAll(tasks)) {
+		results.add(future.get());
+	    }
+	} catch (final ExecutionException e) {
+	    throw new IllegalStateException("Failed " + what, e.getCause());
+	} catch (final InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    throw new IllegalStateException("Interrupted " + what, e);
+	}
+	return results;
+    }
+
+    /**
+     * Splits n items into about four chunks for every thread of the pool, so a
+     * thread that finishes early can take another chunk.
+     *
+     * @param n
+     *            Number of items, such as rows of a maze.
+     * @param pool
+     *            Pool the chunks are run on.
+     * @param min
+     *            Fewest items in a chunk, so a chunk is worth a task.
+     * @return Number of items in each chunk.
+     */
+    static int chunk(final int n, final ForkJoinPool pool, final int min) {
+	return Math.max(min, n / (4 * pool.getParallelism()) + 1);
+    }
+}
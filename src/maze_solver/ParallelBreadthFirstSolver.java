@@ -0,0 +1,212 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Solves a maze with a level synchronous breadth first search that expands each
+ * frontier across a ForkJoinPool. Always finds a shortest path, though not always
+ * the same one as BreadthFirstSolver. Only faster than BreadthFirstSolver on
+ * large mazes with wide frontiers, such as open fields; a maze of long corridors
+ * has a frontier of a few positions and is searched on the calling thread.
+ */
+public class ParallelBreadthFirstSolver extends AbstractSolver {
+    /**
+     * Frontier positions expanded by one task by default.
+     */
+    static final int CHUNK = 2048;
+
+    private final ForkJoinPool pool;
+    /**
+     * Frontier positions expanded by one task. Frontiers no bigger than this are
+     * expanded on the calling thread.
+     */
+    private final int	       chunk;
+
+    /**
+     * Searches on the common ForkJoinPool.
+     */
+    public ParallelBreadthFirstSolver() {
+	this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool
+     *            Pool the frontiers are expanded on.
+     */
+    public ParallelBreadthFirstSolver(final ForkJoinPool pool) {
+	this(pool, CHUNK);
+    }
+
+    /**
+     * @param pool
+     *            Pool the frontiers are expanded on.
+     * @param chunk
+     *            Frontier positions expanded by one task.
+     */
+    ParallelBreadthFirstSolver(final ForkJoinPool pool, final int chunk) {
+	this.pool = pool;
+	this.chunk = chunk;
+    }
+
+    @Override
+    protected SolverResult search(final Maze maze, final int start, final int goal) {
+	final Level level = new Level(maze, goal);
+	int[] frontier = { start };
+	int frontierSize = 1;
+	long expanded = 0;
+	long peak = 1;
+	// The visited words and parent, and two frontiers with their chunk buffers
+	// added as they grow.
+	long allocated = 8L * level.visited.length() + 4L * level.parent.length;
+
+	level.visit(start);
+	level.parent[start] = NO_PARENT;
+
+	while (frontierSize > 0) {
+	    final int chunks = (frontierSize + chunk - 1) / chunk;
+	    final int[][] next = new int[chunks][];
+	    final int[] nextSizes = new int[chunks];
+
+	    if (chunks == 1) {
+		level.expand(frontier, 0, frontierSize, next, nextSizes, 0);
+	    } else {
+		pool.invoke(new Expand(level, chunk, frontier, frontierSize, next, nextSizes, 0, chunks));
+	    }
+	    expanded += frontierSize;
+	    if (frontierSize > peak) peak = frontierSize;
+	    allocated += 8L * frontierSize;
+	    if (level.found)
+		return new SolverResult(buildPath(maze, level.parent, goal), metrics(expanded, peak, allocated));
+
+	    // Join the buffers of every chunk into the next frontier.
+	    frontierSize = 0;
+	    for (final int size : nextSizes) {
+		frontierSize += size;
+	    }
+	    frontier = new int[frontierSize];
+	    int offset = 0;
+	    for (int i = 0; i < chunks; i++) {
+		System.arraycopy(next[i], 0, frontier, offset, nextSizes[i]);
+		offset += nextSizes[i];
+	    }
+	}
+	return new SolverResult(new ArrayList<Coordinate>(), metrics(expanded, peak, allocated));
+    }
+
+    /**
+     * State shared by every task expanding a search. Tasks only write parent for
+     * positions they have claimed in visited, and it is only read after the level
+     * has been joined, so it doesn't need to be atomic.
+     */
+    private static class Level {
+	final Maze	      maze;
+	final int	      goal;
+	final AtomicLongArray visited;
+	final int[]	      parent;
+	volatile boolean      found;
+
+	Level(final Maze maze, final int goal) {
+	    final int size = maze.getWidth() * maze.getHeight();
+
+	    this.maze = maze;
+	    this.goal = goal;
+	    visited = new AtomicLongArray((size + 63) / 64);
+	    parent = new int[size];
+	}
+
+	/**
+	 * Marks a position visited.
+	 *
+	 * @return True if this call visited it, false if it was already visited.
+	 */
+	boolean visit(final int index) {
+	    final int word = index >>> 6;
+	    final long bit = 1L << index;
+
+	    for (;;) {
+		final long old = visited.get(word);
+		if ((old & bit) != 0) return false;
+		if (visited.compareAndSet(word, old, old | bit)) return true;
+	    }
+	}
+
+	/**
+	 * Expands frontier[from, to) and stores the newly visited positions in
+	 * next[chunk], with their count in nextSizes[chunk].
+	 */
+	void expand(final int[] frontier, final int from, final int to, final int[][] next, final int[] nextSizes,
+		final int chunk) {
+	    final int width = maze.getWidth();
+	    // Every position has at most 5 unvisited neighbours, the sixth being its
+	    // parent, but most have far fewer so start small.
+	    int[] out = new int[Math.min(2 * (to - from) + 16, 5 * (to - from))];
+	    int size = 0;
+
+	    for (int i = from; i < to; i++) {
+		final int current = frontier[i];
+		final int y = current / width;
+		final int mask = maze.neighbourMask(current - y * width, y);
+
+		for (int d = 0; d < Maze.DIRECTIONS; d++) {
+		    if ((mask & 1 << d) == 0) continue;
+
+		    final int n = current + maze.neighbourOffset(y, d);
+		    // Check the cheaper, uncontended maze before touching visited.
+		    if (!maze.isPassable(n) || !visit(n)) continue;
+
+		    parent[n] = current;
+		    if (n == goal) found = true;
+		    if (size == out.length) out = Arrays.copyOf(out, 2 * size + 6);
+		    out[size++] = n;
+		}
+	    }
+	    next[chunk] = out;
+	    nextSizes[chunk] = size;
+	}
+    }
+
+    /**
+     * Splits a frontier in halves until each task has one chunk to expand.
+     */
+    @SuppressWarnings("serial")
+    private static class Expand extends RecursiveAction {
+	private final Level   level;
+	private final int     chunk;
+	private final int[]   frontier;
+	private final int     frontierSize;
+	private final int[][] next;
+	private final int[]   nextSizes;
+	private final int     firstChunk;
+	private final int     lastChunk;
+
+	Expand(final Level level, final int chunk, final int[] frontier, final int frontierSize,
+		final int[][] next, final int[] nextSizes, final int firstChunk, final int lastChunk) {
+	    this.level = level;
+	    this.chunk = chunk;
+	    this.frontier = frontier;
+	    this.frontierSize = frontierSize;
+	    this.next = next;
+	    this.nextSizes = nextSizes;
+	    this.firstChunk = firstChunk;
+	    this.lastChunk = lastChunk;
+	}
+
+	@Override
+	protected void compute() {
+	    if (lastChunk - firstChunk == 1) {
+		level.expand(frontier, firstChunk * chunk, Math.min(frontierSize, lastChunk * chunk), next, nextSizes,
+			firstChunk);
+		return;
+	    }
+
+	    final int middle = (firstChunk + lastChunk) >>> 1;
+	    invokeAll(new Expand(level, chunk, frontier, frontierSize, next, nextSizes, firstChunk, middle),
+		    new Expand(level, chunk, frontier, frontierSize, next, nextSizes, middle, lastChunk));
+	}
+    }
+}
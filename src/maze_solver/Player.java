@@ -1,163 +1,312 @@
-package maze_solver;
-
-import java.util.ArrayList;
-import maze_solver.Maze.HexType;
-
-
-/**
- * @author Terrence Plunkett
- */
-public class Player {
-    Coordinate		  position;
-    ArrayList<Coordinate> deadPositions;
-    Maze		  maze;
-    ArrayList<Coordinate> solution;
-    boolean		  won = false;
-
-    public Player(final Maze maze, final Coordinate startPos) {
-	position = startPos;
-	deadPositions = new ArrayList<>();
-	solution = new ArrayList<>();
-	this.maze = maze;
-    }
-
-    public boolean attemptMove() throws Exception {
-	ArrayList<Coordinate> openNeighbours = new ArrayList<>();
-
-	if (hasWon())
-	    return false;
-
-	openNeighbours = findOpenNeighbours(position);
-
-	if (moveToCheese(openNeighbours)) {} else if (openNeighbours.size() == 0) {
-	    backtrack();
-	} else {
-	    addSolutionCoord(position);
-	    final boolean r = moveTo(openNeighbours.get(0));
-	    assert !r : "Attempted to move to a non-open space on the maze?"
-	            + openNeighbours.get(0);
-	}
-	return false;
-    }
-
-    public boolean moveToCheese(final ArrayList<Coordinate> openNeighbours) {
-	for (final Coordinate c : openNeighbours) {
-	    if (maze.get(c) == HexType.CHEESE) {
-		moveTo(c);
-		won = true;
-		// addSolutionCoord(c);
-		return true;
-	    }
-	}
-	return false;
-    }
-
-    /**
-     * Actually moves the player to the given coordinate if it is a possible move.
-     *
-     * @param newPosition
-     * @return true if attempted move to wall space, false otherwise.
-     */
-    public boolean moveTo(final Coordinate newPosition) {
-	if (maze.get(newPosition) == HexType.WALL) return true;
-	else if (maze.get(newPosition) == HexType.DEAD_END) {
-	    System.out.println("Moving to a dead position. This shouldn't happen.");
-	    return true;
-	}
-
-	// if (maze.get(newPosition) == HexType.CHEESE) {
-	// won = true;
-	// }
-
-	// maze.set(position, HexType.OPEN);
-	position = newPosition;
-	maze.set(newPosition, HexType.MOUSE);
-
-	return false;
-    }
-
-    public void addSolutionCoord(final Coordinate c) {
-	solution.add(0, c);
-	maze.set(c, HexType.CURRENT_PATH);
-    }
-
-    public void addDeadCoord(final Coordinate c) {
-	deadPositions.add(0, c);
-	maze.set(c, HexType.DEAD_END);
-    }
-
-    public void backtrack() throws Exception {
-	Coordinate newPosition;
-
-	assert solution.size() != 0 : "Trying to backtrack without going anywhere first?";
-	addDeadCoord(position);
-	newPosition = solution.get(0);
-	solution.remove(0);
-
-	if (moveTo(newPosition)) throw new Exception("Tried to move into an invalid space while backtracking");
-    }
-
-    /**
-     * @param position
-     * @return
-     * @throws Exception
-     */
-    public ArrayList<Coordinate> findOpenNeighbours(final Coordinate position) throws InvalidPositionException {
-	final ArrayList<Coordinate> openNeighbours = maze.getNeighbours(position);
-
-	for (int i = 0; i < openNeighbours.size(); i++) {
-	    final Coordinate n = openNeighbours.get(i);
-	    if (n != null) {
-
-		if (maze.get(n) == HexType.WALL) {
-		    openNeighbours.set(i, null);
-		    continue;
-		}
-		if (solution.size() > 0) {
-		    for (final Coordinate s : solution) {
-			if (s.equals(n)) {
-			    openNeighbours.set(i, null);
-			}
-		    }
-		}
-		if (deadPositions.size() > 0) {
-		    for (final Coordinate c : deadPositions) {
-			if (n.equals(c)) {
-			    openNeighbours.set(i, null);
-			}
-		    }
-		}
-	    }
-	}
-
-	// Remove null neighbours
-	for (int i = 0; i < openNeighbours.size(); i++) {
-	    if (openNeighbours.get(i) == null) {
-		openNeighbours.remove(i);
-		i--;
-	    }
-	}
-
-	if (openNeighbours.size() > 0) {
-	    assert openNeighbours.get(0) != null : "All null elements should be removed before this.";
-	}
-
-	return openNeighbours;
-    }
-
-    public Coordinate getPosition() {
-	return position;
-    }
-
-    public ArrayList<Coordinate> getDeadPositions() {
-	return deadPositions;
-    }
-
-    public ArrayList<Coordinate> getSolution() {
-	return solution;
-    }
-
-    public boolean hasWon() {
-	return won;
-    }
-}
+package maze_solver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * Walks a maze one move at a time, depth first, until it finds the cheese. The
+ * path and dead ends are kept in the Player rather than written into the maze, so
+ * many Players can walk the same Maze at once. The Player is also a HexView of the
+ * maze with its position, path and dead ends drawn over it, and tells its
+ * listeners about every hexagon that view changes.
+ *
+ * @author Terrence Plunkett
+ */
+public class Player implements HexView {
+    Coordinate		   position;
+    ArrayList<Coordinate>  deadPositions;
+    Maze		   maze;
+    /**
+     * Path from the start to the current position, most recent position first.
+     */
+    ArrayDeque<Coordinate> solution;
+    /**
+     * Maze indexes of every position in solution or deadPositions, so that
+     * findOpenNeighbours doesn't have to search them.
+     */
+    BitSet		   visited;
+    /**
+     * Maze indexes of every position in deadPositions.
+     */
+    BitSet		   dead;
+    /**
+     * Maze index of position.
+     */
+    int			   positionIndex;
+    /**
+     * Moves, backtracks and the deepest path so far. The rest is filled in by
+     * getMetrics.
+     */
+    SolverMetrics	   metrics = new SolverMetrics();
+    boolean		   won = false;
+    /**
+     * Set once every position reachable from the start has been tried, or
+     * straight away if the maze's components show no cheese can be reached.
+     */
+    boolean		   failed = false;
+    /**
+     * Told whenever a hexagon the Player shows changes.
+     */
+    final List<MazeListener> listeners = new ArrayList<>();
+
+    public Player(final Maze maze, final Coordinate startPos) {
+	position = startPos;
+	deadPositions = new ArrayList<>();
+	solution = new ArrayDeque<>();
+	visited = new BitSet();
+	dead = new BitSet();
+	this.maze = maze;
+	positionIndex = maze.index(startPos.getX(), startPos.getY());
+	// A start outside the maze is reported by the first move.
+	failed = maze.contains(startPos.getX(), startPos.getY())
+		&& !maze.getComponents().reachesCheese(positionIndex);
+    }
+
+    public boolean attemptMove() throws Exception {
+	ArrayList<Coordinate> openNeighbours = new ArrayList<>();
+
+	if (hasWon() || hasFailed())
+	    return false;
+
+	openNeighbours = findOpenNeighbours(position);
+	metrics.setNodesExpanded(metrics.getNodesExpanded() + 1);
+
+	if (moveToCheese(openNeighbours)) {} else if (openNeighbours.size() == 0 && solution.isEmpty()) {
+	    // Back at the start with nowhere left to go.
+	    addDeadCoord(position);
+	    failed = true;
+	} else if (openNeighbours.size() == 0) {
+	    backtrack();
+	} else {
+	    addSolutionCoord(position);
+	    if (solution.size() > metrics.getPeakFrontier()) metrics.setPeakFrontier(solution.size());
+	    final boolean r = moveTo(openNeighbours.get(0));
+	    assert !r : "Attempted to move to a non-open space on the maze?"
+	            + openNeighbours.get(0);
+	}
+	return false;
+    }
+
+    public boolean moveToCheese(final ArrayList<Coordinate> openNeighbours) {
+	for (final Coordinate c : openNeighbours) {
+	    if (maze.get(c) == HexType.CHEESE) {
+		addSolutionCoord(position);
+		moveTo(c);
+		won = true;
+		// addSolutionCoord(c);
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Actually moves the player to the given coordinate if it is a possible move.
+     *
+     * @param newPosition
+     * @return true if attempted move to wall space, false otherwise.
+     */
+    public boolean moveTo(final Coordinate newPosition) {
+	if (maze.get(newPosition) == HexType.WALL) return true;
+	else if (dead.get(maze.index(newPosition.getX(), newPosition.getY()))) {
+	    System.out.println("Moving to a dead position. This shouldn't happen.");
+	    return true;
+	}
+
+	// if (maze.get(newPosition) == HexType.CHEESE) {
+	// won = true;
+	// }
+
+	final int oldIndex = positionIndex;
+	final HexType oldType = shown(oldIndex);
+	final int newIndex = maze.index(newPosition.getX(), newPosition.getY());
+	final HexType newType = shown(newIndex);
+
+	position = newPosition;
+	positionIndex = newIndex;
+	changed(oldIndex, oldType);
+	changed(newIndex, newType);
+
+	return false;
+    }
+
+    public void addSolutionCoord(final Coordinate c) {
+	final int index = maze.index(c.getX(), c.getY());
+	final HexType oldType = shown(index);
+
+	solution.push(c);
+	visited.set(index);
+	changed(index, oldType);
+    }
+
+    public void addDeadCoord(final Coordinate c) {
+	final int index = maze.index(c.getX(), c.getY());
+	final HexType oldType = shown(index);
+
+	deadPositions.add(c);
+	visited.set(index);
+	dead.set(index);
+	changed(index, oldType);
+    }
+
+    /**
+     * @param listener
+     *            Told about every hexagon this Player shows differently from now
+     *            on, with the HexTypes get returned before and after.
+     */
+    public void addListener(final MazeListener listener) {
+	listeners.add(listener);
+    }
+
+    /**
+     * @param listener
+     *            No longer told about changes to what this Player shows.
+     */
+    public void removeListener(final MazeListener listener) {
+	listeners.remove(listener);
+    }
+
+    /**
+     * @return What get shows at index, or null if nobody is listening for it to
+     *         change, or the index is outside the maze.
+     */
+    private HexType shown(final int index) {
+	if (listeners.isEmpty() || index < 0 || index >= maze.getWidth() * maze.getHeight()) return null;
+	return get(index);
+    }
+
+    /**
+     * Tells every listener if what get shows at index is no longer oldType.
+     */
+    private void changed(final int index, final HexType oldType) {
+	if (oldType == null) return;
+
+	final HexType newType = get(index);
+	if (newType == oldType) return;
+	for (final MazeListener listener : listeners) {
+	    listener.cellChanged(maze, index, oldType, newType);
+	}
+    }
+
+    public void backtrack() throws Exception {
+	Coordinate newPosition;
+
+	assert solution.size() != 0 : "Trying to backtrack without going anywhere first?";
+	addDeadCoord(position);
+	newPosition = solution.pop();
+	metrics.setBacktracks(metrics.getBacktracks() + 1);
+
+	if (moveTo(newPosition)) throw new Exception("Tried to move into an invalid space while backtracking");
+    }
+
+    /**
+     * @param position
+     * @return
+     * @throws Exception
+     */
+    public ArrayList<Coordinate> findOpenNeighbours(final Coordinate position) throws InvalidPositionException {
+	final ArrayList<Coordinate> openNeighbours = new ArrayList<>(Maze.DIRECTIONS);
+	final int x = position.getX();
+	final int y = position.getY();
+
+	if (!maze.contains(x, y))
+	    throw new InvalidPositionException(position, new Coordinate(maze.getWidth(), maze.getHeight()));
+
+	final int index = maze.index(x, y);
+	final int mask = maze.neighbourMask(x, y);
+	for (int direction = 0; direction < Maze.DIRECTIONS; direction++) {
+	    if ((mask & 1 << direction) == 0) continue;
+
+	    final int n = index + maze.neighbourOffset(y, direction);
+	    if (!maze.isPassable(n)) continue;
+
+	    if (visited.get(n)) continue;
+
+	    openNeighbours.add(new Coordinate(maze.xOf(n), maze.yOf(n)));
+	}
+
+	return openNeighbours;
+    }
+
+    /**
+     * Shows the maze as the Player sees it. The Player's position is the MOUSE,
+     * wherever the maze itself put the mouse, visited positions are
+     * CURRENT_PATH and dead ends are DEAD_END.
+     *
+     * @param index
+     *            Index of a position in the maze, see Maze.index(x, y).
+     * @return The HexType shown at index.
+     */
+    @Override
+    public HexType get(final int index) {
+	if (index == positionIndex) return HexType.MOUSE;
+	if (dead.get(index)) return HexType.DEAD_END;
+	if (visited.get(index)) return HexType.CURRENT_PATH;
+
+	final HexType type = maze.get(index);
+	return type == HexType.MOUSE ? HexType.OPEN : type;
+    }
+
+    @Override
+    public int getWidth() {
+	return maze.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+	return maze.getHeight();
+    }
+
+    public Coordinate getPosition() {
+	return position;
+    }
+
+    /**
+     * @return Every dead end position in the order they were found.
+     */
+    public ArrayList<Coordinate> getDeadPositions() {
+	return deadPositions;
+    }
+
+    /**
+     * @return Path from the start to the current position, most recent position
+     *         first.
+     */
+    public Deque<Coordinate> getSolution() {
+	return solution;
+    }
+
+    /**
+     * Solve time isn't tracked, since the Player is moved one step at a time by
+     * its caller.
+     *
+     * @return What walking the maze has cost so far. Nodes expanded counts moves
+     *         and the peak frontier is the longest the path has been.
+     */
+    public SolverMetrics getMetrics() {
+	metrics.setSolver(getClass().getSimpleName());
+	metrics.setSize(maze.getWidth(), maze.getHeight());
+	metrics.setPathLength(won ? solution.size() : -1);
+	// A Coordinate and its ArrayDeque or ArrayList slot for every position
+	// visited, and the two BitSets.
+	metrics.setAllocatedBytes(24L * (solution.size() + deadPositions.size()) + (visited.size() + dead.size()) / 8);
+	return metrics;
+    }
+
+    public boolean hasWon() {
+	return won;
+    }
+
+    /**
+     * @return True if the Player has given up because the cheese can't be
+     *         reached from where it started.
+     */
+    public boolean hasFailed() {
+	return failed;
+    }
+}
@@ -0,0 +1,252 @@
+package maze_solver;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+
+
+/**
+ * Saves a Player part way through a maze to a compact binary checkpoint, and
+ * resumes it later exactly where it was, so a long walk of a huge maze can
+ * survive the process being stopped. A Player never changes the maze, so the
+ * checkpoint only holds the Player's own state: every position is a 4 byte maze
+ * index and the visited positions are a bitset. All values are little endian.
+ * @formatter:off
+ * Offset  Size  Value
+ * 0       4     MAGIC, the bytes "HXCP"
+ * 4       4     VERSION
+ * 8       4     Maze width
+ * 12      4     Maze height
+ * 16      4     Flags, WON and FAILED
+ * 20      4     Index of the Player's position
+ * 24      8     Nodes expanded, one for every move
+ * 32      8     Backtracks
+ * 40      8     Peak frontier
+ * 48      4     s, length of the solution path
+ * 52      4     d, number of dead positions
+ * 56      4     v, number of visited bitset words
+ * 60      4*s   Index of every position of the solution, the start first
+ *         4*d   Index of every dead position in the order they were found
+ *         8*v   Visited bitset words, as from BitSet.toLongArray
+ * @formatter:on
+ * Checkpoints are written to a temporary file next to the checkpoint and then
+ * moved over it, so a crash while writing leaves the previous checkpoint whole.
+ */
+public class PlayerCheckpoint {
+    /**
+     * First four bytes of every checkpoint file, "HXCP".
+     */
+    public static final int  MAGIC	 = 'H' | 'X' << 8 | 'C' << 16 | 'P' << 24;
+    /**
+     * Version of the format written by this class.
+     */
+    public static final int  VERSION	 = 1;
+    /**
+     * Size in bytes of the header before the positions.
+     */
+    static final int	     HEADER_SIZE = 60;
+    /**
+     * Flag set if the Player has found the cheese.
+     */
+    static final int	     WON	 = 1;
+    /**
+     * Flag set if the Player has given up.
+     */
+    static final int	     FAILED	 = 2;
+    /**
+     * Size in bytes of the buffer used to read and write files.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private PlayerCheckpoint() {}
+
+    /**
+     * Writes a checkpoint of a Player, replacing any earlier checkpoint at path
+     * only once the new one is completely written.
+     *
+     * @param player
+     *            Player to save. Must not move while it is being saved.
+     * @param path
+     *            File to write the checkpoint to.
+     * @throws IOException
+     *             If the file can't be written.
+     */
+    public static void write(final Player player, final Path path) throws IOException {
+	final Path parent = path.toAbsolutePath().getParent();
+	final Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+
+	try {
+	    writeTo(player, temp);
+	    try {
+		Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	    } catch (final AtomicMoveNotSupportedException e) {
+		Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+	    }
+	} finally {
+	    Files.deleteIfExists(temp);
+	}
+    }
+
+    private static void writeTo(final Player player, final Path path) throws IOException {
+	final Maze maze = player.maze;
+	final SolverMetrics metrics = player.metrics;
+	final long[] visited = player.visited.toLongArray();
+	final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+	try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+		StandardOpenOption.TRUNCATE_EXISTING)) {
+	    buffer.putInt(MAGIC).putInt(VERSION).putInt(maze.getWidth()).putInt(maze.getHeight());
+	    buffer.putInt((player.won ? WON : 0) | (player.failed ? FAILED : 0)).putInt(player.positionIndex);
+	    buffer.putLong(metrics.getNodesExpanded()).putLong(metrics.getBacktracks())
+		    .putLong(metrics.getPeakFrontier());
+	    buffer.putInt(player.solution.size()).putInt(player.deadPositions.size()).putInt(visited.length);
+
+	    // The solution is a stack, so the start is at the end.
+	    for (final Iterator<Coordinate> i = player.solution.descendingIterator(); i.hasNext();) {
+		if (buffer.remaining() < Integer.BYTES) BinaryMazeFormat.flush(buffer, channel);
+		final Coordinate c = i.next();
+		buffer.putInt(maze.index(c.getX(), c.getY()));
+	    }
+	    for (final Coordinate c : player.deadPositions) {
+		if (buffer.remaining() < Integer.BYTES) BinaryMazeFormat.flush(buffer, channel);
+		buffer.putInt(maze.index(c.getX(), c.getY()));
+	    }
+	    for (final long word : visited) {
+		if (buffer.remaining() < Long.BYTES) BinaryMazeFormat.flush(buffer, channel);
+		buffer.putLong(word);
+	    }
+	    BinaryMazeFormat.flush(buffer, channel);
+	    // Make sure the checkpoint is on disk before it replaces the last one.
+	    channel.force(false);
+	}
+    }
+
+    /**
+     * Resumes a Player from a checkpoint.
+     *
+     * @param maze
+     *            The maze the Player was walking when the checkpoint was written.
+     * @param path
+     *            Checkpoint file to read.
+     * @return A Player in the same state as the one saved, which carries on
+     *         exactly as the saved one would have.
+     * @throws IOException
+     *             If the file can't be read.
+     * @throws MazeFormatException
+     *             If the file isn't a valid checkpoint or doesn't fit the maze.
+     */
+    public static Player read(final Maze maze, final Path path) throws IOException, MazeFormatException {
+	try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+	    final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	    buffer.flip();
+	    fill(buffer, channel, HEADER_SIZE);
+
+	    if (buffer.getInt() != MAGIC) throw new MazeFormatException("Not a checkpoint file");
+	    final int version = buffer.getInt();
+	    if (version != VERSION) throw new MazeFormatException("Unsupported checkpoint version " + version);
+	    final int width = buffer.getInt();
+	    final int height = buffer.getInt();
+	    if (width != maze.getWidth() || height != maze.getHeight())
+		throw new MazeFormatException("Checkpoint is of a " + width + "x" + height + " maze, not "
+			+ maze.getWidth() + "x" + maze.getHeight());
+
+	    final int flags = buffer.getInt();
+	    final int position = checkIndex(maze, buffer.getInt());
+	    final SolverMetrics metrics = new SolverMetrics();
+	    metrics.setNodesExpanded(buffer.getLong());
+	    metrics.setBacktracks(buffer.getLong());
+	    metrics.setPeakFrontier(buffer.getLong());
+	    final int solutionSize = buffer.getInt();
+	    final int deadSize = buffer.getInt();
+	    final int visitedWords = buffer.getInt();
+	    if (solutionSize < 0 || deadSize < 0 || visitedWords < 0)
+		throw new MazeFormatException("Checkpoint has a negative count");
+	    if (channel.size() != HEADER_SIZE + (long) Integer.BYTES * (solutionSize + (long) deadSize)
+		    + (long) Long.BYTES * visitedWords)
+		throw new MazeFormatException("Checkpoint file size doesn't match its counts");
+
+	    final ArrayDeque<Coordinate> solution = new ArrayDeque<>(solutionSize);
+	    for (int i = 0; i < solutionSize; i++) {
+		fill(buffer, channel, Integer.BYTES);
+		solution.push(coordinate(maze, checkIndex(maze, buffer.getInt())));
+	    }
+	    final ArrayList<Coordinate> deadPositions = new ArrayList<>(deadSize);
+	    final BitSet dead = new BitSet();
+	    for (int i = 0; i < deadSize; i++) {
+		fill(buffer, channel, Integer.BYTES);
+		final int index = checkIndex(maze, buffer.getInt());
+		deadPositions.add(coordinate(maze, index));
+		dead.set(index);
+	    }
+	    final long[] words = new long[visitedWords];
+	    for (int i = 0; i < visitedWords; i++) {
+		fill(buffer, channel, Long.BYTES);
+		words[i] = buffer.getLong();
+	    }
+	    checkPath(maze, solution, position);
+
+	    final Player player = new Player(maze, coordinate(maze, position));
+	    player.solution = solution;
+	    player.deadPositions = deadPositions;
+	    player.dead = dead;
+	    player.visited = BitSet.valueOf(words);
+	    player.metrics = metrics;
+	    player.won = (flags & WON) != 0;
+	    player.failed = (flags & FAILED) != 0;
+	    return player;
+	}
+    }
+
+    /**
+     * Checks the solution path still runs through passable neighbours to the
+     * position, which catches a checkpoint resumed on a different maze of the
+     * same size.
+     */
+    private static void checkPath(final Maze maze, final ArrayDeque<Coordinate> solution, final int position)
+	    throws MazeFormatException {
+	final List<Coordinate> path = new ArrayList<>(solution);
+	path.add(0, coordinate(maze, position));
+	for (int i = 0; i < path.size(); i++) {
+	    final Coordinate c = path.get(i);
+	    if (!maze.isPassable(maze.index(c.getX(), c.getY())))
+		throw new MazeFormatException("Checkpoint path goes through " + c + ", which isn't passable");
+	    if (i > 0 && HexMath.distance(c.pack(), path.get(i - 1).pack()) != 1)
+		throw new MazeFormatException("Checkpoint path jumps from " + c + " to " + path.get(i - 1));
+	}
+    }
+
+    private static int checkIndex(final Maze maze, final int index) throws MazeFormatException {
+	if (index < 0 || index >= maze.getWidth() * maze.getHeight())
+	    throw new MazeFormatException("Checkpoint position " + index + " is outside the maze");
+	return index;
+    }
+
+    private static Coordinate coordinate(final Maze maze, final int index) {
+	return new Coordinate(maze.xOf(index), maze.yOf(index));
+    }
+
+    /**
+     * Reads from the channel until the buffer has at least bytes remaining.
+     */
+    private static void fill(final ByteBuffer buffer, final FileChannel channel, final int bytes)
+	    throws IOException, MazeFormatException {
+	if (buffer.remaining() >= bytes) return;
+
+	buffer.compact();
+	while (buffer.position() < bytes) {
+	    if (channel.read(buffer) < 0) throw new MazeFormatException("Checkpoint file is truncated");
+	}
+	buffer.flip();
+    }
+}
@@ -0,0 +1,114 @@
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import maze_solver.Maze.HexType;
+import maze_solver.MazeGenerator.Algorithm;
+
+
+/**
+ * Tests a Player resumed from a PlayerCheckpoint carries on exactly as the
+ * Player that was saved, and that broken checkpoints are rejected.
+ */
+class PlayerCheckpointTest {
+
+    @Test
+    void testResumeMatches() throws Exception {
+	final Maze maze = MazeGenerator.generate(60, 60, Algorithm.RECURSIVE_BACKTRACKER, 3);
+	final Path dir = Files.createTempDirectory("checkpoints");
+	final Path path = dir.resolve("player.hxcp");
+	try {
+	    final Player player = new Player(maze, maze.find(HexType.MOUSE));
+	    final List<Player> resumed = new ArrayList<>();
+
+	    for (int moves = 0; !player.hasWon() && !player.hasFailed(); moves++) {
+		if (moves % 97 == 0) {
+		    PlayerCheckpoint.write(player, path);
+		    resumed.add(PlayerCheckpoint.read(maze, path));
+		    assertSamePlayer(player, resumed.get(resumed.size() - 1));
+		}
+		player.attemptMove();
+	    }
+	    assertTrue(player.hasWon());
+	    assertTrue(resumed.size() > 3);
+
+	    // Every resumed Player walks on to exactly where the saved one ended.
+	    for (final Player copy : resumed) {
+		while (!copy.hasWon() && !copy.hasFailed()) {
+		    copy.attemptMove();
+		}
+		assertSamePlayer(player, copy);
+	    }
+
+	    PlayerCheckpoint.write(player, path);
+	    assertSamePlayer(player, PlayerCheckpoint.read(maze, path));
+	    // Only the checkpoint is left, not the temporary files it was written to.
+	    try (Stream<Path> files = Files.list(dir)) {
+		assertEquals(1, files.count());
+	    }
+	} finally {
+	    Files.deleteIfExists(path);
+	    Files.delete(dir);
+	}
+    }
+
+    @Test
+    void testRejectsBadCheckpoints() throws Exception {
+	final Maze maze = MazeGenerator.generate(30, 20, Algorithm.PRIM, 5);
+	final Path path = Files.createTempFile("player", ".hxcp");
+	try {
+	    final Player player = new Player(maze, maze.find(HexType.MOUSE));
+	    for (int i = 0; i < 20; i++) {
+		player.attemptMove();
+	    }
+	    PlayerCheckpoint.write(player, path);
+
+	    assertRejected(MazeGenerator.generate(20, 30, Algorithm.PRIM, 5), path, "a maze of another size");
+	    // The same maze with a wall across the path can't be walked the same way.
+	    final Maze walled = MazeGenerator.generate(30, 20, Algorithm.PRIM, 5);
+	    walled.set(player.getSolution().getFirst(), HexType.WALL);
+	    assertRejected(walled, path, "a different maze");
+
+	    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+		channel.truncate(channel.size() - 1);
+	    }
+	    assertRejected(maze, path, "a truncated checkpoint");
+	    Files.write(path, new byte[PlayerCheckpoint.HEADER_SIZE]);
+	    assertRejected(maze, path, "a file without the MAGIC");
+	} finally {
+	    Files.delete(path);
+	}
+    }
+
+    private static void assertRejected(final Maze maze, final Path path, final String what) throws Exception {
+	try {
+	    PlayerCheckpoint.read(maze, path);
+	    fail("Expected MazeFormatException for " + what);
+	} catch (final MazeFormatException e) {
+	    assertTrue(e.getMessage().length() > 0);
+	}
+    }
+
+    private static void assertSamePlayer(final Player expected, final Player actual) {
+	assertEquals(expected.getPosition(), actual.getPosition());
+	assertEquals(new ArrayList<>(expected.getSolution()), new ArrayList<>(actual.getSolution()));
+	assertEquals(expected.getDeadPositions(), actual.getDeadPositions());
+	assertEquals(expected.visited, actual.visited);
+	assertEquals(expected.dead, actual.dead);
+	assertEquals(expected.hasWon(), actual.hasWon());
+	assertEquals(expected.hasFailed(), actual.hasFailed());
+	assertEquals(expected.getMetrics().getNodesExpanded(), actual.getMetrics().getNodesExpanded());
+	assertEquals(expected.getMetrics().getBacktracks(), actual.getMetrics().getBacktracks());
+	assertEquals(expected.getMetrics().getPeakFrontier(), actual.getMetrics().getPeakFrontier());
+	assertEquals(expected.getMetrics().getPathLength(), actual.getMetrics().getPathLength());
+    }
+}
@@ -1,120 +1,190 @@
-package maze_solver;
-
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertFalse;
-import static org.junit.Assert.assertTrue;
-import java.util.ArrayList;
-import org.junit.jupiter.api.AfterAll;
-import org.junit.jupiter.api.AfterEach;
-import org.junit.jupiter.api.BeforeAll;
-import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Test;
-import maze_solver.Maze.HexType;
-
-
-/**
- * @author Terrence Plunkett
- */
-class PlayerTest {
-    static Maze	  maze;
-    static Player player;
-
-    /**
-     * @throws java.lang.Exception
-     */
-    @BeforeAll
-    static void setUpBeforeClass() throws Exception {
-	maze = new Maze(0, 0);
-	maze.loadFromFile("test_maze.txt");
-	player = new Player(maze, new Coordinate(2, 1));
-    }
-
-    /**
-     * @throws java.lang.Exception
-     */
-    @AfterAll
-    static void tearDownAfterClass() throws Exception {}
-
-    /**
-     * @throws java.lang.Exception
-     */
-    @BeforeEach
-    void setUp() throws Exception {}
-
-    /**
-     * @throws java.lang.Exception
-     */
-    @AfterEach
-    void tearDown() throws Exception {}
-
-    @Test
-    void testOpenNeighbours() throws Exception {
-	ArrayList<Coordinate> openNeighbours;
-	String neighboursString, errStr;
-
-	openNeighbours = player.findOpenNeighbours(new Coordinate(0, 0));
-	neighboursString = arrToString(openNeighbours);
-	errStr = String.format("Should be no open neighbours for position (0, 0), not %n%s%n", neighboursString);
-	assertEquals(errStr, 0, openNeighbours.size());
-
-	openNeighbours = player.findOpenNeighbours(new Coordinate(0, 3));
-	neighboursString = arrToString(openNeighbours);
-	errStr = String.format("Should be one open neighbour at (1, 3) for position (0, 3). Not %n%s%n",
-	        neighboursString);
-	assertEquals(errStr, 1, openNeighbours.size());
-	assertTrue(errStr, openNeighbours.get(0).equals(new Coordinate(1, 3)));
-
-	openNeighbours = player.findOpenNeighbours(new Coordinate(1, 3));
-	neighboursString = arrToString(openNeighbours);
-	errStr = String.format("Should be two open neighbours at (2, 2) and (2, 4) for position (1, 3), not %n%s%n",
-	        neighboursString);
-	assertEquals(errStr, 2, openNeighbours.size());
-	assertTrue(errStr, openNeighbours.get(0).equals(new Coordinate(2, 2)));
-	assertTrue(errStr, openNeighbours.get(1).equals(new Coordinate(2, 4)));
-    }
-
-    @Test
-    void testMoveTo() {
-	Coordinate newPosition = new Coordinate(1, 1);
-
-	assertTrue(player.moveTo(newPosition));
-	assertFalse(player.getPosition().equals(newPosition));
-
-	newPosition = new Coordinate(2, 2);
-	assertFalse(player.moveTo(newPosition));
-	assertTrue(player.getPosition().equals(newPosition));
-	assertEquals(HexType.MOUSE, maze.get(2, 2));
-	assertEquals(HexType.OPEN, maze.get(2, 1));
-
-	newPosition = new Coordinate(1, 3);
-	assertFalse(player.moveTo(newPosition));
-	assertTrue(player.getPosition().equals(newPosition));
-	assertEquals(HexType.MOUSE, maze.get(1, 3));
-	assertEquals(HexType.OPEN, maze.get(2, 2));
-    }
-
-    @Test
-    void testBacktrack() throws Exception {
-	player.solution.add(new Coordinate(2, 2));
-	player.solution.add(new Coordinate(2, 1));
-
-	player.backtrack();
-	assertTrue(player.getPosition().equals(new Coordinate(2, 2)));
-	assertTrue(player.getDeadPositions().get(0).equals(new Coordinate(1, 3)));
-    }
-
-    public String arrToString(final ArrayList<Coordinate> arr) {
-	String ret = "[";
-	for (final Object o : arr) {
-	    if (o != null) {
-		ret += o.toString() + ", ";
-	    }
-	}
-	if (ret.endsWith(", ")) {
-	    ret = ret.substring(0, ret.length() - 2);
-	}
-	ret += "]";
-	return ret;
-    }
-
-}
+package maze_solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * @author Terrence Plunkett
+ */
+class PlayerTest {
+    static Maze	  maze;
+    static Player player;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @BeforeAll
+    static void setUpBeforeClass() throws Exception {
+	maze = new Maze(0, 0);
+	maze.loadFromFile("test_maze.txt");
+	player = new Player(maze, new Coordinate(2, 1));
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @AfterAll
+    static void tearDownAfterClass() throws Exception {}
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @BeforeEach
+    void setUp() throws Exception {}
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @AfterEach
+    void tearDown() throws Exception {}
+
+    @Test
+    void testOpenNeighbours() throws Exception {
+	ArrayList<Coordinate> openNeighbours;
+	String neighboursString, errStr;
+
+	openNeighbours = player.findOpenNeighbours(new Coordinate(0, 0));
+	neighboursString = arrToString(openNeighbours);
+	errStr = String.format("Should be no open neighbours for position (0, 0), not %n%s%n", neighboursString);
+	assertEquals(errStr, 0, openNeighbours.size());
+
+	openNeighbours = player.findOpenNeighbours(new Coordinate(0, 3));
+	neighboursString = arrToString(openNeighbours);
+	errStr = String.format("Should be one open neighbour at (1, 3) for position (0, 3). Not %n%s%n",
+	        neighboursString);
+	assertEquals(errStr, 1, openNeighbours.size());
+	assertTrue(errStr, openNeighbours.get(0).equals(new Coordinate(1, 3)));
+
+	openNeighbours = player.findOpenNeighbours(new Coordinate(1, 3));
+	neighboursString = arrToString(openNeighbours);
+	errStr = String.format("Should be two open neighbours at (2, 2) and (2, 4) for position (1, 3), not %n%s%n",
+	        neighboursString);
+	assertEquals(errStr, 2, openNeighbours.size());
+	assertTrue(errStr, openNeighbours.get(0).equals(new Coordinate(2, 2)));
+	assertTrue(errStr, openNeighbours.get(1).equals(new Coordinate(2, 4)));
+    }
+
+    @Test
+    void testMoveTo() {
+	Coordinate newPosition = new Coordinate(1, 1);
+
+	assertTrue(player.moveTo(newPosition));
+	assertFalse(player.getPosition().equals(newPosition));
+
+	newPosition = new Coordinate(2, 2);
+	assertFalse(player.moveTo(newPosition));
+	assertTrue(player.getPosition().equals(newPosition));
+	assertEquals(HexType.MOUSE, player.get(maze.index(2, 2)));
+	assertEquals(HexType.OPEN, player.get(maze.index(2, 1)));
+
+	newPosition = new Coordinate(1, 3);
+	assertFalse(player.moveTo(newPosition));
+	assertTrue(player.getPosition().equals(newPosition));
+	assertEquals(HexType.MOUSE, player.get(maze.index(1, 3)));
+	assertEquals(HexType.OPEN, player.get(maze.index(2, 2)));
+
+	// The maze itself is never changed.
+	assertEquals(HexType.MOUSE, maze.get(2, 1));
+	assertEquals(HexType.OPEN, maze.get(1, 3));
+    }
+
+    @Test
+    void testBacktrack() throws Exception {
+	player.solution.add(new Coordinate(2, 2));
+	player.solution.add(new Coordinate(2, 1));
+
+	player.backtrack();
+	assertTrue(player.getPosition().equals(new Coordinate(2, 2)));
+	assertTrue(player.getDeadPositions().get(0).equals(new Coordinate(1, 3)));
+    }
+
+    @Test
+    void testVisitedNeighbours() throws Exception {
+	final Maze m = new Maze(0, 0);
+	m.loadFromFile("test_maze.txt");
+	final Player p = new Player(m, new Coordinate(2, 2));
+
+	p.addSolutionCoord(new Coordinate(2, 1));
+	p.addDeadCoord(new Coordinate(3, 2));
+
+	final ArrayList<Coordinate> openNeighbours = p.findOpenNeighbours(new Coordinate(2, 2));
+	assertFalse(openNeighbours.contains(new Coordinate(2, 1)));
+	assertFalse(openNeighbours.contains(new Coordinate(3, 2)));
+	assertTrue(openNeighbours.contains(new Coordinate(1, 3)));
+	assertEquals(new Coordinate(2, 1), p.getSolution().peek());
+	assertEquals(new Coordinate(2, 1).hashCode(), p.getSolution().peek().hashCode());
+    }
+
+    @Test
+    void testMazeUnchanged() throws Exception {
+	final Maze m = new Maze(0, 0);
+	m.loadFromFile("maze.txt");
+	final String before = m.toString();
+	final Player first = new Player(m, m.find(HexType.MOUSE));
+	final Player second = new Player(m, m.find(HexType.MOUSE));
+
+	while (!first.hasWon()) {
+	    first.attemptMove();
+	}
+	assertEquals(before, m.toString());
+	assertEquals(HexType.CHEESE, m.get(first.getPosition()));
+	assertEquals(HexType.MOUSE, first.get(m.index(first.getPosition().getX(), first.getPosition().getY())));
+	assertTrue(first.getDeadPositions().size() > 0);
+	assertEquals(HexType.DEAD_END, first.get(m.index(first.getDeadPositions().get(0).getX(),
+		first.getDeadPositions().get(0).getY())));
+
+	// A second Player on the same maze starts from scratch.
+	assertEquals(0, second.getDeadPositions().size());
+	assertEquals(m.find(HexType.MOUSE), second.getPosition());
+	assertEquals(HexType.OPEN, second.get(m.index(first.getDeadPositions().get(0).getX(),
+		first.getDeadPositions().get(0).getY())));
+    }
+
+    @Test
+    void testUnreachableCheese() throws Exception {
+	final Maze m = new Maze(0, 0);
+	m.loadFromFile("test_maze.txt");
+	final Player early = new Player(m, new Coordinate(2, 1));
+	m.set(3, 4, HexType.WALL);
+	m.set(1, 3, HexType.WALL);
+	final Player late = new Player(m, new Coordinate(2, 1));
+
+	// The components show straight away that the cheese can't be reached.
+	assertTrue(late.hasFailed());
+	late.attemptMove();
+	assertEquals(new Coordinate(2, 1), late.getPosition());
+
+	// Started before the cheese was walled off, so has to search to find out.
+	assertFalse(early.hasFailed());
+	for (int moves = 0; !early.hasFailed(); moves++) {
+	    assertTrue(moves < 100);
+	    early.attemptMove();
+	}
+	assertFalse(early.hasWon());
+	assertTrue(early.getSolution().isEmpty());
+    }
+
+    public String arrToString(final ArrayList<Coordinate> arr) {
+	String ret = "[";
+	for (final Object o : arr) {
+	    if (o != null) {
+		ret += o.toString() + ", ";
+	    }
+	}
+	if (ret.endsWith(", ")) {
+	    ret = ret.substring(0, ret.length() - 2);
+	}
+	ret += "]";
+	return ret;
+    }
+
+}
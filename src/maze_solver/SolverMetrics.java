@@ -0,0 +1,219 @@
+package maze_solver;
+
+import java.util.Locale;
+
+
+/**
+ * Counters and timers describing what one solve cost. Filled in by the solver
+ * and by whatever loaded the maze, and printable as a single line of JSON.
+ * Counts a solver doesn't track are left at 0.
+ */
+public class SolverMetrics {
+    private String solver = "";
+    private String source = "";
+    private int	   width;
+    private int	   height;
+    private int	   pathLength = -1;
+    private long   nodesExpanded;
+    private long   backtracks;
+    private long   peakFrontier;
+    private long   allocatedBytes;
+    private long   loadNanos;
+    private long   solveNanos;
+
+    /**
+     * @return Name of the solver, usually its class name.
+     */
+    public String getSolver() {
+	return solver;
+    }
+
+    /**
+     * @param solver
+     *            Name of the solver, usually its class name.
+     */
+    public void setSolver(final String solver) {
+	this.solver = solver;
+    }
+
+    /**
+     * @return Where the maze came from, such as its file name, or "".
+     */
+    public String getSource() {
+	return source;
+    }
+
+    /**
+     * @param source
+     *            Where the maze came from, such as its file name.
+     */
+    public void setSource(final String source) {
+	this.source = source;
+    }
+
+    /**
+     * @return Width of the maze solved.
+     */
+    public int getWidth() {
+	return width;
+    }
+
+    /**
+     * @return Height of the maze solved.
+     */
+    public int getHeight() {
+	return height;
+    }
+
+    /**
+     * @param width
+     *            Width of the maze solved.
+     * @param height
+     *            Height of the maze solved.
+     */
+    public void setSize(final int width, final int height) {
+	this.width = width;
+	this.height = height;
+    }
+
+    /**
+     * @return Number of moves in the path found, or -1 if there is no path.
+     */
+    public int getPathLength() {
+	return pathLength;
+    }
+
+    /**
+     * @param pathLength
+     *            Number of moves in the path found, or -1 if there is no path.
+     */
+    public void setPathLength(final int pathLength) {
+	this.pathLength = pathLength;
+    }
+
+    /**
+     * @return Number of positions whose neighbours were examined.
+     */
+    public long getNodesExpanded() {
+	return nodesExpanded;
+    }
+
+    /**
+     * @param nodesExpanded
+     *            Number of positions whose neighbours were examined.
+     */
+    public void setNodesExpanded(final long nodesExpanded) {
+	this.nodesExpanded = nodesExpanded;
+    }
+
+    /**
+     * @return Number of times the search backed out of a dead end.
+     */
+    public long getBacktracks() {
+	return backtracks;
+    }
+
+    /**
+     * @param backtracks
+     *            Number of times the search backed out of a dead end.
+     */
+    public void setBacktracks(final long backtracks) {
+	this.backtracks = backtracks;
+    }
+
+    /**
+     * @return Most positions waiting to be expanded at once: the queue, heap or
+     *         stack of the search.
+     */
+    public long getPeakFrontier() {
+	return peakFrontier;
+    }
+
+    /**
+     * @param peakFrontier
+     *            Most positions waiting to be expanded at once.
+     */
+    public void setPeakFrontier(final long peakFrontier) {
+	this.peakFrontier = peakFrontier;
+    }
+
+    /**
+     * @return Estimated bytes allocated by the search for its own state, from
+     *         the sizes of the arrays it used. Doesn't include the path.
+     */
+    public long getAllocatedBytes() {
+	return allocatedBytes;
+    }
+
+    /**
+     * @param allocatedBytes
+     *            Estimated bytes allocated by the search for its own state.
+     */
+    public void setAllocatedBytes(final long allocatedBytes) {
+	this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * @return Nanoseconds spent loading and parsing the maze, or 0 if unknown.
+     */
+    public long getLoadNanos() {
+	return loadNanos;
+    }
+
+    /**
+     * @param loadNanos
+     *            Nanoseconds spent loading and parsing the maze.
+     */
+    public void setLoadNanos(final long loadNanos) {
+	this.loadNanos = loadNanos;
+    }
+
+    /**
+     * @return Nanoseconds spent solving the maze.
+     */
+    public long getSolveNanos() {
+	return solveNanos;
+    }
+
+    /**
+     * @param solveNanos
+     *            Nanoseconds spent solving the maze.
+     */
+    public void setSolveNanos(final long solveNanos) {
+	this.solveNanos = solveNanos;
+    }
+
+    /**
+     * @return Every metric as a JSON object on one line, with times in
+     *         milliseconds.
+     */
+    public String toJson() {
+	return String.format(Locale.ROOT,
+		"{\"solver\":%s,\"source\":%s,\"width\":%d,\"height\":%d,\"solved\":%b,\"pathLength\":%d,"
+			+ "\"nodesExpanded\":%d,\"backtracks\":%d,\"peakFrontier\":%d,\"allocatedBytes\":%d,"
+			+ "\"loadMs\":%.3f,\"solveMs\":%.3f}",
+		quote(solver), quote(source), width, height, pathLength >= 0, pathLength, nodesExpanded, backtracks,
+		peakFrontier, allocatedBytes, loadNanos / 1e6, solveNanos / 1e6);
+    }
+
+    private static String quote(final String value) {
+	final StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+
+	for (int i = 0; i < value.length(); i++) {
+	    final char c = value.charAt(i);
+	    if (c == '"' || c == '\\') {
+		quoted.append('\\').append(c);
+	    } else if (c < ' ') {
+		quoted.append(String.format("\\u%04x", (int) c));
+	    } else {
+		quoted.append(c);
+	    }
+	}
+	return quoted.append('"').toString();
+    }
+
+    @Override
+    public String toString() {
+	return toJson();
+    }
+}
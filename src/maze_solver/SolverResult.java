@@ -0,0 +1,79 @@
+package maze_solver;
+
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * The outcome of a MazeSolver search.
+ */
+public class SolverResult {
+    private final List<Coordinate> path;
+    private final SolverMetrics	   metrics;
+
+    /**
+     * @param path
+     *            Positions from the start to the goal, inclusive. Empty if there is
+     *            no path.
+     * @param nodesExpanded
+     *            Number of positions whose neighbours were examined.
+     */
+    public SolverResult(final List<Coordinate> path, final long nodesExpanded) {
+	this(path, new SolverMetrics());
+	metrics.setNodesExpanded(nodesExpanded);
+    }
+
+    /**
+     * @param path
+     *            Positions from the start to the goal, inclusive. Empty if there is
+     *            no path.
+     * @param metrics
+     *            What the search cost. Its path length is set from path.
+     */
+    public SolverResult(final List<Coordinate> path, final SolverMetrics metrics) {
+	this.path = Collections.unmodifiableList(path);
+	this.metrics = metrics;
+	metrics.setPathLength(getLength());
+    }
+
+    /**
+     * @return Positions from the start to the goal, inclusive. Empty if there is
+     *         no path.
+     */
+    public List<Coordinate> getPath() {
+	return path;
+    }
+
+    /**
+     * @return Number of moves in the path, or -1 if there is no path.
+     */
+    public int getLength() {
+	return path.size() - 1;
+    }
+
+    /**
+     * @return Number of positions whose neighbours were examined.
+     */
+    public long getNodesExpanded() {
+	return metrics.getNodesExpanded();
+    }
+
+    /**
+     * @return Counters and timers describing what the search cost.
+     */
+    public SolverMetrics getMetrics() {
+	return metrics;
+    }
+
+    /**
+     * @return True if a path from the start to the goal was found.
+     */
+    public boolean isSolved() {
+	return !path.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+	return String.format("length %d, %d nodes expanded", getLength(), getNodesExpanded());
+    }
+}
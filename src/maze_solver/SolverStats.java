@@ -0,0 +1,106 @@
+package maze_solver;
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+
+/**
+ * Adds up the SolverMetrics of many solves, so the cost of a whole run can be
+ * watched while it happens and pathological mazes spotted. Can be registered
+ * with the platform MBeanServer to be read with JConsole or any JMX client.
+ * Safe to record from many threads.
+ */
+public class SolverStats implements SolverStatsMXBean {
+    private long	  solves;
+    private long	  unsolved;
+    private long	  totalNodesExpanded;
+    private long	  maxNodesExpanded;
+    private long	  totalLoadNanos;
+    private long	  totalSolveNanos;
+    private long	  maxSolveNanos;
+    private String	  slowestSource = "";
+    private SolverMetrics last;
+
+    /**
+     * Adds one solve to the totals.
+     *
+     * @param metrics
+     *            What the solve cost.
+     */
+    public synchronized void record(final SolverMetrics metrics) {
+	solves++;
+	if (metrics.getPathLength() < 0) unsolved++;
+	totalNodesExpanded += metrics.getNodesExpanded();
+	maxNodesExpanded = Math.max(maxNodesExpanded, metrics.getNodesExpanded());
+	totalLoadNanos += metrics.getLoadNanos();
+	totalSolveNanos += metrics.getSolveNanos();
+	if (metrics.getSolveNanos() > maxSolveNanos || solves == 1) {
+	    maxSolveNanos = metrics.getSolveNanos();
+	    slowestSource = metrics.getSource();
+	}
+	last = metrics;
+    }
+
+    /**
+     * Registers the stats with the platform MBeanServer as
+     * maze_solver:type=SolverStats,name=name.
+     *
+     * @param name
+     *            Name that tells these stats apart from others.
+     * @return The name the stats are registered under.
+     * @throws JMException
+     *             If the stats can't be registered, for example because the name
+     *             is taken.
+     */
+    public ObjectName register(final String name) throws JMException {
+	final ObjectName objectName = new ObjectName("maze_solver:type=SolverStats,name=" + ObjectName.quote(name));
+	ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+	return objectName;
+    }
+
+    @Override
+    public synchronized long getSolves() {
+	return solves;
+    }
+
+    @Override
+    public synchronized long getUnsolved() {
+	return unsolved;
+    }
+
+    @Override
+    public synchronized long getTotalNodesExpanded() {
+	return totalNodesExpanded;
+    }
+
+    @Override
+    public synchronized long getMaxNodesExpanded() {
+	return maxNodesExpanded;
+    }
+
+    @Override
+    public synchronized double getTotalLoadMillis() {
+	return totalLoadNanos / 1e6;
+    }
+
+    @Override
+    public synchronized double getTotalSolveMillis() {
+	return totalSolveNanos / 1e6;
+    }
+
+    @Override
+    public synchronized double getMaxSolveMillis() {
+	return maxSolveNanos / 1e6;
+    }
+
+    @Override
+    public synchronized String getSlowestSource() {
+	return slowestSource;
+    }
+
+    @Override
+    public synchronized String getLastMetrics() {
+	return last == null ? "" : last.toJson();
+    }
+}
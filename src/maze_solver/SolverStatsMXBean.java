@@ -0,0 +1,51 @@
+package maze_solver;
+
+/**
+ * Totals of every solve recorded by a SolverStats, readable over JMX.
+ */
+public interface SolverStatsMXBean {
+    /**
+     * @return Number of solves recorded.
+     */
+    long getSolves();
+
+    /**
+     * @return Number of solves that found no path.
+     */
+    long getUnsolved();
+
+    /**
+     * @return Positions expanded by every solve.
+     */
+    long getTotalNodesExpanded();
+
+    /**
+     * @return Most positions expanded by one solve.
+     */
+    long getMaxNodesExpanded();
+
+    /**
+     * @return Milliseconds spent loading every maze.
+     */
+    double getTotalLoadMillis();
+
+    /**
+     * @return Milliseconds spent in every solve.
+     */
+    double getTotalSolveMillis();
+
+    /**
+     * @return Milliseconds spent in the slowest solve.
+     */
+    double getMaxSolveMillis();
+
+    /**
+     * @return Source of the maze with the slowest solve.
+     */
+    String getSlowestSource();
+
+    /**
+     * @return Metrics of the last solve as JSON.
+     */
+    String getLastMetrics();
+}
@@ -0,0 +1,107 @@
+package maze_solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import maze_solver.Maze.HexType;
+
+
+/**
+ * Many Players walking the same maze at once, one per mouse. Players keep their
+ * path and dead ends to themselves and only read the maze, so every tick moves
+ * all of them in parallel, split into chunks so a tick of hundreds of Players
+ * costs a handful of tasks rather than one each. The maze must not change while
+ * the Swarm runs.
+ */
+public class Swarm {
+    /**
+     * Fewest Players moved by one task in a tick.
+     */
+    static final int		 MIN_CHUNK = 16;
+
+    private final ForkJoinPool	 pool;
+    private final List<Player>	 players;
+    private long		 ticks;
+
+    /**
+     * Starts a Player from every MOUSE in the maze, on the common ForkJoinPool.
+     *
+     * @param maze
+     *            Maze to walk.
+     */
+    public Swarm(final Maze maze) {
+	this(maze, maze.findAll(HexType.MOUSE), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param maze
+     *            Maze to walk.
+     * @param starts
+     *            Where each Player starts.
+     * @param pool
+     *            Pool the Players are moved on.
+     */
+    public Swarm(final Maze maze, final List<Coordinate> starts, final ForkJoinPool pool) {
+	this.pool = pool;
+	final List<Player> players = new ArrayList<>(starts.size());
+	for (final Coordinate start : starts) {
+	    players.add(new Player(maze, start));
+	}
+	this.players = Collections.unmodifiableList(players);
+    }
+
+    /**
+     * Moves every Player that hasn't won or failed by one step.
+     *
+     * @return True if any Player moved.
+     */
+    public boolean tick() {
+	final List<Player> moving = new ArrayList<>(players.size());
+	for (final Player player : players) {
+	    if (!player.hasWon() && !player.hasFailed()) moving.add(player);
+	}
+	if (moving.isEmpty()) return false;
+
+	final int chunk = Parallel.chunk(moving.size(), pool, MIN_CHUNK);
+	final List<Callable<Void>> tasks = new ArrayList<>();
+	for (int from = 0; from < moving.size(); from += chunk) {
+	    final List<Player> some = moving.subList(from, Math.min(moving.size(), from + chunk));
+	    tasks.add(() -> {
+		for (final Player player : some) {
+		    player.attemptMove();
+		}
+		return null;
+	    });
+	}
+
+	Parallel.invokeAll(pool, tasks, "moving players");
+	ticks++;
+	return true;
+    }
+
+    /**
+     * Ticks until every Player has won or failed.
+     *
+     * @return Number of ticks taken.
+     */
+    public long run() {
+	while (tick()) {}
+	return ticks;
+    }
+
+    /**
+     * @return Every Player, in the order of their starts.
+     */
+    public List<Player> getPlayers() {
+	return players;
+    }
+
+    /**
+     * @return Number of ticks in which any Player moved.
+     */
+    public long getTicks() {
+	return ticks;
+    }
+}
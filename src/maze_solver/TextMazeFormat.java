@@ -0,0 +1,251 @@
+package maze_solver;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import maze_solver.Maze.HexType;
+import maze_solver.Maze.Storage;
+
+
+/**
+ * Reads and writes the text maze format described by Maze.loadFromFile. The
+ * file is memory mapped and parsed byte by byte straight into the maze, without
+ * a Scanner or a String per hexagon.
+ */
+public class TextMazeFormat {
+    private final ByteBuffer buffer;
+    private int		     position  = 0;
+    private long	     line      = 1;
+    private int		     lineStart = 0;
+
+    private TextMazeFormat(final ByteBuffer buffer) {
+	this.buffer = buffer;
+    }
+
+    /**
+     * Reads a text maze file into a new maze.
+     *
+     * @param path
+     *            Text maze file to read.
+     * @param storage
+     *            How the new maze stores its hexagons.
+     * @return The maze described by the file.
+     * @throws IOException
+     *             If the file can't be read.
+     * @throws MazeFormatException
+     *             If the file isn't a valid text maze.
+     */
+    public static Maze read(final Path path, final Storage storage) throws IOException, MazeFormatException {
+	final Maze maze = new Maze(0, 0, storage);
+	read(path, maze);
+	return maze;
+    }
+
+    /**
+     * Reads a text maze file into an existing maze, replacing its size and every
+     * hexagon.
+     *
+     * @param path
+     *            Text maze file to read.
+     * @param maze
+     *            Maze to load the file into.
+     * @throws IOException
+     *             If the file can't be read.
+     * @throws MazeFormatException
+     *             If the file isn't a valid text maze.
+     */
+    public static void read(final Path path, final Maze maze) throws IOException, MazeFormatException {
+	try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+	    final long size = channel.size();
+	    if (size <= Integer.MAX_VALUE) {
+		new TextMazeFormat(channel.map(FileChannel.MapMode.READ_ONLY, 0, size)).parse(maze);
+		return;
+	    }
+	}
+
+	// Too large to map in one piece, stream it instead.
+	try (MazeRowReader rows = MazeRowReader.open(path)) {
+	    final HexType[] row = new HexType[rows.getWidth()];
+	    maze.resize(rows.getWidth(), rows.getHeight());
+	    for (int index = 0; rows.readRow(row);) {
+		for (final HexType type : row) {
+		    maze.set(index++, type);
+		}
+	    }
+	}
+    }
+
+    /**
+     * Parses a text maze that has already been loaded into memory.
+     *
+     * @param buffer
+     *            Contents of a text maze file, from its position to its limit.
+     * @param maze
+     *            Maze to load the text into.
+     * @throws MazeFormatException
+     *             If the text isn't a valid text maze.
+     */
+    public static void parse(final ByteBuffer buffer, final Maze maze) throws MazeFormatException {
+	new TextMazeFormat(buffer.slice()).parse(maze);
+    }
+
+    private void parse(final Maze maze) throws MazeFormatException {
+	final int width = readSize("width");
+	final int height = readSize("height");
+
+	if ((long) width * height > Integer.MAX_VALUE) throw error("Maze of " + width + "x" + height + " is too large");
+	maze.resize(width, height);
+
+	final int size = width * height;
+	final int limit = buffer.limit();
+	for (int i = 0; i < size; i++) {
+	    skipWhitespace();
+	    if (position == limit) throw error("Expected " + size + " hexagons but found " + i);
+
+	    maze.set(i, toHexType(buffer.get(position)));
+	    // Only the first character of each hexagon matters.
+	    while (position < limit && !isWhitespace(buffer.get(position))) {
+		position++;
+	    }
+	}
+    }
+
+    /**
+     * Writes a maze as a text maze file that can be read back by read.
+     *
+     * @param maze
+     *            Maze to write.
+     * @param path
+     *            File to write the maze to. Replaced if it exists.
+     * @throws IOException
+     *             If the file can't be written.
+     */
+    public static void write(final Maze maze, final Path path) throws IOException {
+	try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+	    write(maze, out);
+	}
+    }
+
+    /**
+     * Writes a maze in the text maze format. Every second row is offset by a space
+     * like the example in Maze.loadFromFile.
+     *
+     * @param maze
+     *            Maze to write.
+     * @param out
+     *            Where to write the maze. Should be buffered.
+     * @throws IOException
+     *             If out can't be written to.
+     */
+    public static void write(final Maze maze, final Writer out) throws IOException {
+	final int width = maze.getWidth();
+	int index = 0;
+
+	out.write(width + " " + maze.getHeight() + "\n");
+	for (int y = 0; y < maze.getHeight(); y++) {
+	    if (y % 2 == 1) out.write(' ');
+	    for (int x = 0; x < width; x++, index++) {
+		if (x > 0) out.write(' ');
+		out.write(toChar(maze.get(index)));
+	    }
+	    out.write('\n');
+	}
+    }
+
+    /**
+     * @param type
+     *            HexType of a hexagon.
+     * @return The character that represents it in a file. The path travelled by
+     *         the player isn't part of the maze so is written as open.
+     */
+    static char toChar(final HexType type) {
+	switch (type) {
+	case OPEN:
+	case CURRENT_PATH:
+	    return 'O';
+	case DEAD_END:
+	    return 'X';
+	default:
+	    return type.display;
+	}
+    }
+
+    /**
+     * @param c
+     *            First character of a hexagon in the file.
+     * @return The HexType it represents. Open hexagons are 'O' in files.
+     */
+    static HexType toHexType(final byte c) {
+	switch (c) {
+	case 'W':
+	case 'w':
+	    return HexType.WALL;
+	case 'O':
+	case 'o':
+	    return HexType.OPEN;
+	case 'M':
+	case 'm':
+	    return HexType.MOUSE;
+	case 'X':
+	case 'x':
+	    return HexType.DEAD_END;
+	case 'C':
+	case 'c':
+	    return HexType.CHEESE;
+	default:
+	    return HexType.INVALID_TYPE;
+	}
+    }
+
+    private int readSize(final String name) throws MazeFormatException {
+	skipWhitespace();
+
+	final int start = position;
+	long value = 0;
+	while (position < buffer.limit()) {
+	    final byte c = buffer.get(position);
+	    if (c < '0' || c > '9') break;
+
+	    value = value * 10 + c - '0';
+	    if (value > Integer.MAX_VALUE) throw error("Maze " + name + " is too large");
+	    position++;
+	}
+	if (position == start || position < buffer.limit() && !isWhitespace(buffer.get(position)))
+	    throw error("Expected maze " + name);
+	return (int) value;
+    }
+
+    private void skipWhitespace() {
+	final int limit = buffer.limit();
+
+	while (position < limit) {
+	    final byte c = buffer.get(position);
+	    if (!isWhitespace(c)) return;
+
+	    position++;
+	    if (c == '\n') {
+		line++;
+		lineStart = position;
+	    }
+	}
+    }
+
+    /**
+     * @param c
+     *            Character from a text maze file.
+     * @return True if c separates hexagons.
+     */
+    static boolean isWhitespace(final byte c) {
+	return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+    }
+
+    private MazeFormatException error(final String message) {
+	return new MazeFormatException(message, line, position - lineStart + 1);
+    }
+}